@@ -0,0 +1,85 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * High fan-out: many concurrent getVideoAsync calls, run on platform threads or on virtual threads.
+ * The virtual variant needs JDK 21; on older JDKs run it with -p threads=platform.
+ *
+ * <p>By default the connection pool has a connection for every call in flight and the platform
+ * variant a thread for every call, so neither caps the concurrency being measured. Set
+ * connections to compare against a smaller pool.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrencyBenchmark {
+  @Param({"1000", "10000"})
+  public int concurrency;
+
+  @Param({"platform", "virtual"})
+  public String threads;
+
+  /**
+   * Size of the connection pool (0 for one connection per call in flight)
+   */
+  @Param({"0"})
+  public int connections;
+
+  private StubServer server;
+  private ExecutorService executor;
+  private BunnyStream bunnyStream;
+
+  @Setup
+  public void setup() throws Exception {
+    this.server = new StubServer(true, 10);
+    int connections = this.connections > 0 ? this.connections : this.concurrency;
+    ConnectionPool pool = new ConnectionPoolBuilder()
+        .maxTotal(connections)
+        .maxPerRoute(connections)
+        .build();
+    if (this.threads.equals("virtual")) {
+      this.executor = VirtualThreads.newExecutor();
+    } else {
+      // One platform thread per call in flight, the way blocking code fans out without a pool
+      this.executor = Executors.newFixedThreadPool(this.concurrency);
+    }
+    this.bunnyStream = new BunnyStream("benchmark-key", 1, pool, this.executor);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.executor.shutdownNow();
+    this.server.close();
+  }
+
+  @Benchmark
+  public int fanOut() {
+    CompletableFuture<?>[] calls = new CompletableFuture<?>[this.concurrency];
+    for (int i = 0; i < calls.length; i++) {
+      calls[i] = this.bunnyStream.getVideoAsync("video-" + i);
+    }
+    CompletableFuture.allOf(calls).join();
+    return calls.length;
+  }
+}
@@ -0,0 +1,78 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.ListVideoQueryBuilder.ListVideoQuery;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full calls through BunnyStream against an in-process stub server, with connection reuse on and
+ * off, with and without a MetricsRecorder, and on the Apache and the JDK transport. The stub
+ * server only speaks HTTP/1.1, so both transports use HTTP/1.1 here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+  @Param({"true", "false"})
+  public boolean pooled;
+
+  @Param({"false", "true"})
+  public boolean metrics;
+
+  @Param({"apache", "jdk"})
+  public String transport;
+
+  private StubServer server;
+  private Transport jdkTransport;
+  private BunnyStream bunnyStream;
+  private ListVideoQuery listQuery;
+
+  @Setup
+  public void setup() throws Exception {
+    this.server = new StubServer(this.pooled, 100);
+    if (this.transport.equals("jdk")) {
+      this.jdkTransport = new JdkTransportBuilder().build();
+      this.bunnyStream = new BunnyStream("benchmark-key", 1, this.jdkTransport);
+    } else {
+      this.bunnyStream = new BunnyStream("benchmark-key", 1);
+    }
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    if (this.metrics) {
+      this.bunnyStream.setMetricsListener(new MetricsRecorder());
+    }
+    this.listQuery = new ListVideoQueryBuilder().perPage(100).build();
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    this.bunnyStream.close();
+    if (this.jdkTransport != null) {
+      this.jdkTransport.close();
+    }
+    this.server.close();
+  }
+
+  @Benchmark
+  public Video getVideo() throws Exception {
+    return this.bunnyStream.getVideo("7a2c1f3e-9b8d-4e6f-a1b2-c3d4e5f6a7b8");
+  }
+
+  @Benchmark
+  public int listVideos() throws Exception {
+    return this.bunnyStream.listVideos(this.listQuery).getList().size();
+  }
+}
@@ -0,0 +1,65 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of recording a call in the MetricsRecorder, alone and with eight threads recording to the
+ * same endpoint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+  private MetricsRecorder recorder;
+  private LatencyHistogram histogram;
+
+  @Setup
+  public void setup() {
+    this.recorder = new MetricsRecorder();
+    this.histogram = new LatencyHistogram();
+    for (int i = 0; i < 1000; i++) {
+      this.recorder.onCall(call());
+    }
+  }
+
+  private static CallMetrics call() {
+    long latency = ThreadLocalRandom.current().nextLong(1_000_000, 200_000_000);
+    return new CallMetrics("GET", "/videos/{id}", 200, latency, 0, 650, 0, 20_000, null);
+  }
+
+  @Benchmark
+  public void record() {
+    this.recorder.onCall(call());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void recordContended() {
+    this.recorder.onCall(call());
+  }
+
+  @Benchmark
+  public void histogram() {
+    this.histogram.record(ThreadLocalRandom.current().nextLong(1_000_000, 200_000_000));
+  }
+
+  @Benchmark
+  public long snapshot() {
+    return this.recorder.snapshot().size();
+  }
+}
@@ -0,0 +1,67 @@
+package com.bunny.net.stream;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicNameValuePair;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building requests: URLs, query strings and JSON bodies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBuildingBenchmark {
+  private BunnyStream bunnyStream;
+  private List<NameValuePair> listParameters;
+  private List<NameValuePair> updateBody;
+
+  @Setup
+  public void setup() {
+    this.bunnyStream = new BunnyStream("benchmark-key", 12345);
+
+    this.listParameters = new ArrayList<NameValuePair>();
+    this.listParameters.add(new BasicNameValuePair("page", "1"));
+    this.listParameters.add(new BasicNameValuePair("perPage", "100"));
+    this.listParameters.add(new BasicNameValuePair("sortBy", "date"));
+    this.listParameters.add(new BasicNameValuePair("search", "holiday 2021 & friends"));
+    this.listParameters.add(new BasicNameValuePair("collection", "c6b2a9f0-5c1e-4c5e"));
+
+    this.updateBody = new ArrayList<NameValuePair>();
+    this.updateBody.add(new BasicNameValuePair("collectionId", "c6b2a9f0-5c1e-4c5e"));
+    this.updateBody.add(new BasicNameValuePair("title", "A new \"title\" for the video"));
+  }
+
+  @Benchmark
+  public String generateBaseUrl() {
+    return this.bunnyStream.generateBaseUrl("/videos/7a2c1f3e-9b8d-4e6f-a1b2-c3d4e5f6a7b8");
+  }
+
+  @Benchmark
+  public String addQueryParameters() throws UnsupportedEncodingException {
+    return Requests.addQueryParameters(this.bunnyStream.generateBaseUrl("/videos"),
+        this.listParameters);
+  }
+
+  @Benchmark
+  public String jsonBody() {
+    JSONObject body = Requests.jsonBody(this.updateBody);
+    return body.toString();
+  }
+}
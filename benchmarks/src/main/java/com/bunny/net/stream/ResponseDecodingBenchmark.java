@@ -0,0 +1,91 @@
+package com.bunny.net.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of decoding list pages of various sizes, from the raw bytes as they come off the
+ * connection, on the current path and on the path it replaced. Run with -prof gc to compare their
+ * allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+  @Param({"10", "100", "1000"})
+  public int items;
+
+  private byte[] pageBytes;
+  private ListVideoResponse decodedPage;
+
+  @Setup
+  public void setup() {
+    this.pageBytes = StubServer.listJson(this.items).getBytes(StandardCharsets.UTF_8);
+    this.decodedPage = new ListVideoResponse(parse(this.pageBytes));
+    this.decodedPage.getList();
+  }
+
+  private static JSONObject parse(byte[] bytes) {
+    Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+    return new JSONObject(new JSONTokener(reader));
+  }
+
+  /**
+   * Decode a page the way listVideos does: parse the stream, then build the videos.
+   */
+  @Benchmark
+  public List<Video> decodeList() {
+    return new ListVideoResponse(parse(this.pageBytes)).getList();
+  }
+
+  /**
+   * Decode a page the way listVideos used to: buffer the body as a String, parse it, convert the
+   * items to a List of Maps and build a JSONObject from each Map for its Video.
+   */
+  @Benchmark
+  @SuppressWarnings("unchecked")
+  public List<Video> decodeListBaseline() throws IOException {
+    String body = EntityUtils.toString(
+        new ByteArrayEntity(this.pageBytes, ContentType.APPLICATION_JSON));
+    List<Object> items = new JSONObject(body).getJSONArray("items").toList();
+    List<Video> videos = new ArrayList<Video>();
+    for (Object item : items) {
+      videos.add(new Video(new JSONObject((Map<String, Object>) item)));
+    }
+    return videos;
+  }
+
+  /**
+   * Repeated getList on a decoded page, which is memoized.
+   */
+  @Benchmark
+  public List<Video> getListMemoized() {
+    return this.decodedPage.getList();
+  }
+}
@@ -0,0 +1,103 @@
+package com.bunny.net.stream;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process Stream API for the end-to-end benchmarks. It answers every request with a
+ * canned video, or a canned page of videos for /videos, so the benchmarks measure the client.
+ */
+class StubServer implements Closeable {
+  static {
+    // Otherwise Nagle and delayed ACKs add ~40 ms to every response on a kept-alive connection
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    // The default of 200 closes the kept-alive connections of a larger client pool
+    System.setProperty("sun.net.httpserver.maxIdleConnections", "20000");
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  /**
+   * Start a stub server on a free local port.
+   *
+   * @param keepAlive Whether connections are kept alive (false closes each after one response)
+   * @param pageSize Number of videos in a list response
+   * @throws IOException Server could not be started
+   */
+  StubServer(boolean keepAlive, int pageSize) throws IOException {
+    byte[] video = videoJson("stub").getBytes(StandardCharsets.UTF_8);
+    byte[] page = listJson(pageSize).getBytes(StandardCharsets.UTF_8);
+
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16384);
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "stub-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/", exchange -> {
+      try (InputStream in = exchange.getRequestBody()) {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+          // Drain the request body, so the connection can be reused
+        }
+      }
+      byte[] body = exchange.getRequestURI().getPath().endsWith("/videos") ? page : video;
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      if (!keepAlive) {
+        exchange.getResponseHeaders().set("Connection", "close");
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    this.server.start();
+  }
+
+  /**
+   * Get the base URL to pass to BunnyStream.setBaseUrl.
+   */
+  String getBaseUrl() {
+    return "http://127.0.0.1:" + this.server.getAddress().getPort() + "/library/";
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * Get the JSON of a realistic video object.
+   */
+  static String videoJson(String guid) {
+    return "{\"videoLibraryId\":1,\"guid\":\"" + guid + "\",\"title\":\"Benchmark video " + guid
+        + "\",\"dateUploaded\":\"2021-06-01T12:00:00.000\",\"views\":1234,\"isPublic\":false,"
+        + "\"length\":600,\"status\":4,\"framerate\":29.97,\"width\":1920,\"height\":1080,"
+        + "\"availableResolutions\":\"240p,360p,480p,720p,1080p\",\"thumbnailCount\":60,"
+        + "\"encodeProgress\":100,\"storageSize\":123456789,\"captions\":[],"
+        + "\"hasMP4Fallback\":true,\"collectionId\":\"\",\"thumbnailFileName\":\"thumbnail.jpg\"}";
+  }
+
+  /**
+   * Get the JSON of a page of videos.
+   */
+  static String listJson(int items) {
+    StringBuilder json = new StringBuilder("{\"totalItems\":").append(items)
+        .append(",\"currentPage\":1,\"itemsPerPage\":").append(items).append(",\"items\":[");
+    for (int i = 0; i < items; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(videoJson("video-" + i));
+    }
+    return json.append("]}").toString();
+  }
+}
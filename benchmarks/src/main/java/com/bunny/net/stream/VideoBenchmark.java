@@ -0,0 +1,51 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of building a Video from its parsed JSON and reading it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VideoBenchmark {
+  private JSONObject videoJson;
+
+  @Setup
+  public void setup() {
+    this.videoJson = new JSONObject(StubServer.videoJson("benchmark"));
+  }
+
+  @Benchmark
+  public Video construct() {
+    return new Video(this.videoJson);
+  }
+
+  @Benchmark
+  public void constructAndRead(Blackhole blackhole) {
+    Video video = new Video(this.videoJson);
+    blackhole.consume(video.getGuid());
+    blackhole.consume(video.getTitle());
+    blackhole.consume(video.getVideoStatus());
+    blackhole.consume(video.getLength());
+    blackhole.consume(video.getWidth());
+    blackhole.consume(video.getFrameRate());
+    blackhole.consume(video.getEncodeProgress());
+    blackhole.consume(video.isPublic());
+  }
+}
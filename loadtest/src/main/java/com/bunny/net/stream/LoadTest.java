@@ -0,0 +1,463 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the BunnyStream client. It drives a weighted mix of listVideos, getVideo,
+ * updateVideo and createAndUploadVideo, either open loop at a target rate or closed loop with a
+ * number of workers, against the Stream API at a given URL or against an embedded
+ * FakeBunnyServer. It reports throughput, latency percentiles, errors and heap and GC activity.
+ */
+public class LoadTest {
+  /**
+   * Operations in the mix
+   */
+  enum Operation {
+    LIST,
+    GET,
+    UPDATE,
+    UPLOAD
+  }
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final LoadTestOptions options;
+  private final BunnyStream client;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final List<String> videoIds = new CopyOnWriteArrayList<String>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger titles = new AtomicInteger();
+  private File uploadFile = null;
+  private long measureStart;
+  private final Stats warmup = new Stats();
+  private final Stats measured = new Stats();
+
+  LoadTest(LoadTestOptions options, BunnyStream client) {
+    this.options = options;
+    this.client = client;
+    this.operations = options.mix.keySet().toArray(new Operation[0]);
+    this.cumulativeWeights = new int[this.operations.length];
+    int total = 0;
+    for (int i = 0; i < this.operations.length; i++) {
+      total += Math.max(0, options.mix.get(this.operations[i]));
+      this.cumulativeWeights[i] = total;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("The mix needs at least one weight above 0");
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(LoadTestOptions.USAGE);
+      System.exit(2);
+      return;
+    }
+    if (options == null) {
+      System.out.println(LoadTestOptions.USAGE);
+      return;
+    }
+
+    FakeBunnyServer fake = null;
+    if (options.baseUrl == null) {
+      fake = new FakeBunnyServer(options.apiKey, options.libraryId);
+      fake.setLatency(FakeBunnyServer.logNormalLatency(options.fakeMedianMillis,
+          options.fakeP99Millis));
+      if (options.fakeErrors != null) {
+        for (String error : options.fakeErrors.split(",")) {
+          String[] parts = error.split(":");
+          fake.setErrorRate(Integer.parseInt(parts[0].trim()), Double.parseDouble(parts[1]));
+        }
+      }
+      fake.setResetRate(options.fakeResets);
+      for (int i = 0; i < options.seed; i++) {
+        fake.addVideo("Seed video " + i);
+      }
+      options.baseUrl = fake.getBaseUrl();
+      System.out.printf("Embedded fake at %s with %d videos, latency median %.0f ms, p99 %.0f ms%n",
+          options.baseUrl, options.seed, options.fakeMedianMillis, options.fakeP99Millis);
+    }
+
+    ConnectionPool pool = new ConnectionPoolBuilder()
+        .maxTotal(options.connections)
+        .maxPerRoute(options.connections)
+        .build();
+    BunnyStream client = new BunnyStream(options.apiKey, options.libraryId, pool);
+    client.setBaseUrl(options.baseUrl);
+    if (options.retries > 1) {
+      client.setRetryPolicy(new RetryPolicyBuilder().maxAttempts(options.retries).build());
+    }
+
+    try {
+      LoadTest loadTest = new LoadTest(options, client);
+      loadTest.prepare();
+      // Only the calls under load have a deadline, not collecting the videos
+      client.setTimeout(options.timeoutMillis);
+      loadTest.run();
+      loadTest.report();
+    } finally {
+      client.close();
+      pool.close();
+      if (fake != null) {
+        fake.close();
+      }
+    }
+  }
+
+  /**
+   * Collect video IDs to get and update, and create the file to upload.
+   */
+  void prepare() throws Exception {
+    int pages = Math.max(1, (this.options.seed + this.options.pageSize - 1) / this.options.pageSize);
+    for (int page = 1; page <= pages; page++) {
+      List<Video> videos = this.client.listVideos(new ListVideoQueryBuilder().page(page)
+          .perPage(this.options.pageSize).build()).getList();
+      for (Video video : videos) {
+        this.videoIds.add(video.getGuid());
+      }
+      if (videos.size() < this.options.pageSize) {
+        break;
+      }
+    }
+    System.out.printf("Found %d videos to read and update%n", this.videoIds.size());
+
+    if (this.options.mix.getOrDefault(Operation.UPLOAD, 0) > 0) {
+      this.uploadFile = File.createTempFile("bunnystream-loadtest", ".mp4");
+      this.uploadFile.deleteOnExit();
+      try (RandomAccessFile file = new RandomAccessFile(this.uploadFile, "rw")) {
+        file.setLength(this.options.uploadSize);
+      }
+    }
+  }
+
+  /**
+   * Run the warmup and the measured period.
+   */
+  void run() throws InterruptedException {
+    long start = System.nanoTime();
+    this.measureStart = start + TimeUnit.SECONDS.toNanos(this.options.warmupSeconds);
+    long end = this.measureStart + TimeUnit.SECONDS.toNanos(this.options.durationSeconds);
+    System.out.printf("%s for %d s after %d s of warmup%n", this.describeMode(),
+        this.options.durationSeconds, this.options.warmupSeconds);
+
+    ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "loadtest-progress");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.schedule(this.measured::begin, this.measureStart - start, TimeUnit.NANOSECONDS);
+    Progress progress = new Progress(start);
+    reporter.scheduleAtFixedRate(progress::print, 5, 5, TimeUnit.SECONDS);
+
+    if (this.options.concurrency > 0) {
+      this.closedLoop(start, end);
+    } else {
+      this.openLoop(start, end);
+    }
+    this.measured.end = Math.min(System.nanoTime(), end);
+    reporter.shutdownNow();
+  }
+
+  private String describeMode() {
+    if (this.options.concurrency <= 0) {
+      return String.format("Open loop at %.0f calls/s", this.options.rate);
+    }
+    return String.format("Closed loop with %d workers%s", this.options.concurrency,
+        this.options.rate > 0 ? String.format(", paced to %.0f calls/s", this.options.rate) : "");
+  }
+
+  /**
+   * Start calls at a fixed rate, no matter how long earlier calls take.
+   */
+  private void openLoop(long start, long end) throws InterruptedException {
+    ExecutorService workers = Executors.newFixedThreadPool(this.options.threads, r -> {
+      Thread thread = new Thread(r, "loadtest-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    double interval = NANOS_PER_SECOND / this.options.rate;
+    for (long n = 0;; n++) {
+      long due = start + (long) (n * interval);
+      if (due - end >= 0) {
+        break;
+      }
+      sleepUntil(due);
+      this.inFlight.incrementAndGet();
+      workers.execute(() -> {
+        try {
+          this.call(due);
+        } finally {
+          this.inFlight.decrementAndGet();
+        }
+      });
+    }
+    workers.shutdown();
+    if (!workers.awaitTermination(60, TimeUnit.SECONDS)) {
+      System.out.printf("%d calls still running after 60 s, not waiting for them%n",
+          this.inFlight.get());
+    }
+  }
+
+  /**
+   * Run workers which each start a call when their previous one ends, optionally paced.
+   */
+  private void closedLoop(long start, long end) throws InterruptedException {
+    int workers = this.options.concurrency;
+    long interval = this.options.rate > 0
+        ? (long) (NANOS_PER_SECOND * workers / this.options.rate)
+        : 0;
+    Thread[] threads = new Thread[workers];
+    for (int i = 0; i < workers; i++) {
+      long first = start + interval * i / workers;
+      threads[i] = new Thread(() -> {
+        for (long due = first;; due += interval) {
+          if (interval > 0) {
+            try {
+              sleepUntil(due);
+            } catch (InterruptedException e) {
+              return;
+            }
+          } else {
+            due = System.nanoTime();
+          }
+          if (due - end >= 0) {
+            return;
+          }
+          this.inFlight.incrementAndGet();
+          try {
+            this.call(due);
+          } finally {
+            this.inFlight.decrementAndGet();
+          }
+        }
+      }, "loadtest-worker-" + i);
+      threads[i].setDaemon(true);
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  private static void sleepUntil(long due) throws InterruptedException {
+    long wait = due - System.nanoTime();
+    if (wait > 0) {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    }
+  }
+
+  /**
+   * Make one call of the mix. Its latency counts from the time it was due.
+   */
+  private void call(long due) {
+    Operation operation = this.pick();
+    Stats stats = due - this.measureStart < 0 ? this.warmup : this.measured;
+    try {
+      this.execute(operation);
+      stats.record(operation, System.nanoTime() - due, null);
+    } catch (Exception e) {
+      stats.record(operation, System.nanoTime() - due, e);
+    }
+  }
+
+  private Operation pick() {
+    int roll = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[
+        this.cumulativeWeights.length - 1]);
+    for (int i = 0; i < this.cumulativeWeights.length; i++) {
+      if (roll < this.cumulativeWeights[i]) {
+        return this.operations[i];
+      }
+    }
+    return this.operations[this.operations.length - 1];
+  }
+
+  private void execute(Operation operation) throws Exception {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String videoId = this.videoIds.isEmpty()
+        ? null
+        : this.videoIds.get(random.nextInt(this.videoIds.size()));
+    if (videoId == null && (operation == Operation.GET || operation == Operation.UPDATE)) {
+      operation = Operation.LIST;
+    }
+    switch (operation) {
+      case LIST:
+        int pages = Math.max(1, this.videoIds.size() / this.options.pageSize);
+        this.client.listVideos(new ListVideoQueryBuilder().page(1 + random.nextInt(pages))
+            .perPage(this.options.pageSize).build());
+        break;
+      case GET:
+        this.client.getVideo(videoId);
+        break;
+      case UPDATE:
+        this.client.updateVideo(new UpdateVideoQueryBuilder(videoId)
+            .title("Load test " + this.titles.incrementAndGet()).build());
+        break;
+      case UPLOAD:
+        Video video = this.client.createAndUploadVideo(
+            "Load test upload " + this.titles.incrementAndGet(), this.uploadFile, "");
+        this.videoIds.add(video.getGuid());
+        break;
+      default:
+        throw new IllegalStateException(operation.name());
+    }
+  }
+
+  /**
+   * Prints throughput since the last report every few seconds.
+   */
+  private class Progress {
+    private final long start;
+    private long previousCalls = 0;
+    private long previousTime;
+
+    Progress(long start) {
+      this.start = start;
+      this.previousTime = start;
+    }
+
+    void print() {
+      long now = System.nanoTime();
+      Stats stats = now - LoadTest.this.measureStart < 0 ? LoadTest.this.warmup
+          : LoadTest.this.measured;
+      if (stats == LoadTest.this.measured && this.previousTime - LoadTest.this.measureStart < 0) {
+        this.previousCalls = 0;
+        this.previousTime = LoadTest.this.measureStart;
+      }
+      long calls = stats.calls.sum();
+      System.out.printf("%5.0f s  %s  %8.0f calls/s  %6d errors  %5d in flight%n",
+          (now - this.start) / 1e9, stats == LoadTest.this.warmup ? "warmup" : "      ",
+          (calls - this.previousCalls) * 1e9 / Math.max(1, now - this.previousTime),
+          stats.errors.sum(), LoadTest.this.inFlight.get());
+      this.previousCalls = calls;
+      this.previousTime = now;
+    }
+  }
+
+  /**
+   * Print the results of the measured period.
+   */
+  void report() {
+    Stats stats = this.measured;
+    double seconds = Math.max(1, stats.end - this.measureStart) / 1e9;
+    System.out.println();
+    System.out.printf("%-8s %9s %9s %8s %9s %9s %9s %9s %9s%n", "", "calls", "calls/s",
+        "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Operation operation : this.operations) {
+      int i = operation.ordinal();
+      this.printRow(operation.name().toLowerCase(), stats.callsByOperation[i].sum(),
+          stats.errorsByOperation[i].sum(), stats.latency[i].snapshot(), seconds);
+    }
+    this.printRow("all", stats.calls.sum(), stats.errors.sum(), stats.all.snapshot(), seconds);
+
+    if (!stats.errorTypes.isEmpty()) {
+      System.out.println();
+      System.out.println("Errors:");
+      for (Map.Entry<String, LongAdder> error : new TreeMap<String, LongAdder>(stats.errorTypes)
+          .entrySet()) {
+        System.out.printf("  %-40s %d%n", error.getKey(), error.getValue().sum());
+      }
+    }
+
+    System.out.println();
+    MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    System.out.printf("Heap: %d MB used, %d MB committed, %d MB max%n", heap.getUsed() >> 20,
+        heap.getCommitted() >> 20, heap.getMax() >> 20);
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      long[] before = stats.gcAtStart.getOrDefault(gc.getName(), new long[2]);
+      System.out.printf("GC %-24s %6d collections %8d ms (measured period)%n", gc.getName(),
+          gc.getCollectionCount() - before[0], gc.getCollectionTime() - before[1]);
+    }
+  }
+
+  private void printRow(String name, long calls, long errors, HistogramSnapshot latency,
+      double seconds) {
+    System.out.printf("%-8s %9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", name, calls,
+        calls / seconds, errors, latency.getPercentileMillis(0.5),
+        latency.getPercentileMillis(0.9), latency.getPercentileMillis(0.99),
+        latency.getPercentileMillis(0.999), latency.getMax() / 1e6);
+  }
+
+  private static String errorType(Throwable error) {
+    if (error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error instanceof BunnyStreamAPIException) {
+      int code = ((BunnyStreamAPIException) error).getHttpCode();
+      if (code > 0) {
+        return "HTTP " + code;
+      }
+    }
+    return error.getClass().getSimpleName();
+  }
+
+  /**
+   * Results of one period (warmup or measured).
+   */
+  private static class Stats {
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder[] callsByOperation = new LongAdder[Operation.values().length];
+    final LongAdder[] errorsByOperation = new LongAdder[Operation.values().length];
+    final LatencyHistogram[] latency = new LatencyHistogram[Operation.values().length];
+    final LatencyHistogram all = new LatencyHistogram();
+    final ConcurrentHashMap<String, LongAdder> errorTypes =
+        new ConcurrentHashMap<String, LongAdder>();
+    final Map<String, long[]> gcAtStart = new ConcurrentHashMap<String, long[]>();
+    volatile long end;
+
+    Stats() {
+      for (int i = 0; i < this.latency.length; i++) {
+        this.callsByOperation[i] = new LongAdder();
+        this.errorsByOperation[i] = new LongAdder();
+        this.latency[i] = new LatencyHistogram();
+      }
+    }
+
+    /**
+     * Take the GC counts at the start of the period.
+     */
+    void begin() {
+      for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+        this.gcAtStart.put(gc.getName(),
+            new long[] {gc.getCollectionCount(), gc.getCollectionTime()});
+      }
+    }
+
+    void record(Operation operation, long nanos, Exception error) {
+      int i = operation.ordinal();
+      this.calls.increment();
+      this.callsByOperation[i].increment();
+      if (error != null) {
+        this.errors.increment();
+        this.errorsByOperation[i].increment();
+        this.errorTypes.computeIfAbsent(errorType(error), k -> new LongAdder()).increment();
+      } else {
+        this.latency[i].record(nanos);
+        this.all.record(nanos);
+      }
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package com.bunny.net.stream;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options of the LoadTest.
+ */
+class LoadTestOptions {
+  static final String USAGE = String.join("\n",
+      "Usage: java -jar loadtest.jar [--option=value ...]",
+      "",
+      "Target:",
+      "  --base-url=URL         Stream API base URL up to /library/ (default: embedded fake)",
+      "  --api-key=KEY          API key (default: loadtest)",
+      "  --library=ID           Library ID (default: 1)",
+      "",
+      "Load:",
+      "  --mix=OP:W,...         Operation weights, OP is list, get, update or upload",
+      "                         (default: list:10,get:80,update:9,upload:1)",
+      "  --rate=N               Open loop: start N calls per second, whatever the latency",
+      "  --concurrency=N        Closed loop: N workers, each starting a call when the last one",
+      "                         ends; with --rate they are paced to N calls per second in total",
+      "  --duration=SECONDS     Measured run time (default: 30)",
+      "  --warmup=SECONDS       Unmeasured run time before it (default: 5)",
+      "  --threads=N            Threads running open loop calls (default: 256)",
+      "  --upload-size=BYTES    Size of uploaded files (default: 1048576)",
+      "  --page-size=N          Videos per list page (default: 100)",
+      "",
+      "Client:",
+      "  --connections=N        Connection pool size (default: 256)",
+      "  --timeout=MILLIS       Deadline per call (default: none)",
+      "  --retries=N            Maximum attempts per call (default: 1, no retries)",
+      "",
+      "Embedded fake:",
+      "  --seed=N               Videos in the library at the start (default: 1000)",
+      "  --fake-latency=MED,P99 Log-normal latency in milliseconds (default: 5,50)",
+      "  --fake-errors=S:R,...  Error status and rate, e.g. 503:0.01,429:0.005",
+      "  --fake-resets=RATE     Connection reset rate (default: 0)",
+      "",
+      "Open loop latencies are measured from the time each call was due, so they include time",
+      "spent queued behind slow calls (coordinated omission correction). The same holds for",
+      "closed loop runs paced with --rate. Unpaced closed loop latencies are uncorrected.");
+
+  String baseUrl = null;
+  String apiKey = "loadtest";
+  int libraryId = 1;
+  Map<LoadTest.Operation, Integer> mix = new EnumMap<LoadTest.Operation, Integer>(
+      LoadTest.Operation.class);
+  double rate = 0;
+  int concurrency = 0;
+  long durationSeconds = 30;
+  long warmupSeconds = 5;
+  int threads = 256;
+  long uploadSize = 1024 * 1024;
+  int pageSize = 100;
+  int connections = 256;
+  long timeoutMillis = 0;
+  int retries = 1;
+  int seed = 1000;
+  double fakeMedianMillis = 5;
+  double fakeP99Millis = 50;
+  String fakeErrors = null;
+  double fakeResets = 0;
+
+  /**
+   * Parse the command line.
+   *
+   * @param args Arguments
+   * @return Options, or null if help was asked for
+   * @throws IllegalArgumentException Unknown option or malformed value
+   */
+  static LoadTestOptions parse(String[] args) {
+    LoadTestOptions options = new LoadTestOptions();
+    options.mix.put(LoadTest.Operation.LIST, 10);
+    options.mix.put(LoadTest.Operation.GET, 80);
+    options.mix.put(LoadTest.Operation.UPDATE, 9);
+    options.mix.put(LoadTest.Operation.UPLOAD, 1);
+
+    for (String arg : args) {
+      if (arg.equals("-h") || arg.equals("--help")) {
+        return null;
+      }
+      int equals = arg.indexOf('=');
+      if (!arg.startsWith("--") || equals < 0) {
+        throw new IllegalArgumentException("Expected --option=value, got " + arg);
+      }
+      String name = arg.substring(2, equals);
+      String value = arg.substring(equals + 1);
+      switch (name) {
+        case "base-url":
+          options.baseUrl = value;
+          break;
+        case "api-key":
+          options.apiKey = value;
+          break;
+        case "library":
+          options.libraryId = Integer.parseInt(value);
+          break;
+        case "mix":
+          options.mix.clear();
+          for (String weight : value.split(",")) {
+            String[] parts = weight.split(":");
+            options.mix.put(LoadTest.Operation.valueOf(parts[0].trim().toUpperCase()),
+                Integer.parseInt(parts[1].trim()));
+          }
+          break;
+        case "rate":
+          options.rate = Double.parseDouble(value);
+          break;
+        case "concurrency":
+          options.concurrency = Integer.parseInt(value);
+          break;
+        case "duration":
+          options.durationSeconds = Long.parseLong(value);
+          break;
+        case "warmup":
+          options.warmupSeconds = Long.parseLong(value);
+          break;
+        case "threads":
+          options.threads = Integer.parseInt(value);
+          break;
+        case "upload-size":
+          options.uploadSize = Long.parseLong(value);
+          break;
+        case "page-size":
+          options.pageSize = Integer.parseInt(value);
+          break;
+        case "connections":
+          options.connections = Integer.parseInt(value);
+          break;
+        case "timeout":
+          options.timeoutMillis = Long.parseLong(value);
+          break;
+        case "retries":
+          options.retries = Integer.parseInt(value);
+          break;
+        case "seed":
+          options.seed = Integer.parseInt(value);
+          break;
+        case "fake-latency":
+          String[] latency = value.split(",");
+          options.fakeMedianMillis = Double.parseDouble(latency[0]);
+          options.fakeP99Millis = Double.parseDouble(latency[latency.length - 1]);
+          break;
+        case "fake-errors":
+          options.fakeErrors = value;
+          break;
+        case "fake-resets":
+          options.fakeResets = Double.parseDouble(value);
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option --" + name);
+      }
+    }
+    if (options.rate <= 0 && options.concurrency <= 0) {
+      throw new IllegalArgumentException("Give a --rate (open loop) or --concurrency (closed loop)");
+    }
+    return options;
+  }
+}
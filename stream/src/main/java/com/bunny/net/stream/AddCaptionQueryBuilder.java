@@ -1,9 +1,14 @@
 package com.bunny.net.stream;
 
+import java.io.InputStream;
+import java.nio.file.Path;
+
 public class AddCaptionQueryBuilder {
   private final String videoId;
   private String label = null;
   private String captionFile = null;
+  private Path captionPath = null;
+  private InputStream captionStream = null;
   private String srcLang = null;
   
   /**
@@ -36,6 +41,36 @@ public class AddCaptionQueryBuilder {
    */
   public AddCaptionQueryBuilder captionFile(String captionFile) {
     this.captionFile = captionFile;
+    this.captionPath = null;
+    this.captionStream = null;
+    return this;
+  }
+
+  /**
+   * Set caption file to read from disk. It is Base64 encoded while it is sent, so it is never
+   * loaded on the heap.
+   * 
+   * @param captionFile Path to the caption file (not encoded)
+   * @return AddCaptionQueryBuilder
+   */
+  public AddCaptionQueryBuilder captionFile(Path captionFile) {
+    this.captionFile = null;
+    this.captionPath = captionFile;
+    this.captionStream = null;
+    return this;
+  }
+
+  /**
+   * Set caption file to read from a stream. It is Base64 encoded while it is sent. The stream can
+   * only be sent once, so the request is not retried after it was sent, and it is not closed.
+   * 
+   * @param captionFile Stream of the caption file (not encoded)
+   * @return AddCaptionQueryBuilder
+   */
+  public AddCaptionQueryBuilder captionFile(InputStream captionFile) {
+    this.captionFile = null;
+    this.captionPath = null;
+    this.captionStream = captionFile;
     return this;
   }
   
@@ -45,13 +80,16 @@ public class AddCaptionQueryBuilder {
    * @return AddCaptionQuery
    */
   public AddCaptionQuery build() {
-    return new AddCaptionQuery(this.videoId, this.label, this.captionFile, this.srcLang);
+    return new AddCaptionQuery(this.videoId, this.label, this.captionFile, this.captionPath,
+        this.captionStream, this.srcLang);
   }
   
   public class AddCaptionQuery {
     private final String videoId;
     private String label = null;
     private String captionFile = null;
+    private Path captionPath = null;
+    private InputStream captionStream = null;
     private String srcLang = null;
   
     /**
@@ -68,6 +106,23 @@ public class AddCaptionQueryBuilder {
       this.videoId = videoId;
       this.srcLang = srcLang;
     }
+
+    /**
+     * AddCaptionQuery
+     * 
+     * @param videoId Video ID to add captions to
+     * @param label Captions label
+     * @param captionFile Base64 encoded captions file
+     * @param captionPath Path to the captions file
+     * @param captionStream Stream of the captions file
+     * @param srcLang Source language code
+     */
+    AddCaptionQuery(String videoId, String label, String captionFile, Path captionPath,
+        InputStream captionStream, String srcLang) {
+      this(videoId, label, captionFile, srcLang);
+      this.captionPath = captionPath;
+      this.captionStream = captionStream;
+    }
     
     /**
      * Get video ID
@@ -96,6 +151,24 @@ public class AddCaptionQueryBuilder {
       return captionFile;
     }
 
+    /**
+     * Get path of the captions file
+     * 
+     * @return Path to the captions file (not encoded), or null if not set
+     */
+    public Path getCaptionPath() {
+      return captionPath;
+    }
+
+    /**
+     * Get stream of the captions file
+     * 
+     * @return Stream of the captions file (not encoded), or null if not set
+     */
+    public InputStream getCaptionStream() {
+      return captionStream;
+    }
+
     /**
      * Get source language
      * 
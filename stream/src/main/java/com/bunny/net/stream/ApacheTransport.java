@@ -0,0 +1,159 @@
+package com.bunny.net.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+/**
+ * Transport on Apache HttpClient, sending requests over the connections of a ConnectionPool. This
+ * is the default transport of BunnyStream.
+ */
+public class ApacheTransport implements Transport {
+  private final CloseableHttpClient httpclient;
+
+  /**
+   * ApacheTransport using a given connection pool. Closing the transport does not close the pool.
+   *
+   * @param pool ConnectionPool (Obtain by building a pool with ConnectionPoolBuilder)
+   */
+  public ApacheTransport(ConnectionPool pool) {
+    this(pool.getClient());
+  }
+
+  /**
+   * ApacheTransport
+   *
+   * @param httpclient The (pooled) HTTP client to execute requests with.
+   */
+  ApacheTransport(CloseableHttpClient httpclient) {
+    this.httpclient = httpclient;
+  }
+
+  @Override
+  public Call newCall(Request request) {
+    HttpRequestBase httpRequest = create(request.getMethod(), request.getUri());
+    for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+      httpRequest.addHeader(header.getKey(), header.getValue());
+    }
+    if (request.getBody() != null) {
+      ((HttpEntityEnclosingRequestBase) httpRequest).setEntity(new BodyEntity(request.getBody()));
+    }
+    return new Call() {
+      @Override
+      public <T> T execute(Handler<T> handler) throws IOException {
+        return ApacheTransport.this.httpclient.execute(httpRequest,
+            response -> handler.handle(new ApacheResponse(response)));
+      }
+
+      @Override
+      public void abort() {
+        httpRequest.abort();
+      }
+    };
+  }
+
+  /**
+   * Does nothing, the connection pool is closed on its own.
+   */
+  @Override
+  public void close() {
+  }
+
+  private static HttpRequestBase create(String method, String uri) {
+    switch (method) {
+      case "GET":
+        return new HttpGet(uri);
+      case "HEAD":
+        return new HttpHead(uri);
+      case "DELETE":
+        return new HttpDelete(uri);
+      case "POST":
+        return new HttpPost(uri);
+      case "PUT":
+        return new HttpPut(uri);
+      case "PATCH":
+        return new HttpPatch(uri);
+      default:
+        throw new IllegalArgumentException("Unsupported HTTP method " + method);
+    }
+  }
+
+  private static class ApacheResponse implements Response {
+    private final HttpResponse response;
+
+    ApacheResponse(HttpResponse response) {
+      this.response = response;
+    }
+
+    @Override
+    public int getStatus() {
+      return this.response.getStatusLine().getStatusCode();
+    }
+
+    @Override
+    public String getHeader(String name) {
+      Header header = this.response.getFirstHeader(name);
+      return header != null ? header.getValue() : null;
+    }
+
+    @Override
+    public InputStream getBody() throws IOException {
+      HttpEntity entity = this.response.getEntity();
+      return entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+    }
+  }
+
+  /**
+   * Request entity writing a transport body.
+   */
+  static class BodyEntity extends AbstractHttpEntity {
+    private final Body body;
+
+    BodyEntity(Body body) {
+      this.body = body;
+      setContentType(body.getContentType());
+      setChunked(body.getContentLength() < 0);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+      return this.body.isRepeatable();
+    }
+
+    @Override
+    public long getContentLength() {
+      return this.body.getContentLength();
+    }
+
+    @Override
+    public InputStream getContent() {
+      throw new UnsupportedOperationException("The body is only written to the request.");
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+      this.body.writeTo(outstream);
+      outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.bunny.net.stream;
+
+/**
+ * Reports every attempt of an API request made under a RetryPolicy, so retry amplification can be
+ * tracked.
+ */
+@FunctionalInterface
+public interface AttemptListener {
+  /**
+   * Called after each attempt.
+   *
+   * @param method HTTP method
+   * @param uri Request URI
+   * @param attempt Attempt number (1 for the first attempt)
+   * @param error Error of the attempt, or null if it succeeded
+   * @param retryDelayMillis Delay before the next attempt in milliseconds, or -1 if there is none
+   */
+  void onAttempt(String method, String uri, int attempt, Exception error, long retryDelayMillis);
+}
@@ -0,0 +1,69 @@
+package com.bunny.net.stream;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the rate at which bytes are sent. Every caller reserves a slot on a shared timeline and
+ * sleeps until its slot starts, so the throttle is lock-free and can be shared between threads.
+ * A throttle may have a parent (for example a global ceiling above a per-file one), in which case
+ * both limits apply.
+ */
+class BandwidthThrottle {
+  private static final long BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final double nanosPerByte;
+  private final BandwidthThrottle parent;
+  private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+
+  /**
+   * BandwidthThrottle
+   *
+   * @param bytesPerSecond Maximum rate in bytes per second
+   * @param parent Throttle which applies on top of this one (may be null)
+   */
+  BandwidthThrottle(long bytesPerSecond, BandwidthThrottle parent) {
+    this.nanosPerByte = TimeUnit.SECONDS.toNanos(1) / (double) bytesPerSecond;
+    this.parent = parent;
+  }
+
+  /**
+   * Wait until the given number of bytes may be sent.
+   *
+   * @param bytes Number of bytes about to be sent
+   * @throws InterruptedIOException Interrupted while waiting, or the upload call was cancelled or
+   *         ran out of time
+   */
+  void acquire(int bytes) throws InterruptedIOException {
+    long cost = (long) (bytes * this.nanosPerByte);
+    long now = System.nanoTime();
+    // Do not let an idle period build up a burst larger than one second
+    long floor = now - BURST_NANOS;
+    long previous;
+    long start;
+    do {
+      previous = this.nextFree.get();
+      start = previous - floor < 0 ? floor : previous;
+    } while (!this.nextFree.compareAndSet(previous, start + cost));
+
+    long wait = start - now;
+    if (wait > 0) {
+      try {
+        // Ends early when the upload call is cancelled
+        CallContext.sleep(wait, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        // The bytes are not sent, so their slot is given back
+        this.nextFree.addAndGet(-cost);
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while throttling upload.");
+      } catch (CallCancelledException | DeadlineExceededException e) {
+        this.nextFree.addAndGet(-cost);
+        throw e;
+      }
+    }
+    if (this.parent != null) {
+      this.parent.acquire(bytes);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Budget for extra requests (retries, hedges), earned as a share of regular requests. Every
+ * request earns ratio tokens and every extra request spends a whole one, with a reserve for
+ * bursts. Lock-free.
+ */
+class Budget {
+  // Tokens are kept in thousandths, so fractional ratios can be earned
+  private static final long UNIT = 1000;
+
+  private final long earned;
+  private final long max;
+  private final AtomicLong tokens;
+
+  /**
+   * Budget
+   *
+   * @param ratio Tokens earned per request
+   * @param reserve Tokens available at the start, and most which can be saved
+   */
+  Budget(double ratio, int reserve) {
+    this.earned = (long) (ratio * UNIT);
+    this.max = reserve * UNIT;
+    this.tokens = new AtomicLong(this.max);
+  }
+
+  /**
+   * Earn tokens for a regular request.
+   */
+  void earn() {
+    long current;
+    do {
+      current = this.tokens.get();
+      if (current >= this.max) {
+        return;
+      }
+    } while (!this.tokens.compareAndSet(current, Math.min(this.max, current + this.earned)));
+  }
+
+  /**
+   * Spend a token for an extra request.
+   *
+   * @return true if a token was available
+   */
+  boolean spend() {
+    long current;
+    do {
+      current = this.tokens.get();
+      if (current < UNIT) {
+        return false;
+      }
+    } while (!this.tokens.compareAndSet(current, current - UNIT));
+    return true;
+  }
+
+  /**
+   * Give back a token which was spent on an extra request that was not sent.
+   */
+  void refund() {
+    long current;
+    do {
+      current = this.tokens.get();
+      if (current >= this.max) {
+        return;
+      }
+    } while (!this.tokens.compareAndSet(current, Math.min(this.max, current + UNIT)));
+  }
+
+  /**
+   * Get number of tokens left
+   *
+   * @return Tokens
+   */
+  double get() {
+    return this.tokens.get() / (double) UNIT;
+  }
+}
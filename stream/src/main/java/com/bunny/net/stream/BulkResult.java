@@ -0,0 +1,222 @@
+package com.bunny.net.stream;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.file.FileSystemException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.net.ssl.SSLException;
+
+/**
+ * Outcome of a bulk operation (e.g. {@link BunnyStream#deleteVideos}), with one result per item.
+ *
+ * @param <T> Type of the items (video IDs, queries, ...)
+ */
+public class BulkResult<T> {
+  /**
+   * Outcome of a single item.
+   */
+  public enum Outcome {
+    /**
+     * The item was processed.
+     */
+    SUCCESS,
+    /**
+     * The item failed with a transient error (rate limiting, server or connection error, deadline,
+     * open circuit) and may succeed if submitted again later.
+     */
+    RETRYABLE_FAILURE,
+    /**
+     * The item failed with an error which repeating it will not fix (e.g. 404 or 401).
+     */
+    PERMANENT_FAILURE;
+
+    /**
+     * Classify the error of an item.
+     *
+     * @param error The error, or null if the item succeeded
+     * @return Outcome
+     */
+    static Outcome of(Exception error) {
+      if (error == null) {
+        return SUCCESS;
+      }
+      if (error instanceof BunnyStreamAPIException) {
+        int code = ((BunnyStreamAPIException) error).getHttpCode();
+        return code == 408 || code == 429 || code >= 500
+            ? RETRYABLE_FAILURE
+            : PERMANENT_FAILURE;
+      }
+      if (error instanceof UnknownHostException || error instanceof SSLException
+          || error instanceof FileNotFoundException || error instanceof FileSystemException) {
+        // Misconfiguration or a missing or unreadable local file
+        return PERMANENT_FAILURE;
+      }
+      return error instanceof IOException ? RETRYABLE_FAILURE : PERMANENT_FAILURE;
+    }
+  }
+
+  private final List<ItemResult<T>> results;
+  private final long elapsedMillis;
+
+  /**
+   * BulkResult
+   *
+   * @param results Per-item results, in submission order
+   * @param elapsedMillis Wall clock time of the whole batch
+   */
+  BulkResult(List<ItemResult<T>> results, long elapsedMillis) {
+    this.results = results;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  /**
+   * Get per-item results
+   *
+   * @return Results, in the order the items were submitted
+   */
+  public List<ItemResult<T>> getResults() {
+    return this.results;
+  }
+
+  /**
+   * Get number of items with the given outcome
+   *
+   * @param outcome Outcome
+   * @return Number of items
+   */
+  public int getCount(Outcome outcome) {
+    int count = 0;
+    for (ItemResult<T> result : this.results) {
+      if (result.getOutcome() == outcome)
+        count++;
+    }
+    return count;
+  }
+
+  /**
+   * Get number of successful items
+   *
+   * @return Number of successful items
+   */
+  public int getSucceeded() {
+    return this.getCount(Outcome.SUCCESS);
+  }
+
+  /**
+   * Get number of failed items
+   *
+   * @return Number of failed items, retryable or not
+   */
+  public int getFailed() {
+    return this.results.size() - this.getSucceeded();
+  }
+
+  /**
+   * Check whether every item succeeded
+   *
+   * @return true if no item failed, false otherwise
+   */
+  public boolean isSuccess() {
+    return this.getFailed() == 0;
+  }
+
+  /**
+   * Get items which failed with a transient error, e.g. to submit them again later
+   *
+   * @return Items with outcome RETRYABLE_FAILURE, in submission order
+   */
+  public List<T> getRetryableItems() {
+    List<T> items = new ArrayList<T>();
+    for (ItemResult<T> result : this.results) {
+      if (result.getOutcome() == Outcome.RETRYABLE_FAILURE)
+        items.add(result.getItem());
+    }
+    return items;
+  }
+
+  /**
+   * Get wall clock time of the batch
+   *
+   * @return Elapsed time in milliseconds
+   */
+  public long getElapsedMillis() {
+    return this.elapsedMillis;
+  }
+
+  /**
+   * Get aggregate throughput
+   *
+   * @return Items processed per second
+   */
+  public double getThroughput() {
+    return this.elapsedMillis == 0 ? 0 : this.results.size() * 1000.0 / this.elapsedMillis;
+  }
+
+  public static class ItemResult<T> {
+    private final T item;
+    private final Exception error;
+    private final Outcome outcome;
+    private final long elapsedMillis;
+
+    /**
+     * ItemResult
+     *
+     * @param item The item
+     * @param error The error, or null if the item succeeded
+     * @param elapsedMillis Time spent on this item
+     */
+    ItemResult(T item, Exception error, long elapsedMillis) {
+      this.item = item;
+      this.error = error;
+      this.outcome = Outcome.of(error);
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Get item
+     *
+     * @return The item
+     */
+    public T getItem() {
+      return this.item;
+    }
+
+    /**
+     * Get error
+     *
+     * @return The error, or null if the item succeeded
+     */
+    public Exception getError() {
+      return this.error;
+    }
+
+    /**
+     * Get outcome
+     *
+     * @return Outcome of the item
+     */
+    public Outcome getOutcome() {
+      return this.outcome;
+    }
+
+    /**
+     * Check whether the item succeeded
+     *
+     * @return true if the item succeeded, false otherwise
+     */
+    public boolean isSuccess() {
+      return this.error == null;
+    }
+
+    /**
+     * Get time spent on this item
+     *
+     * @return Elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+      return this.elapsedMillis;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.bunny.net.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ToLongFunction;
+import com.bunny.net.stream.BulkResult.ItemResult;
+
+/**
+ * Runs an operation on every item of a batch with a bounded number of parallel calls. A failing
+ * item is recorded in the result and does not abort the batch.
+ *
+ * <p>Workers take the next item from a shared queue, so a slow item only holds up its own
+ * worker. The calling thread is one of the workers, so a batch started from a task of the
+ * executor still makes progress when all other threads of the executor are busy.
+ *
+ * <p>Items with a size (e.g. the files of a bulk upload) are ordered by it. One worker works
+ * through the largest items while all other workers take the smallest ones, so small items are not
+ * stuck behind huge ones and huge items still make progress from the start.
+ */
+class BulkRunner {
+  /**
+   * Operation on a single item.
+   */
+  @FunctionalInterface
+  interface Operation<T> {
+    void apply(T item) throws Exception;
+  }
+
+  private BulkRunner() {
+  }
+
+  /**
+   * Run the operation on all items. Blocks until every item has either succeeded or failed.
+   *
+   * @param items Items to process
+   * @param parallelism Maximum number of items processed at the same time
+   * @param executor Executor running the workers besides the calling thread
+   * @param operation Operation on a single item
+   * @return Per-item results
+   * @throws InterruptedException Interrupted while waiting for the workers. Items which have not
+   *     been started yet are then skipped.
+   */
+  static <T> BulkResult<T> run(List<T> items, int parallelism, Executor executor,
+      Operation<T> operation) throws InterruptedException {
+    return run(items, null, parallelism, executor, operation);
+  }
+
+  /**
+   * Run the operation on all items, largest items first on one worker and smallest items first on
+   * the others. Blocks until every item has either succeeded or failed.
+   *
+   * @param items Items to process
+   * @param size Size of an item (null to process the items in order)
+   * @param parallelism Maximum number of items processed at the same time
+   * @param executor Executor running the workers besides the calling thread
+   * @param operation Operation on a single item
+   * @return Per-item results, in the order of the items
+   * @throws InterruptedException Interrupted while waiting for the workers. Items which have not
+   *     been started yet are then skipped.
+   */
+  static <T> BulkResult<T> run(List<T> items, ToLongFunction<T> size, int parallelism,
+      Executor executor, Operation<T> operation) throws InterruptedException {
+    long started = System.nanoTime();
+    Integer[] order = new Integer[items.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    if (size != null) {
+      Arrays.sort(order, Comparator.comparingLong(i -> size.applyAsLong(items.get(i))));
+    }
+    ConcurrentLinkedDeque<Integer> queue = new ConcurrentLinkedDeque<Integer>(Arrays.asList(order));
+    AtomicBoolean stopped = new AtomicBoolean();
+    AtomicReferenceArray<ItemResult<T>> results =
+        new AtomicReferenceArray<ItemResult<T>>(items.size());
+
+    int workers = Math.max(1, Math.min(parallelism, items.size()));
+    List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(workers - 1);
+    for (int i = 0; i < workers; i++) {
+      boolean largestFirst = size != null && i == 0 && workers > 1;
+      Runnable worker = () -> {
+        Integer index;
+        while (!stopped.get() && !Thread.currentThread().isInterrupted()
+            && (index = largestFirst ? queue.pollLast() : queue.pollFirst()) != null) {
+          results.set(index, run(items.get(index), operation));
+        }
+      };
+      if (i < workers - 1) {
+        futures.add(CompletableFuture.runAsync(worker, executor));
+      } else {
+        worker.run();
+      }
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get();
+    } catch (InterruptedException e) {
+      stopped.set(true);
+      throw e;
+    } catch (ExecutionException e) {
+      // Workers catch every exception of an item, so only an Error ends up here
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+
+    List<ItemResult<T>> list = new ArrayList<ItemResult<T>>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      list.add(results.get(i));
+    }
+    return new BulkResult<T>(list, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+
+  /**
+   * Run the operation on a single item, capturing any failure in the result.
+   */
+  private static <T> ItemResult<T> run(T item, Operation<T> operation) {
+    long started = System.nanoTime();
+    Exception error = null;
+    try {
+      operation.apply(item);
+    } catch (Exception e) {
+      error = e;
+    }
+    return new ItemResult<T>(item, error,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+}
@@ -0,0 +1,49 @@
+package com.bunny.net.stream;
+
+import java.io.File;
+
+public class BulkUploadJob {
+  private final String title;
+  private final File file;
+  private final String collectionId;
+
+  /**
+   * BulkUploadJob
+   *
+   * @param title Title of the new video
+   * @param file File object of the video
+   * @param collectionId Collection ID of the new video (optional, set as empty string to not use)
+   */
+  public BulkUploadJob(String title, File file, String collectionId) {
+    this.title = title;
+    this.file = file;
+    this.collectionId = collectionId;
+  }
+
+  /**
+   * Get title
+   *
+   * @return Title of the new video
+   */
+  public String getTitle() {
+    return this.title;
+  }
+
+  /**
+   * Get file
+   *
+   * @return File object of the video
+   */
+  public File getFile() {
+    return this.file;
+  }
+
+  /**
+   * Get collection ID
+   *
+   * @return Collection ID of the new video
+   */
+  public String getCollectionId() {
+    return this.collectionId;
+  }
+}
@@ -0,0 +1,104 @@
+package com.bunny.net.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk upload, with one result per job. Outcomes are classified like those of the
+ * other bulk operations, so {@link #getRetryableItems()} returns the jobs worth submitting again.
+ */
+public class BulkUploadResult extends BulkResult<BulkUploadJob> {
+  private final List<JobResult> jobResults;
+
+  /**
+   * BulkUploadResult
+   *
+   * @param results Per-job results, in submission order
+   * @param elapsedMillis Wall clock time of the whole batch
+   */
+  BulkUploadResult(List<JobResult> results, long elapsedMillis) {
+    super(new ArrayList<ItemResult<BulkUploadJob>>(results), elapsedMillis);
+    this.jobResults = results;
+  }
+
+  /**
+   * Get per-job results, with the created video and file size of each job
+   *
+   * @return Results, in the order the jobs were submitted
+   */
+  public List<JobResult> getJobResults() {
+    return this.jobResults;
+  }
+
+  /**
+   * Get number of bytes uploaded successfully
+   *
+   * @return Uploaded bytes
+   */
+  public long getBytesUploaded() {
+    long bytes = 0;
+    for (JobResult result : this.jobResults) {
+      if (result.isSuccess())
+        bytes += result.getBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Get aggregate throughput. Unlike other bulk operations, uploads are measured in bytes.
+   *
+   * @return Uploaded bytes per second
+   */
+  @Override
+  public double getThroughput() {
+    long elapsedMillis = this.getElapsedMillis();
+    return elapsedMillis == 0 ? 0 : this.getBytesUploaded() * 1000.0 / elapsedMillis;
+  }
+
+  public static class JobResult extends ItemResult<BulkUploadJob> {
+    private final Video video;
+    private final long bytes;
+
+    /**
+     * JobResult
+     *
+     * @param job The job
+     * @param video The created video (null if it could not be created)
+     * @param error The error, or null if the upload succeeded
+     * @param bytes Size of the file
+     * @param elapsedMillis Time spent on this job
+     */
+    JobResult(BulkUploadJob job, Video video, Exception error, long bytes, long elapsedMillis) {
+      super(job, error, elapsedMillis);
+      this.video = video;
+      this.bytes = bytes;
+    }
+
+    /**
+     * Get job
+     *
+     * @return The job
+     */
+    public BulkUploadJob getJob() {
+      return this.getItem();
+    }
+
+    /**
+     * Get created video. Also set when the video was created but the upload failed.
+     *
+     * @return Video object, or null if the video could not be created
+     */
+    public Video getVideo() {
+      return this.video;
+    }
+
+    /**
+     * Get file size
+     *
+     * @return Size of the file in bytes
+     */
+    public long getBytes() {
+      return this.bytes;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.bunny.net.stream;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import com.bunny.net.stream.BulkResult.ItemResult;
+import com.bunny.net.stream.BulkUploadResult.JobResult;
+
+/**
+ * Runs a batch of create-and-upload jobs with a bounded number of parallel uploads and optional
+ * bandwidth ceilings. A failing job is recorded in the result and does not abort the batch.
+ *
+ * <p>Jobs are ordered by file size. One worker works through the largest files while all other
+ * workers take the smallest ones, so small files are not stuck behind huge ones and huge files
+ * still make progress from the start. Failures are classified like those of the other bulk
+ * operations (see {@link BulkResult.Outcome}).
+ */
+public class BulkUploader {
+  private final BunnyStream bunnyStream;
+  private final int parallelism;
+  private final long fileBandwidth;
+  private final long globalBandwidth;
+
+  /**
+   * BulkUploader (Obtain by building an uploader with BulkUploaderBuilder)
+   *
+   * @param bunnyStream BunnyStream client to upload with
+   * @param parallelism Number of parallel uploads
+   * @param fileBandwidth Maximum bytes per second per file (0 for no limit)
+   * @param globalBandwidth Maximum bytes per second in total (0 for no limit)
+   */
+  BulkUploader(BunnyStream bunnyStream, int parallelism, long fileBandwidth,
+      long globalBandwidth) {
+    this.bunnyStream = bunnyStream;
+    this.parallelism = parallelism;
+    this.fileBandwidth = fileBandwidth;
+    this.globalBandwidth = globalBandwidth;
+  }
+
+  /**
+   * Create and upload all videos. Blocks until every job has either succeeded or failed. The uploads
+   * run on the executor of the client, with the calling thread as one of the workers.
+   *
+   * @param jobs Jobs to run
+   * @return Per-job results and aggregate throughput
+   * @throws InterruptedException Interrupted while waiting for the uploads
+   */
+  public BulkUploadResult upload(List<BulkUploadJob> jobs) throws InterruptedException {
+    BandwidthThrottle global =
+        this.globalBandwidth > 0 ? new BandwidthThrottle(this.globalBandwidth, null) : null;
+    // Also kept when the upload fails after the video was created
+    AtomicReferenceArray<Video> videos = new AtomicReferenceArray<Video>(jobs.size());
+    List<Integer> indexes = new ArrayList<Integer>(jobs.size());
+    for (int i = 0; i < jobs.size(); i++) {
+      indexes.add(i);
+    }
+
+    BulkResult<Integer> result = BulkRunner.run(indexes, i -> jobs.get(i).getFile().length(),
+        this.parallelism, this.bunnyStream.getExecutor(), i -> {
+          BulkUploadJob job = jobs.get(i);
+          if (!job.getFile().canRead()) {
+            throw new FileNotFoundException("File could not be read: " + job.getFile());
+          }
+          String collectionId = job.getCollectionId() == null ? "" : job.getCollectionId();
+          Video video = this.bunnyStream.createVideo(job.getTitle(), collectionId);
+          videos.set(i, video);
+
+          BandwidthThrottle throttle =
+              this.fileBandwidth > 0 ? new BandwidthThrottle(this.fileBandwidth, global) : global;
+          this.bunnyStream.uploadVideo(video.getGuid(), job.getFile(), throttle);
+        });
+
+    List<JobResult> results = new ArrayList<JobResult>(jobs.size());
+    for (ItemResult<Integer> item : result.getResults()) {
+      int i = item.getItem();
+      results.add(new JobResult(jobs.get(i), videos.get(i), item.getError(),
+          jobs.get(i).getFile().length(), item.getElapsedMillis()));
+    }
+    return new BulkUploadResult(results, result.getElapsedMillis());
+  }
+}
@@ -0,0 +1,61 @@
+package com.bunny.net.stream;
+
+public class BulkUploaderBuilder {
+  private final BunnyStream bunnyStream;
+  private int parallelism = 4;
+  private long fileBandwidth = 0;
+  private long globalBandwidth = 0;
+
+  /**
+   * BulkUploader builder
+   *
+   * @param bunnyStream BunnyStream client to upload with
+   */
+  public BulkUploaderBuilder(BunnyStream bunnyStream) {
+    this.bunnyStream = bunnyStream;
+  }
+
+  /**
+   * Set number of parallel uploads
+   *
+   * @param parallelism Number of parallel uploads
+   * @return BulkUploaderBuilder
+   */
+  public BulkUploaderBuilder parallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Set bandwidth ceiling of a single upload
+   *
+   * @param bytesPerSecond Maximum bytes per second per file (0 for no limit)
+   * @return BulkUploaderBuilder
+   */
+  public BulkUploaderBuilder fileBandwidth(long bytesPerSecond) {
+    this.fileBandwidth = bytesPerSecond;
+    return this;
+  }
+
+  /**
+   * Set bandwidth ceiling of all uploads together
+   *
+   * @param bytesPerSecond Maximum bytes per second in total (0 for no limit)
+   * @return BulkUploaderBuilder
+   */
+  public BulkUploaderBuilder globalBandwidth(long bytesPerSecond) {
+    this.globalBandwidth = bytesPerSecond;
+    return this;
+  }
+
+  /**
+   * Build BulkUploader from the given parameters
+   *
+   * @return BulkUploader
+   */
+  public BulkUploader build() {
+    return new BulkUploader(this.bunnyStream, this.parallelism, this.fileBandwidth,
+        this.globalBandwidth);
+  }
+
+}
@@ -1,19 +1,56 @@
 package com.bunny.net.stream;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.NameValuePair;
+import org.apache.http.pool.PoolStats;
+import org.json.JSONObject;
 import com.bunny.net.stream.AddCaptionQueryBuilder.AddCaptionQuery;
 import com.bunny.net.stream.ListVideoQueryBuilder.ListVideoQuery;
+import com.bunny.net.stream.ResumableUploadQueryBuilder.ResumableUploadQuery;
 import com.bunny.net.stream.UpdateVideoQueryBuilder.UpdateVideoQuery;
 
-public class BunnyStream {
-  private static String baseUrl = "https://video.bunnycdn.com/library/";
+public class BunnyStream implements Closeable {
+  private static final String DEFAULT_BASE_URL = "https://video.bunnycdn.com/library/";
+  private static final String DEFAULT_TUS_UPLOAD_URL = "https://video.bunnycdn.com/tusupload";
+  private static final int DEFAULT_ASYNC_THREADS = 64;
+  private volatile String baseUrl = DEFAULT_BASE_URL;
+  private volatile String tusUploadUrl = DEFAULT_TUS_UPLOAD_URL;
   private String apiKey;
   private int streamLibraryId;
+  private final ConnectionPool pool;
+  private final Transport transport;
+  private final boolean ownsPool;
+  private final Executor executor;
+  private final ExecutorService ownedExecutor;
+  private final SingleFlight reads;
+  private volatile long timeoutMillis = 0;
+  private volatile boolean retainRaw = false;
+  private volatile VideoCache cache = null;
+  private volatile RetryPolicy retryPolicy = RetryPolicy.NONE;
+  private volatile RateLimiter rateLimiter = null;
+  private volatile CircuitBreaker circuitBreaker = null;
+  private volatile HedgePolicy hedgePolicy = null;
+  private volatile MetricsListener metricsListener = null;
 
   /**
    * BunnyStream Library
@@ -22,8 +59,354 @@ public class BunnyStream {
    * @param streamLibraryId Bunny Stream library ID (is a number)
    */
   public BunnyStream(String apiKey, int streamLibraryId) {
+    this(apiKey, streamLibraryId, new ConnectionPoolBuilder().build(), null, true, null);
+  }
+
+  /**
+   * BunnyStream Library using a given connection pool. The pool may be shared between several
+   * BunnyStream instances and is not closed by {@link #close()}.
+   * 
+   * @param apiKey API key from Bunny.net's Stream API
+   * @param streamLibraryId Bunny Stream library ID (is a number)
+   * @param pool ConnectionPool (Obtain by building a pool with ConnectionPoolBuilder)
+   */
+  public BunnyStream(String apiKey, int streamLibraryId, ConnectionPool pool) {
+    this(apiKey, streamLibraryId, pool, null, false, null);
+  }
+
+  /**
+   * BunnyStream Library using a given connection pool and executor. The executor runs the
+   * asynchronous operations (the *Async methods). Neither is closed by {@link #close()}.
+   * 
+   * @param apiKey API key from Bunny.net's Stream API
+   * @param streamLibraryId Bunny Stream library ID (is a number)
+   * @param pool ConnectionPool (Obtain by building a pool with ConnectionPoolBuilder)
+   * @param executor Executor for asynchronous operations
+   */
+  public BunnyStream(String apiKey, int streamLibraryId, ConnectionPool pool, Executor executor) {
+    this(apiKey, streamLibraryId, pool, null, false, executor);
+  }
+
+  /**
+   * BunnyStream Library using a given transport, e.g. one built with JdkTransportBuilder. The
+   * transport is not closed by {@link #close()}.
+   * 
+   * @param apiKey API key from Bunny.net's Stream API
+   * @param streamLibraryId Bunny Stream library ID (is a number)
+   * @param transport Transport to send the requests with
+   */
+  public BunnyStream(String apiKey, int streamLibraryId, Transport transport) {
+    this(apiKey, streamLibraryId, null, transport, false, null);
+  }
+
+  /**
+   * BunnyStream Library using a given transport and executor. The executor runs the asynchronous
+   * operations (the *Async methods). Neither is closed by {@link #close()}.
+   * 
+   * @param apiKey API key from Bunny.net's Stream API
+   * @param streamLibraryId Bunny Stream library ID (is a number)
+   * @param transport Transport to send the requests with
+   * @param executor Executor for asynchronous operations
+   */
+  public BunnyStream(String apiKey, int streamLibraryId, Transport transport, Executor executor) {
+    this(apiKey, streamLibraryId, null, transport, false, executor);
+  }
+
+  private BunnyStream(String apiKey, int streamLibraryId, ConnectionPool pool, Transport transport,
+      boolean ownsPool, Executor executor) {
     this.apiKey = apiKey;
     this.streamLibraryId = streamLibraryId;
+    this.pool = pool;
+    this.transport = transport != null ? transport : new ApacheTransport(pool);
+    this.ownsPool = ownsPool;
+    this.reads = new SingleFlight();
+    if (executor == null) {
+      // All calls go to the API host, so calls beyond the per-route limit would only wait for a
+      // connection. Use as many threads as that route may have connections
+      int threads = pool != null ? pool.getMaxPerRoute() : DEFAULT_ASYNC_THREADS;
+      this.ownedExecutor = Executors.newFixedThreadPool(threads, r -> {
+        Thread thread = new Thread(r, "bunnystream-async");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.executor = this.ownedExecutor;
+    } else {
+      this.ownedExecutor = null;
+      this.executor = executor;
+    }
+  }
+
+  /**
+   * View of a client with its own timeout, sharing everything else.
+   */
+  private BunnyStream(BunnyStream client, long timeoutMillis) {
+    this.apiKey = client.apiKey;
+    this.streamLibraryId = client.streamLibraryId;
+    this.baseUrl = client.baseUrl;
+    this.tusUploadUrl = client.tusUploadUrl;
+    this.pool = client.pool;
+    this.transport = client.transport;
+    this.ownsPool = false;
+    this.ownedExecutor = null;
+    this.executor = client.executor;
+    this.reads = client.reads;
+    this.cache = client.cache;
+    this.retryPolicy = client.retryPolicy;
+    this.rateLimiter = client.rateLimiter;
+    this.circuitBreaker = client.circuitBreaker;
+    this.hedgePolicy = client.hedgePolicy;
+    this.metricsListener = client.metricsListener;
+    this.retainRaw = client.retainRaw;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Get a client which uses the given timeout and shares the connection pool, executor, cache and
+   * policies of this one, e.g. to give a single call a tighter deadline. Closing it closes nothing.
+   * 
+   * @param timeoutMillis Timeout of each call in milliseconds (0 for no timeout)
+   * @return BunnyStream
+   */
+  public BunnyStream withTimeout(long timeoutMillis) {
+    return new BunnyStream(this, timeoutMillis);
+  }
+
+  /**
+   * Set the timeout of each call. It is a deadline for the whole call, including waiting for the
+   * rate limiter, retries and hedges; requests still in flight when it passes are aborted and the
+   * call fails with DeadlineExceededException. For asynchronous calls it starts when the call is
+   * submitted. Uploads are bounded by it as well, so use {@link #withTimeout(long)} to give large
+   * uploads more time.
+   * 
+   * @param timeoutMillis Timeout in milliseconds (0 for no timeout)
+   */
+  public void setTimeout(long timeoutMillis) {
+    this.timeoutMillis = Math.max(0, timeoutMillis);
+  }
+
+  /**
+   * Get the timeout of each call.
+   * 
+   * @return Timeout in milliseconds (0 for no timeout)
+   */
+  public long getTimeout() {
+    return this.timeoutMillis;
+  }
+
+  /**
+   * Point this client at another Stream API, e.g. a fake server for tests or a proxy.
+   * 
+   * @param baseUrl Base URL of the library endpoints, up to and including "/library/", or null for
+   *        the default
+   */
+  public void setBaseUrl(String baseUrl) {
+    this.baseUrl = baseUrl != null ? baseUrl : DEFAULT_BASE_URL;
+  }
+
+  /**
+   * Get the base URL of the library endpoints.
+   * 
+   * @return Base URL
+   */
+  public String getBaseUrl() {
+    return this.baseUrl;
+  }
+
+  /**
+   * Set the URL resumable uploads are sent to.
+   * 
+   * @param tusUploadUrl TUS upload URL, or null for the default
+   */
+  public void setTusUploadUrl(String tusUploadUrl) {
+    this.tusUploadUrl = tusUploadUrl != null ? tusUploadUrl : DEFAULT_TUS_UPLOAD_URL;
+  }
+
+  /**
+   * Get the URL resumable uploads are sent to.
+   * 
+   * @return TUS upload URL
+   */
+  public String getTusUploadUrl() {
+    return this.tusUploadUrl;
+  }
+
+  /**
+   * Get connection pool statistics (leased, pending, available and max connections).
+   * 
+   * @return Pool statistics, or null if the client was created with a transport
+   */
+  public PoolStats getPoolStats() {
+    return this.pool != null ? this.pool.getStats() : null;
+  }
+
+  /**
+   * Get the transport the requests are sent with.
+   * 
+   * @return Transport
+   */
+  public Transport getTransport() {
+    return this.transport;
+  }
+
+  /**
+   * Keep the JSON object of every video returned by this client, so {@link Video#getRaw(String)}
+   * can read fields which Video does not decode. Off by default, since it keeps the whole response
+   * in memory for as long as the video is referenced. Videos served from a cache keep the setting
+   * of the client which loaded them.
+   * 
+   * @param retainRaw true to keep the JSON objects
+   */
+  public void setRetainRaw(boolean retainRaw) {
+    this.retainRaw = retainRaw;
+  }
+
+  /**
+   * Check whether videos keep their JSON object.
+   * 
+   * @return true if {@link Video#getRaw(String)} is available on returned videos
+   */
+  public boolean isRetainRaw() {
+    return this.retainRaw;
+  }
+
+  /**
+   * Put a cache in front of getVideo and listVideos. Writes through this client invalidate the
+   * entries they touch. Entries are kept per library, so clients of several libraries may share
+   * one cache.
+   * 
+   * @param cache VideoCache (Obtain by building a cache with VideoCacheBuilder), or null to disable
+   */
+  public void setCache(VideoCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Get the executor of the async and bulk operations.
+   * 
+   * @return Executor
+   */
+  Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Get the cache in front of getVideo and listVideos.
+   * 
+   * @return VideoCache, or null if caching is disabled
+   */
+  public VideoCache getCache() {
+    return this.cache;
+  }
+
+  /**
+   * Set the policy for retrying failed requests. Without one, errors are returned right away.
+   * 
+   * @param retryPolicy RetryPolicy (Obtain by building a policy with RetryPolicyBuilder), or null
+   *        to disable retries
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy != null ? retryPolicy : RetryPolicy.NONE;
+  }
+
+  /**
+   * Get the policy for retrying failed requests.
+   * 
+   * @return RetryPolicy
+   */
+  public RetryPolicy getRetryPolicy() {
+    return this.retryPolicy;
+  }
+
+  /**
+   * Limit the rate of requests sent by this client. Every attempt, including retries, takes a
+   * permit. Share the limiter between clients using the same API key.
+   * 
+   * @param rateLimiter RateLimiter (Obtain by building a limiter with RateLimiterBuilder), or null
+   *        for no limit
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  /**
+   * Get the rate limiter of this client.
+   * 
+   * @return RateLimiter, or null if there is no limit
+   */
+  public RateLimiter getRateLimiter() {
+    return this.rateLimiter;
+  }
+
+  /**
+   * Guard requests with a circuit breaker per endpoint class. Share the circuit breaker between
+   * clients calling the same API.
+   * 
+   * @param circuitBreaker CircuitBreaker (Obtain by building a circuit breaker with
+   *        CircuitBreakerBuilder), or null to disable
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  /**
+   * Get the circuit breaker of this client.
+   * 
+   * @return CircuitBreaker, or null if disabled
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return this.circuitBreaker;
+  }
+
+  /**
+   * Hedge slow getVideo and listVideos requests.
+   * 
+   * @param hedgePolicy HedgePolicy (Obtain by building a policy with HedgePolicyBuilder), or null
+   *        to disable
+   */
+  public void setHedgePolicy(HedgePolicy hedgePolicy) {
+    this.hedgePolicy = hedgePolicy;
+  }
+
+  /**
+   * Get the hedge policy of this client.
+   * 
+   * @return HedgePolicy, or null if disabled
+   */
+  public HedgePolicy getHedgePolicy() {
+    return this.hedgePolicy;
+  }
+
+  /**
+   * Report the measurements of every API call (endpoint, status, latency, bytes, retries and pool
+   * wait) to a listener, e.g. a MetricsRecorder.
+   * 
+   * @param metricsListener MetricsListener, or null to disable
+   */
+  public void setMetricsListener(MetricsListener metricsListener) {
+    this.metricsListener = metricsListener;
+  }
+
+  /**
+   * Get the metrics listener of this client.
+   * 
+   * @return MetricsListener, or null if disabled
+   */
+  public MetricsListener getMetricsListener() {
+    return this.metricsListener;
+  }
+
+  /**
+   * Close this client. The connection pool and executor are closed as well, unless they were
+   * passed in.
+   */
+  @Override
+  public void close() throws IOException {
+    if (this.ownedExecutor != null) {
+      this.ownedExecutor.shutdown();
+    }
+    if (this.ownsPool) {
+      this.pool.close();
+    }
   }
 
   /**
@@ -33,7 +416,7 @@ public class BunnyStream {
    * @return Base URL with endpoint
    */
   public String generateBaseUrl(String endpoint) {
-    return BunnyStream.baseUrl + this.streamLibraryId + endpoint;
+    return this.baseUrl + this.streamLibraryId + endpoint;
   }
 
   /**
@@ -45,6 +428,23 @@ public class BunnyStream {
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public ListVideoResponse listVideos(ListVideoQuery lvq) throws BunnyStreamAPIException, Exception {
+    List<NameValuePair> parameters = listParameters(lvq);
+    VideoCache cache = this.cache;
+    if (cache != null) {
+      return cache.getList(this.streamLibraryId, listKey(parameters),
+          () -> this.loadVideos(parameters), this.executor);
+    }
+    return this.loadVideos(parameters);
+  }
+
+  /**
+   * List videos from the API, bypassing the cache.
+   */
+  ListVideoResponse loadVideos(ListVideoQuery lvq) throws BunnyStreamAPIException, Exception {
+    return this.loadVideos(listParameters(lvq));
+  }
+
+  private static List<NameValuePair> listParameters(ListVideoQuery lvq) {
     int totalParameters = 3;
     if (lvq.getSearch() != null)
       totalParameters++;
@@ -62,7 +462,103 @@ public class BunnyStream {
     if (lvq.getCollection() != null)
       parameters.add(new BasicNameValuePair("collection", lvq.getCollection()));
 
-    return new ListVideoResponse(Requests.get(this.apiKey, this.generateBaseUrl("/videos"), parameters));
+    return parameters;
+  }
+
+  /**
+   * Get the key of a list query: its URI path and query, encoded as they are sent, so queries
+   * which differ in any parameter never share a key.
+   * 
+   * @param parameters Query parameters
+   * @return Key
+   */
+  private static String listKey(List<NameValuePair> parameters)
+      throws UnsupportedEncodingException {
+    return Requests.addQueryParameters("/videos", parameters);
+  }
+
+  private ListVideoResponse loadVideos(List<NameValuePair> parameters)
+      throws BunnyStreamAPIException, Exception {
+    boolean retainRaw = this.retainRaw;
+    // Same key as the cache, so only identical queries are coalesced
+    return this.reads.execute(listKey(parameters) + (retainRaw ? "#raw" : ""),
+        () -> new ListVideoResponse(this.send("GET", this.generateBaseUrl("/videos"),
+            EndpointClass.LIST, true, uri -> Requests.get(this.transport, this.apiKey,
+                uri, parameters, "application/json")), retainRaw));
+  }
+
+  /**
+   * Iterate over all videos matching the query, starting at its page. The next page is fetched in
+   * the background while the current one is consumed.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @return VideoIterator (close it when you stop early)
+   */
+  public VideoIterator iterateVideos(ListVideoQuery lvq) {
+    return this.iterateVideos(lvq, 1);
+  }
+
+  /**
+   * Iterate over all videos matching the query, starting at its page.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @param prefetch Number of pages to fetch ahead of the page being consumed (0 to disable)
+   * @return VideoIterator (close it when you stop early)
+   */
+  public VideoIterator iterateVideos(ListVideoQuery lvq, int prefetch) {
+    return new VideoIterator(this, lvq, prefetch);
+  }
+
+  /**
+   * Stream all videos matching the query, starting at its page. The next page is fetched in the
+   * background while the current one is consumed.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @return Stream of videos (close it when you stop early)
+   */
+  public Stream<Video> streamVideos(ListVideoQuery lvq) {
+    return this.streamVideos(lvq, 1);
+  }
+
+  /**
+   * Stream all videos matching the query, starting at its page.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @param prefetch Number of pages to fetch ahead of the page being consumed (0 to disable)
+   * @return Stream of videos (close it when you stop early)
+   */
+  public Stream<Video> streamVideos(ListVideoQuery lvq, int prefetch) {
+    VideoIterator iterator = this.iterateVideos(lvq, prefetch);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(iterator::close);
+  }
+
+  /**
+   * List all videos matching the query, starting at its page. After the first page, the remaining
+   * pages are requested concurrently and merged in page order. Videos which shift to another page
+   * during the scan are returned once.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @param parallelism Maximum number of pages requested at the same time
+   * @return List of Video objects containing video data.
+   * @throws Exception Unhandled exception
+   * @throws BunnyStreamAPIException Error returned from the API
+   */
+  public ArrayList<Video> listAllVideos(ListVideoQuery lvq, int parallelism)
+      throws BunnyStreamAPIException, Exception {
+    Map<String, Video> videos = new LinkedHashMap<String, Video>();
+    try (VideoIterator iterator = this.iterateVideos(lvq, Math.max(1, parallelism))) {
+      while (iterator.hasNext()) {
+        Video video = iterator.next();
+        videos.putIfAbsent(video.getGuid(), video);
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+    return new ArrayList<Video>(videos.values());
   }
 
   /**
@@ -74,7 +570,23 @@ public class BunnyStream {
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public Video getVideo(String videoId) throws BunnyStreamAPIException, Exception {
-    return new Video(Requests.get(this.apiKey, this.generateBaseUrl("/videos/" + videoId), null));
+    VideoCache cache = this.cache;
+    if (cache != null) {
+      return cache.getVideo(this.streamLibraryId, videoId, () -> this.loadVideo(videoId),
+          this.executor);
+    }
+    return this.loadVideo(videoId);
+  }
+
+  /**
+   * Get video from the API, bypassing the cache.
+   */
+  Video loadVideo(String videoId) throws BunnyStreamAPIException, Exception {
+    boolean retainRaw = this.retainRaw;
+    return this.reads.execute("/videos/" + videoId + (retainRaw ? "#raw" : ""),
+        () -> new Video(this.send("GET", this.generateBaseUrl("/videos/" + videoId),
+            EndpointClass.GET, true, uri -> Requests.get(this.transport, this.apiKey, uri,
+                null, "application/json")), retainRaw));
   }
 
   /**
@@ -101,7 +613,10 @@ public class BunnyStream {
     if (uvq.getTitle() != null)
       body.add(new BasicNameValuePair("title", uvq.getTitle()));
 
-    Requests.post(this.apiKey, this.generateBaseUrl("/videos/" + uvq.getVideoId()), body);
+    this.send("POST", this.generateBaseUrl("/videos/" + uvq.getVideoId()),
+        EndpointClass.WRITE, true, uri -> Requests.post(this.transport, this.apiKey, uri,
+            body, "application/json"));
+    this.invalidate(uvq.getVideoId());
   }
 
   /**
@@ -117,7 +632,10 @@ public class BunnyStream {
     ArrayList<NameValuePair> body = new ArrayList<NameValuePair>(1);
     body.add(new BasicNameValuePair("thumbnailUrl", thumbnailUrl));
 
-    Requests.post(this.apiKey, this.generateBaseUrl("/videos/" + videoId), body);
+    this.send("POST", this.generateBaseUrl("/videos/" + videoId),
+        EndpointClass.WRITE, true, uri -> Requests.post(this.transport, this.apiKey, uri,
+            body, "application/json"));
+    this.invalidate(videoId);
   }
 
   /**
@@ -141,7 +659,9 @@ public class BunnyStream {
       body.add(new BasicNameValuePair("collectionId", collectionId));
     body.add(new BasicNameValuePair("title", title));
 
-    return new Video(Requests.post(this.apiKey, this.generateBaseUrl("/videos"), body));
+    return new Video(this.send("POST", this.generateBaseUrl("/videos"),
+        EndpointClass.WRITE, false, uri -> Requests.post(this.transport, this.apiKey, uri,
+            body, "application/json")), this.retainRaw);
   }
 
   /**
@@ -154,11 +674,52 @@ public class BunnyStream {
    * @throws IOException File could not be read
    */
   public void uploadVideo(String videoId, File file) throws IOException, BunnyStreamAPIException, Exception {
+    this.uploadVideo(videoId, file, null);
+  }
+
+  /**
+   * Upload new video through a bandwidth throttle.
+   * 
+   * @param videoId Video ID of the video you wish to attach to the upload.
+   * @param file File object of the video.
+   * @param throttle Bandwidth throttle (may be null)
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException File could not be read
+   */
+  void uploadVideo(String videoId, File file, BandwidthThrottle throttle)
+      throws IOException, BunnyStreamAPIException {
     if (file == null || !file.canRead()) {
       throw new IOException("File could not be read.");
     }
-    Requests.put(this.apiKey, this.generateBaseUrl("/videos/" + videoId), file,
-        "application/json");
+    FileRangeEntity entity =
+        new FileRangeEntity(file, 0, file.length(), "application/octet-stream", throttle);
+    this.send("PUT", this.generateBaseUrl("/videos/" + videoId),
+        EndpointClass.UPLOAD, true, uri -> Requests.put(this.transport, this.apiKey, uri,
+            entity, "application/json"));
+    this.invalidate(videoId);
+  }
+
+  /**
+   * Upload new video in chunks. Acknowledged offsets are recorded in a checkpoint file, so after a
+   * network error or a restart the upload resumes from the last good offset instead of starting
+   * over.
+   * 
+   * @param ruq ResumableUploadQuery (Obtain by building a query with ResumableUploadQueryBuilder)
+   * @throws Exception Unhandled exception
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException File could not be read, or the upload failed after all retries
+   */
+  public void resumableUploadVideo(ResumableUploadQuery ruq)
+      throws IOException, BunnyStreamAPIException, Exception {
+    if (ruq.getFile() == null || !ruq.getFile().canRead()) {
+      throw new IOException("File could not be read.");
+    }
+    this.withinDeadline(() -> {
+      new TusUpload(this.transport, this.apiKey, this.streamLibraryId,
+          this.tusUploadUrl, ruq).run();
+      return null;
+    });
+    this.invalidate(ruq.getVideoId());
   }
 
   /**
@@ -172,9 +733,12 @@ public class BunnyStream {
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public Video createAndUploadVideo(String title, File file, String collectionId) throws BunnyStreamAPIException, Exception {
-    String guid = (String) this.createVideo(title, collectionId).getGuid();
-    this.uploadVideo(guid, file);
-    return this.getVideo(guid);
+    // One deadline for all three requests
+    return this.withinDeadline(() -> {
+      String guid = (String) this.createVideo(title, collectionId).getGuid();
+      this.uploadVideo(guid, file);
+      return this.getVideo(guid);
+    });
   }
 
   /**
@@ -185,8 +749,10 @@ public class BunnyStream {
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public void deleteVideo(String videoId) throws BunnyStreamAPIException, Exception {
-    Requests.delete(this.apiKey, this.generateBaseUrl("/videos/" + videoId),
-        "application/json");
+    this.send("DELETE", this.generateBaseUrl("/videos/" + videoId),
+        EndpointClass.WRITE, true, uri -> Requests.delete(this.transport, this.apiKey, uri,
+            "application/json"));
+    this.invalidate(videoId);
   }
 
   /**
@@ -198,8 +764,10 @@ public class BunnyStream {
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public void deleteCaption(String videoId, String srclang) throws BunnyStreamAPIException, Exception {
-    Requests.delete(this.apiKey,
-        this.generateBaseUrl("/videos/" + videoId + "/captions/" + srclang), "application/json");
+    this.send("DELETE", this.generateBaseUrl("/videos/" + videoId + "/captions/" + srclang),
+        EndpointClass.WRITE, true, uri -> Requests.delete(this.transport, this.apiKey, uri,
+            "application/json"));
+    this.invalidate(videoId);
   }
 
   /**
@@ -229,17 +797,34 @@ public class BunnyStream {
     if (headers != null) {
       body.add((new BasicNameValuePair("headers", headers.toString())));
     }
-    Requests.post(this.apiKey, this.generateBaseUrl("/videos/" + videoId + "/fetch"), body);
+    this.send("POST", this.generateBaseUrl("/videos/" + videoId + "/fetch"),
+        EndpointClass.WRITE, false, uri -> Requests.post(this.transport, this.apiKey, uri,
+            body, "application/json"));
+    this.invalidate(videoId);
   }
 
   /**
-   * Add caption file.
+   * Add caption file. A caption file given as a Path or InputStream is Base64 encoded while it is
+   * sent, instead of being built into the request body in memory.
    * 
    * @param acq AddCaptionQuery (Obtain by building a query with AddCaptionQueryBuilder).
    * @throws Exception Unhandled exception
    * @throws BunnyStreamAPIException Error returned from the API
    */
   public void addCaptionFile(AddCaptionQuery acq) throws BunnyStreamAPIException, Exception {
+    String uri = this.generateBaseUrl("/videos/" + acq.getVideoId() + "/captions");
+    if (acq.getCaptionPath() != null || acq.getCaptionStream() != null) {
+      // Encode the file while sending it instead of building the body as a String
+      CaptionEntity entity = acq.getCaptionPath() != null
+          ? new CaptionEntity(acq.getSrcLang(), acq.getLabel(), acq.getCaptionPath())
+          : new CaptionEntity(acq.getSrcLang(), acq.getLabel(), acq.getCaptionStream());
+      this.send("POST", uri, EndpointClass.UPLOAD, true, entity.isRepeatable(),
+          target -> Requests.post(this.transport, this.apiKey, target, entity,
+              "application/json"));
+      this.invalidate(acq.getVideoId());
+      return;
+    }
+
     int parameters = 1;
     if (acq.getCaptionFile() != null)
       parameters++;
@@ -252,8 +837,472 @@ public class BunnyStream {
     if (acq.getCaptionFile() != null)
       body.add(new BasicNameValuePair("captionFile", acq.getCaptionFile()));
     body.add(new BasicNameValuePair("srclang", acq.getSrcLang()));
-    Requests.post(this.apiKey,
-        this.generateBaseUrl("/videos/" + acq.getVideoId() + "/captions"), body);
+    this.send("POST", uri, EndpointClass.WRITE, true,
+        target -> Requests.post(this.transport, this.apiKey, target, body,
+            "application/json"));
+    this.invalidate(acq.getVideoId());
+  }
+
+  /**
+   * Add many caption files, e.g. all language tracks of a video. Up to parallelism uploads run at
+   * the same time, each with the retry policy, rate limiter, circuit breaker and timeout of this
+   * client. A failing upload does not stop the others.
+   * 
+   * @param acqs AddCaptionQuery objects (Obtain by building queries with AddCaptionQueryBuilder)
+   * @param parallelism Maximum number of uploads sent at the same time
+   * @return Outcome of every upload, in the order of the queries
+   * @throws InterruptedException Interrupted while waiting for the uploads
+   */
+  public BulkResult<AddCaptionQuery> addCaptionFiles(Collection<AddCaptionQuery> acqs,
+      int parallelism) throws InterruptedException {
+    return BulkRunner.run(new ArrayList<AddCaptionQuery>(acqs), parallelism, this.executor,
+        this::addCaptionFile);
+  }
+
+  /**
+   * Update many videos, e.g. to move them to another collection. Up to parallelism updates run at
+   * the same time, each with the retry policy, rate limiter, circuit breaker and timeout of this
+   * client. A failing update does not stop the others.
+   * 
+   * @param queries UpdateVideoQuery objects (Obtain by building queries with UpdateVideoQueryBuilder)
+   * @param parallelism Maximum number of updates sent at the same time
+   * @return Outcome of every update, in the order of the queries
+   * @throws InterruptedException Interrupted while waiting for the updates
+   */
+  public BulkResult<UpdateVideoQuery> updateVideos(Collection<UpdateVideoQuery> queries,
+      int parallelism) throws InterruptedException {
+    return BulkRunner.run(new ArrayList<UpdateVideoQuery>(queries), parallelism, this.executor,
+        this::updateVideo);
+  }
+
+  /**
+   * Delete many videos. Up to parallelism deletions run at the same time, each with the retry
+   * policy, rate limiter, circuit breaker and timeout of this client. A failing deletion does not
+   * stop the others.
+   * 
+   * @param videoIds Video IDs of the videos you wish to delete.
+   * @param parallelism Maximum number of deletions sent at the same time
+   * @return Outcome of every deletion, in the order of the video IDs
+   * @throws InterruptedException Interrupted while waiting for the deletions
+   */
+  public BulkResult<String> deleteVideos(Collection<String> videoIds, int parallelism)
+      throws InterruptedException {
+    return BulkRunner.run(new ArrayList<String>(videoIds), parallelism, this.executor,
+        this::deleteVideo);
+  }
+
+  /**
+   * Set the thumbnails of many videos. Up to parallelism requests run at the same time, each with
+   * the retry policy, rate limiter, circuit breaker and timeout of this client. A failing request
+   * does not stop the others.
+   * 
+   * @param assignments Video IDs and their thumbnail URLs
+   * @param parallelism Maximum number of requests sent at the same time
+   * @return Outcome of every assignment, in the order of the assignments
+   * @throws InterruptedException Interrupted while waiting for the requests
+   */
+  public BulkResult<ThumbnailAssignment> setVideoThumbnails(
+      Collection<ThumbnailAssignment> assignments, int parallelism) throws InterruptedException {
+    return BulkRunner.run(new ArrayList<ThumbnailAssignment>(assignments), parallelism,
+        this.executor, a -> this.setVideoThumbnail(a.getVideoId(), a.getThumbnailUrl()));
+  }
+
+  /**
+   * Lists videos asynchronously.
+   * 
+   * @param lvq ListVideoQuery (Obtain by building a query with ListVideoQueryBuilder)
+   * @return Future completed with the ListVideoResponse
+   */
+  public CompletableFuture<ListVideoResponse> listVideosAsync(ListVideoQuery lvq) {
+    return this.async(() -> this.listVideos(lvq));
+  }
+
+  /**
+   * Get video asynchronously.
+   * 
+   * @param videoId The video ID of the video you wish to retrieve.
+   * @return Future completed with the Video
+   */
+  public CompletableFuture<Video> getVideoAsync(String videoId) {
+    return this.async(() -> this.getVideo(videoId));
+  }
+
+  /**
+   * Update video asynchronously.
+   * 
+   * @param uvq UpdateVideoQuery (Obtain by building a query with UpdateVideoQueryBuilder)
+   * @return Future completed when the video is updated
+   */
+  public CompletableFuture<Void> updateVideoAsync(UpdateVideoQuery uvq) {
+    return this.async(() -> {
+      this.updateVideo(uvq);
+      return null;
+    });
+  }
+
+  /**
+   * Set video thumbnail asynchronously.
+   * 
+   * @param videoId Video ID of the video you wish to set the thumbnail on.
+   * @param thumbnailUrl URL to the video thumbnail.
+   * @return Future completed when the thumbnail is set
+   */
+  public CompletableFuture<Void> setVideoThumbnailAsync(String videoId, String thumbnailUrl) {
+    return this.async(() -> {
+      this.setVideoThumbnail(videoId, thumbnailUrl);
+      return null;
+    });
+  }
+
+  /**
+   * Create new video asynchronously.
+   * 
+   * @param title Title of the new video.
+   * @param collectionId Collection ID of the new video (optional, set as empty string to not use)
+   * @return Future completed with the created Video
+   */
+  public CompletableFuture<Video> createVideoAsync(String title, String collectionId) {
+    return this.async(() -> this.createVideo(title, collectionId));
+  }
+
+  /**
+   * Upload new video asynchronously.
+   * 
+   * @param videoId Video ID of the video you wish to attach to the upload.
+   * @param file File object of the video.
+   * @return Future completed when the upload is done
+   */
+  public CompletableFuture<Void> uploadVideoAsync(String videoId, File file) {
+    return this.async(() -> {
+      this.uploadVideo(videoId, file);
+      return null;
+    });
+  }
+
+  /**
+   * Upload new video in resumable chunks asynchronously.
+   * 
+   * @param ruq ResumableUploadQuery (Obtain by building a query with ResumableUploadQueryBuilder)
+   * @return Future completed when the upload is done
+   */
+  public CompletableFuture<Void> resumableUploadVideoAsync(ResumableUploadQuery ruq) {
+    return this.async(() -> {
+      this.resumableUploadVideo(ruq);
+      return null;
+    });
+  }
+
+  /**
+   * Create and upload new video asynchronously.
+   * 
+   * @param title Title of the new video.
+   * @param file File object of the video.
+   * @param collectionId Collection ID of the new video (optional, set as empty string to not use)
+   * @return Future completed with the uploaded Video
+   */
+  public CompletableFuture<Video> createAndUploadVideoAsync(String title, File file,
+      String collectionId) {
+    return this.async(() -> this.createAndUploadVideo(title, file, collectionId));
+  }
+
+  /**
+   * Delete video asynchronously.
+   * 
+   * @param videoId Video ID of the video you wish to delete.
+   * @return Future completed when the video is deleted
+   */
+  public CompletableFuture<Void> deleteVideoAsync(String videoId) {
+    return this.async(() -> {
+      this.deleteVideo(videoId);
+      return null;
+    });
+  }
+
+  /**
+   * Delete caption asynchronously.
+   * 
+   * @param videoId Video ID of the video you wish to delete the caption from.
+   * @param srclang Language code of the caption you wish to delete.
+   * @return Future completed when the caption is deleted
+   */
+  public CompletableFuture<Void> deleteCaptionAsync(String videoId, String srclang) {
+    return this.async(() -> {
+      this.deleteCaption(videoId, srclang);
+      return null;
+    });
+  }
+
+  /**
+   * Fetch video from URL asynchronously.
+   * 
+   * @param videoId Video ID of the video.
+   * @param url URL of the video you wish to fetch.
+   * @return Future completed when the fetch is queued
+   */
+  public CompletableFuture<Void> fetchVideoAsync(String videoId, String url) {
+    return this.fetchVideoAsync(videoId, url, null);
+  }
+
+  /**
+   * Fetch video from URL asynchronously.
+   * 
+   * @param videoId Video ID of the video.
+   * @param url URL of the video you wish to fetch.
+   * @param headers Array list of headers to be sent with the request.
+   * @return Future completed when the fetch is queued
+   */
+  public CompletableFuture<Void> fetchVideoAsync(String videoId, String url,
+      ArrayList<NameValuePair> headers) {
+    return this.async(() -> {
+      this.fetchVideo(videoId, url, headers);
+      return null;
+    });
+  }
+
+  /**
+   * Add caption file asynchronously.
+   * 
+   * @param acq AddCaptionQuery (Obtain by building a query with AddCaptionQueryBuilder).
+   * @return Future completed when the caption is added
+   */
+  public CompletableFuture<Void> addCaptionFileAsync(AddCaptionQuery acq) {
+    return this.async(() -> {
+      this.addCaptionFile(acq);
+      return null;
+    });
+  }
+
+  /**
+   * Send a request to the API. Every attempt the retry policy makes passes the circuit breaker and
+   * rate limiter, and reads may be hedged. All attempts share the deadline of the call, and the
+   * call is measured when a metrics listener is set.
+   * 
+   * @param method HTTP method
+   * @param uri Request URI
+   * @param endpointClass Endpoint class of the request
+   * @param idempotent Whether repeating the request has no further effect
+   * @param request Sends the request to the given URI
+   * @return JSONObject Response
+   */
+  private JSONObject send(String method, String uri, EndpointClass endpointClass,
+      boolean idempotent, Request request) throws IOException, BunnyStreamAPIException {
+    return this.send(method, uri, endpointClass, idempotent, true, request);
+  }
+
+  /**
+   * Send a request to the API, which is only retried if its body can be sent again.
+   * 
+   * @param method HTTP method
+   * @param uri Request URI
+   * @param endpointClass Endpoint class of the request
+   * @param idempotent Whether repeating the request has no further effect
+   * @param repeatable Whether the body of the request can be sent more than once
+   * @param request Sends the request to the given URI
+   * @return JSONObject Response
+   */
+  private JSONObject send(String method, String uri, EndpointClass endpointClass,
+      boolean idempotent, boolean repeatable, Request request)
+      throws IOException, BunnyStreamAPIException {
+    long timeoutMillis = this.timeoutMillis;
+    if (timeoutMillis > 0 && CallContext.current() == null) {
+      CallContext context = new CallContext(timeoutMillis);
+      CallContext previous = context.enter();
+      try {
+        return this.send(method, uri, endpointClass, idempotent, repeatable, request);
+      } finally {
+        context.exit(previous);
+      }
+    }
+
+    MetricsListener metricsListener = this.metricsListener;
+    if (metricsListener != null) {
+      return this.measure(metricsListener, method, uri, endpointClass, idempotent, repeatable,
+          request);
+    }
+    return this.attempt(method, uri, endpointClass, idempotent, repeatable, request, null);
+  }
+
+  /**
+   * Send a request to the API and report its measurements to the metrics listener.
+   */
+  private JSONObject measure(MetricsListener metricsListener, String method, String uri,
+      EndpointClass endpointClass, boolean idempotent, boolean repeatable, Request request)
+      throws IOException, BunnyStreamAPIException {
+    Exchange exchange = new Exchange();
+    Request measured = target -> {
+      Exchange previous = exchange.enter();
+      try {
+        return request.send(target);
+      } finally {
+        exchange.exit(previous);
+      }
+    };
+    long start = System.nanoTime();
+    Exception error = null;
+    try {
+      return this.attempt(method, uri, endpointClass, idempotent, repeatable, measured,
+          exchange);
+    } catch (IOException | BunnyStreamAPIException | RuntimeException e) {
+      error = e;
+      throw e;
+    } finally {
+      // A call rejected by the rate limiter or circuit breaker got no response from the API
+      int status = error instanceof BunnyStreamAPIException && !CallMetrics.isLocalRejection(error)
+          ? ((BunnyStreamAPIException) error).getHttpCode()
+          : error != null ? 0 : exchange.status;
+      metricsListener.onCall(new CallMetrics(method, this.endpointTemplate(uri), status,
+          System.nanoTime() - start, exchange.requestBytes.sum(), exchange.responseBytes.sum(),
+          Math.max(0, exchange.attempts.get() - 1), exchange.poolWaitNanos.sum(), error));
+    }
+  }
+
+  /**
+   * Send a request through the retry policy, hedging, circuit breaker and rate limiter.
+   * 
+   * @param exchange Exchange counting the attempts (may be null)
+   */
+  private JSONObject attempt(String method, String uri, EndpointClass endpointClass,
+      boolean idempotent, boolean repeatable, Request request, Exchange exchange)
+      throws IOException, BunnyStreamAPIException {
+    RateLimiter rateLimiter = this.rateLimiter;
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    HedgePolicy hedgePolicy = this.hedgePolicy;
+    boolean write = endpointClass == EndpointClass.WRITE || endpointClass == EndpointClass.UPLOAD;
+
+    RetryPolicy.Call<JSONObject> attempt = () -> {
+      if (circuitBreaker == null) {
+        if (rateLimiter != null) {
+          rateLimiter.permit(this.apiKey, this.streamLibraryId, write);
+        }
+        return request.send(uri);
+      }
+      circuitBreaker.acquire(endpointClass);
+      long start = 0;
+      Exception error = null;
+      try {
+        if (rateLimiter != null) {
+          rateLimiter.permit(this.apiKey, this.streamLibraryId, write);
+        }
+        start = System.nanoTime();
+        return request.send(uri);
+      } catch (IOException | BunnyStreamAPIException | RuntimeException e) {
+        error = e;
+        throw e;
+      } finally {
+        circuitBreaker.record(endpointClass, start == 0 ? 0 : System.nanoTime() - start, error);
+      }
+    };
+    RetryPolicy.Call<JSONObject> call = hedgePolicy != null && !write
+        ? () -> hedgePolicy.execute(endpointClass, attempt)
+        : attempt;
+    if (exchange != null) {
+      RetryPolicy.Call<JSONObject> unmeasured = call;
+      call = () -> {
+        exchange.attempts.incrementAndGet();
+        return unmeasured.call();
+      };
+    }
+    return this.retryPolicy.execute(method, uri, idempotent, repeatable, call);
+  }
+
+  /**
+   * Get the endpoint template of a request URI, with IDs replaced by placeholders, e.g.
+   * /videos/{id}/captions/{srclang}.
+   * 
+   * @param uri Request URI
+   * @return Endpoint template
+   */
+  private String endpointTemplate(String uri) {
+    String base = this.generateBaseUrl("");
+    int start = uri.startsWith(base) ? base.length() : 0;
+    int end = uri.indexOf('?', start);
+    String[] segments = uri.substring(start, end < 0 ? uri.length() : end).split("/");
+    StringBuilder template = new StringBuilder();
+    for (int i = 1; i < segments.length; i++) {
+      template.append('/');
+      if (i % 2 == 1) {
+        // Collections (videos, captions) alternate with the IDs of their items
+        template.append(segments[i]);
+      } else {
+        template.append(segments[i - 1].equals("captions") ? "{srclang}" : "{id}");
+      }
+    }
+    return template.toString();
+  }
+
+  @FunctionalInterface
+  private interface Request {
+    JSONObject send(String uri) throws IOException, BunnyStreamAPIException;
+  }
+
+  /**
+   * Invalidate cached entries after a write to a video.
+   * 
+   * @param videoId Video ID of the video that was written to
+   */
+  void invalidate(String videoId) {
+    VideoCache cache = this.cache;
+    if (cache != null) {
+      cache.invalidate(this.streamLibraryId, videoId);
+    }
+  }
+
+  /**
+   * Run a call of several requests under a single deadline, unless it is part of a call already.
+   * 
+   * @param call The call
+   * @return Result of the call
+   */
+  private <T> T withinDeadline(Callable<T> call) throws Exception {
+    long timeoutMillis = this.timeoutMillis;
+    if (timeoutMillis <= 0 || CallContext.current() != null) {
+      return call.call();
+    }
+    CallContext context = new CallContext(timeoutMillis);
+    CallContext previous = context.enter();
+    try {
+      return call.call();
+    } finally {
+      context.exit(previous);
+    }
+  }
+
+  /**
+   * Run a blocking call on the executor. Any exception thrown by the call, including
+   * BunnyStreamAPIException, completes the future exceptionally. Cancelling the future aborts the
+   * requests of the call which are still in flight.
+   * 
+   * @param call The blocking call
+   * @return Future completed with the result of the call
+   */
+  private <T> CompletableFuture<T> async(Callable<T> call) {
+    // The deadline starts now, so time spent queued for the executor counts
+    CallContext context = new CallContext(this.timeoutMillis);
+    CompletableFuture<T> future = new CompletableFuture<T>();
+    future.whenComplete((result, error) -> {
+      if (future.isCancelled()) {
+        context.cancel();
+      }
+    });
+    try {
+      this.executor.execute(() -> {
+        if (future.isDone()) {
+          // Cancelled while queued
+          return;
+        }
+        CallContext previous = context.enter();
+        try {
+          future.complete(call.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        } finally {
+          context.exit(previous);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
   }
 
 }
@@ -9,11 +9,15 @@ public class BunnyStreamAPIException extends Exception {
    */
   private static final long serialVersionUID = 6211015429695402886L;
 
+  private final int httpCode;
+  private final long retryAfterMillis;
+
   private enum HTTPStatusCode {
     HTTP_200 ("(200) Success.", 200),
     HTTP_404 ("(404) Not found. Check your video, collection, and library ID.", 404),
     HTTP_401 ("(401) Unauthorized. Check your API key.", 401),
     HTTP_403 ("(403) Access was denied.", 403),
+    HTTP_429 ("(429) Too many requests.", 429),
     HTTP_500 ("(500) Internal server error.", 500),
     DEFAULT ("Unexpected error.", -1)
     ;
@@ -42,6 +46,37 @@ public class BunnyStreamAPIException extends Exception {
    * @param httpCode The HTTP code returned from the API
    */
   public BunnyStreamAPIException(String apiError, int httpCode) {
+    this(apiError, httpCode, -1);
+  }
+
+  /**
+   * BunnyStreamAPIException
+   * 
+   * @param apiError The error message to return
+   * @param httpCode The HTTP code returned from the API
+   * @param retryAfterMillis Delay the API asked for with Retry-After in milliseconds (-1 if none)
+   */
+  public BunnyStreamAPIException(String apiError, int httpCode, long retryAfterMillis) {
     super(apiError + " (" + HTTPStatusCode.resolveCode(httpCode) + ")");
+    this.httpCode = httpCode;
+    this.retryAfterMillis = retryAfterMillis;
+  }
+
+  /**
+   * Get the HTTP code returned from the API
+   * 
+   * @return HTTP code
+   */
+  public int getHttpCode() {
+    return this.httpCode;
+  }
+
+  /**
+   * Get the delay the API asked for with a Retry-After header
+   * 
+   * @return Delay in milliseconds (-1 if the API did not send one)
+   */
+  public long getRetryAfterMillis() {
+    return this.retryAfterMillis;
   }
 }
@@ -0,0 +1,21 @@
+package com.bunny.net.stream;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown inside a call which was cancelled, e.g. by cancelling the future of an async call.
+ */
+class CallCancelledException extends InterruptedIOException {
+
+  /**
+   * Generated serial version UID
+   */
+  private static final long serialVersionUID = 2930684741923506147L;
+
+  /**
+   * CallCancelledException
+   */
+  CallCancelledException() {
+    super("Call was cancelled.");
+  }
+}
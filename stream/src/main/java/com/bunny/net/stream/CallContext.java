@@ -0,0 +1,294 @@
+package com.bunny.net.stream;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadline and cancellation of a BunnyStream call, including all of its retries. The context of
+ * the running call is kept in a thread local, so the HTTP layer can abort requests which are still
+ * in flight when the call is cancelled or its deadline passes. Aborting a request closes its
+ * connection (or HTTP/2 stream), which frees its slot in the pool.
+ */
+class CallContext {
+  private static final ThreadLocal<CallContext> CURRENT = new ThreadLocal<CallContext>();
+  private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread thread = new Thread(r, "bunnystream-deadline");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    TIMER.setRemoveOnCancelPolicy(true);
+  }
+
+  private final long deadline;
+  private final boolean hasDeadline;
+  private final Set<Transport.Call> requests = ConcurrentHashMap.newKeySet();
+  private final Set<CallContext> children = ConcurrentHashMap.newKeySet();
+  // Completed on cancellation, to wake waits of the call
+  private final CompletableFuture<Void> cancellation = new CompletableFuture<Void>();
+  private volatile boolean cancelled = false;
+
+  /**
+   * CallContext
+   *
+   * @param timeoutMillis Time until the deadline in milliseconds (0 for no deadline)
+   */
+  CallContext(long timeoutMillis) {
+    this(timeoutMillis > 0, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+  }
+
+  private CallContext(boolean hasDeadline, long deadline) {
+    this.hasDeadline = hasDeadline;
+    this.deadline = deadline;
+  }
+
+  /**
+   * Get the context of the call running on this thread.
+   *
+   * @return CallContext, or null outside of a call
+   */
+  static CallContext current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Make this the context of the current thread, until {@link #exit(CallContext)}.
+   *
+   * @return The previous context of the thread, to pass to exit
+   */
+  CallContext enter() {
+    CallContext previous = CURRENT.get();
+    CURRENT.set(this);
+    return previous;
+  }
+
+  /**
+   * Restore the previous context of the current thread.
+   *
+   * @param previous Context returned by enter
+   */
+  void exit(CallContext previous) {
+    if (previous != null) {
+      CURRENT.set(previous);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Create a context with the same deadline, which is cancelled together with this one but can
+   * also be cancelled on its own (e.g. the losing read of a hedge).
+   *
+   * @return Child context
+   */
+  CallContext child() {
+    CallContext child = new CallContext(this.hasDeadline, this.deadline);
+    this.children.add(child);
+    if (this.cancelled) {
+      child.cancel();
+    }
+    return child;
+  }
+
+  /**
+   * Forget a child which is done.
+   */
+  void release(CallContext child) {
+    this.children.remove(child);
+  }
+
+  /**
+   * Cancel the call: requests in flight are aborted and no further attempts are made.
+   */
+  void cancel() {
+    this.cancelled = true;
+    this.cancellation.complete(null);
+    for (Transport.Call request : this.requests) {
+      request.abort();
+    }
+    for (CallContext child : this.children) {
+      child.cancel();
+    }
+  }
+
+  /**
+   * Check whether the call was cancelled
+   *
+   * @return true if cancelled
+   */
+  boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  /**
+   * Get time left until the deadline.
+   *
+   * @return Remaining nanoseconds (Long.MAX_VALUE without a deadline, at most 0 once passed)
+   */
+  long remainingNanos() {
+    return this.hasDeadline ? this.deadline - System.nanoTime() : Long.MAX_VALUE;
+  }
+
+  /**
+   * Check that the call may go on.
+   *
+   * @throws CallCancelledException The call was cancelled
+   * @throws DeadlineExceededException The deadline passed
+   */
+  void check() throws CallCancelledException, DeadlineExceededException {
+    if (this.cancelled) {
+      throw new CallCancelledException();
+    }
+    if (this.remainingNanos() <= 0) {
+      throw new DeadlineExceededException();
+    }
+  }
+
+  /**
+   * Check that the call running on this thread (if any) may go on.
+   */
+  static void checkCurrent() throws CallCancelledException, DeadlineExceededException {
+    CallContext context = CURRENT.get();
+    if (context != null) {
+      context.check();
+    }
+  }
+
+  /**
+   * Wait before the next attempt of the call running on this thread (if any). The wait ends early
+   * when the call is cancelled, and a wait which would outlast the deadline fails right away.
+   *
+   * @param millis Delay in milliseconds
+   * @throws InterruptedException Interrupted while waiting
+   * @throws CallCancelledException The call was cancelled
+   * @throws DeadlineExceededException The deadline passes before the delay is over
+   */
+  static void sleep(long millis)
+      throws InterruptedException, CallCancelledException, DeadlineExceededException {
+    sleep(millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Wait in the call running on this thread (if any), like {@link #sleep(long)}.
+   *
+   * @param duration Delay
+   * @param unit Unit of the delay
+   * @throws InterruptedException Interrupted while waiting
+   * @throws CallCancelledException The call was cancelled
+   * @throws DeadlineExceededException The deadline passes before the delay is over
+   */
+  static void sleep(long duration, TimeUnit unit)
+      throws InterruptedException, CallCancelledException, DeadlineExceededException {
+    CallContext context = CURRENT.get();
+    if (context == null) {
+      unit.sleep(duration);
+      return;
+    }
+    context.check();
+    if (unit.toNanos(duration) >= context.remainingNanos()) {
+      throw new DeadlineExceededException();
+    }
+    try {
+      context.cancellation.get(duration, unit);
+    } catch (TimeoutException | ExecutionException e) {
+      // Slept the whole delay
+    }
+    context.check();
+  }
+
+  /**
+   * Wait for a future in the call running on this thread (if any). The wait ends when the call is
+   * cancelled, and fails once the deadline passes.
+   *
+   * @param future The future
+   * @return Result of the future
+   * @throws InterruptedException Interrupted while waiting
+   * @throws ExecutionException The future failed
+   * @throws CallCancelledException The call was cancelled before the future completed
+   * @throws DeadlineExceededException The deadline passed before the future completed
+   */
+  static <T> T await(CompletableFuture<T> future) throws InterruptedException, ExecutionException,
+      CallCancelledException, DeadlineExceededException {
+    CallContext context = CURRENT.get();
+    if (context == null) {
+      return future.get();
+    }
+    if (!future.isDone()) {
+      context.check();
+      CompletableFuture<Object> either = CompletableFuture.anyOf(future, context.cancellation);
+      try {
+        if (context.hasDeadline) {
+          either.get(Math.max(0, context.remainingNanos()), TimeUnit.NANOSECONDS);
+        } else {
+          either.get();
+        }
+      } catch (TimeoutException e) {
+        throw new DeadlineExceededException();
+      } catch (ExecutionException e) {
+        // The future failed, which the get below reports
+      }
+      if (!future.isDone()) {
+        context.check();
+      }
+    }
+    return future.get();
+  }
+
+  /**
+   * Run a short task after a delay on the timer thread which enforces the deadlines.
+   *
+   * @param task The task
+   * @param delayNanos Delay in nanoseconds
+   * @return Future to cancel the task with
+   */
+  static ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+    return TIMER.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Execute a request in the context of the call running on this thread. The request is aborted
+   * when the call is cancelled or its deadline passes.
+   *
+   * @param request The request to execute.
+   * @param handler Handles the response
+   * @return Result of the handler
+   * @throws IOException Connection or protocol error, cancellation or deadline
+   */
+  static <T> T execute(Transport.Call request, Transport.Handler<T> handler) throws IOException {
+    CallContext context = CURRENT.get();
+    if (context == null) {
+      return request.execute(handler);
+    }
+
+    context.check();
+    context.requests.add(request);
+    ScheduledFuture<?> timeout = null;
+    if (context.hasDeadline) {
+      timeout = TIMER.schedule(request::abort, context.remainingNanos(), TimeUnit.NANOSECONDS);
+    }
+    try {
+      if (context.cancelled) {
+        // Cancelled between the check and registering the request
+        request.abort();
+      }
+      return request.execute(handler);
+    } catch (IOException e) {
+      // Report an aborted request as the cancellation or deadline which aborted it
+      context.check();
+      throw e;
+    } finally {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      context.requests.remove(request);
+    }
+  }
+}
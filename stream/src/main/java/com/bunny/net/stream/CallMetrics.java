@@ -0,0 +1,138 @@
+package com.bunny.net.stream;
+
+/**
+ * Measurements of a completed API call, including all of its attempts.
+ */
+public class CallMetrics {
+  private final String method;
+  private final String endpoint;
+  private final int status;
+  private final long latencyNanos;
+  private final long requestBytes;
+  private final long responseBytes;
+  private final int retries;
+  private final long poolWaitNanos;
+  private final Exception error;
+
+  /**
+   * CallMetrics
+   *
+   * @param method HTTP method
+   * @param endpoint Endpoint template
+   * @param status HTTP status of the last attempt (0 if there was no response)
+   * @param latencyNanos Duration of the call
+   * @param requestBytes Request body bytes sent
+   * @param responseBytes Response body bytes received
+   * @param retries Number of retries
+   * @param poolWaitNanos Time spent waiting for a pooled connection
+   * @param error Error of the call, or null if it succeeded
+   */
+  CallMetrics(String method, String endpoint, int status, long latencyNanos, long requestBytes,
+      long responseBytes, int retries, long poolWaitNanos, Exception error) {
+    this.method = method;
+    this.endpoint = endpoint;
+    this.status = status;
+    this.latencyNanos = latencyNanos;
+    this.requestBytes = requestBytes;
+    this.responseBytes = responseBytes;
+    this.retries = retries;
+    this.poolWaitNanos = poolWaitNanos;
+    this.error = error;
+  }
+
+  /**
+   * Get HTTP method
+   *
+   * @return HTTP method
+   */
+  public String getMethod() {
+    return this.method;
+  }
+
+  /**
+   * Get endpoint template, with IDs replaced by placeholders (e.g. /videos/{id}/captions/{srclang})
+   *
+   * @return Endpoint template
+   */
+  public String getEndpoint() {
+    return this.endpoint;
+  }
+
+  /**
+   * Get HTTP status of the last attempt. A call rejected by the client itself (rate limiter,
+   * circuit breaker) reports 0, see {@link #isRejectedLocally()}.
+   *
+   * @return HTTP status, or 0 if there was no response
+   */
+  public int getStatus() {
+    return this.status;
+  }
+
+  /**
+   * Get duration of the call, including retries
+   *
+   * @return Latency in nanoseconds
+   */
+  public long getLatencyNanos() {
+    return this.latencyNanos;
+  }
+
+  /**
+   * Get request body bytes sent, over all attempts
+   *
+   * @return Request bytes
+   */
+  public long getRequestBytes() {
+    return this.requestBytes;
+  }
+
+  /**
+   * Get response body bytes received, over all attempts
+   *
+   * @return Response bytes
+   */
+  public long getResponseBytes() {
+    return this.responseBytes;
+  }
+
+  /**
+   * Get number of retries
+   *
+   * @return Retries
+   */
+  public int getRetries() {
+    return this.retries;
+  }
+
+  /**
+   * Get time spent waiting for a connection from the pool, over all attempts
+   *
+   * @return Pool wait in nanoseconds
+   */
+  public long getPoolWaitNanos() {
+    return this.poolWaitNanos;
+  }
+
+  /**
+   * Check whether the call was rejected by the client's rate limiter or circuit breaker, rather
+   * than failed by the API
+   *
+   * @return true if rejected locally
+   */
+  public boolean isRejectedLocally() {
+    return isLocalRejection(this.error);
+  }
+
+  static boolean isLocalRejection(Exception error) {
+    return error instanceof RateLimitExceededException || error instanceof CircuitOpenException;
+  }
+
+  /**
+   * Get error of the call
+   *
+   * @return Error, or null if the call succeeded
+   */
+  public Exception getError() {
+    return this.error;
+  }
+}
@@ -0,0 +1,174 @@
+package com.bunny.net.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import org.json.JSONObject;
+
+/**
+ * JSON request body of an add caption request, which Base64 encodes the caption file while it is
+ * sent. The file never exists on the heap as a whole, neither raw nor encoded.
+ */
+class CaptionEntity implements Transport.Body {
+  private final byte[] prefix;
+  private final byte[] suffix;
+  private final Path path;
+  private final InputStream stream;
+  private final long size;
+  private boolean consumed = false;
+
+  /**
+   * CaptionEntity reading the caption file from disk. It can be sent more than once.
+   *
+   * @param srclang Source language code
+   * @param label Captions label (may be null)
+   * @param path Caption file
+   * @throws IOException Size of the file could not be read
+   */
+  CaptionEntity(String srclang, String label, Path path) throws IOException {
+    this(srclang, label, path, null, Files.size(path));
+  }
+
+  /**
+   * CaptionEntity reading the caption file from a stream. It can only be sent once, and is sent
+   * with chunked transfer encoding as its length is not known up front. The stream is not closed.
+   *
+   * @param srclang Source language code
+   * @param label Captions label (may be null)
+   * @param stream Caption file
+   */
+  CaptionEntity(String srclang, String label, InputStream stream) {
+    this(srclang, label, null, stream, -1);
+  }
+
+  private CaptionEntity(String srclang, String label, Path path, InputStream stream, long size) {
+    StringBuilder prefix = new StringBuilder("{\"srclang\":").append(JSONObject.quote(srclang));
+    if (label != null) {
+      prefix.append(",\"label\":").append(JSONObject.quote(label));
+    }
+    prefix.append(",\"captionFile\":\"");
+    this.prefix = prefix.toString().getBytes(StandardCharsets.UTF_8);
+    this.suffix = "\"}".getBytes(StandardCharsets.UTF_8);
+    this.path = path;
+    this.stream = stream;
+    this.size = size;
+  }
+
+  @Override
+  public String getContentType() {
+    return "application/json";
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return this.path != null;
+  }
+
+  @Override
+  public long getContentLength() {
+    if (this.size < 0) {
+      return -1;
+    }
+    // Base64 turns every started group of 3 bytes into 4 characters, none of which need escaping
+    return this.prefix.length + 4 * ((this.size + 2) / 3) + this.suffix.length;
+  }
+
+  @Override
+  public InputStream open() throws IOException {
+    InputStream in;
+    if (this.path == null) {
+      synchronized (this) {
+        if (this.consumed) {
+          throw new IOException("Caption stream was already sent and cannot be read again.");
+        }
+        this.consumed = true;
+      }
+      in = this.stream;
+    } else {
+      in = Files.newInputStream(this.path);
+    }
+    return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+        new ByteArrayInputStream(this.prefix), new EncodingStream(in),
+        new ByteArrayInputStream(this.suffix))));
+  }
+
+  /**
+   * Base64 encodes the caption file while it is read. The encoder works on whole groups of 3
+   * bytes, so only the last group is padded.
+   */
+  private class EncodingStream extends InputStream {
+    private final InputStream in;
+    private final byte[] raw = new byte[FileRangeEntity.BUFFER_SIZE / 4 * 3];
+    private final byte[] encoded = new byte[FileRangeEntity.BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private long read = 0;
+    private boolean eof = false;
+
+    EncodingStream(InputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (this.position == this.limit && !this.fill()) {
+        return -1;
+      }
+      return this.encoded[this.position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (this.position == this.limit && !this.fill()) {
+        return -1;
+      }
+      int n = Math.min(len, this.limit - this.position);
+      System.arraycopy(this.encoded, this.position, b, off, n);
+      this.position += n;
+      return n;
+    }
+
+    private boolean fill() throws IOException {
+      if (this.eof) {
+        return false;
+      }
+      int n = 0;
+      int r;
+      while (n < this.raw.length && (r = this.in.read(this.raw, n, this.raw.length - n)) >= 0) {
+        n += r;
+      }
+      this.read += n;
+      if (n < this.raw.length) {
+        this.eof = true;
+        if (CaptionEntity.this.size >= 0 && this.read != CaptionEntity.this.size) {
+          throw new IOException("Caption file changed while it was sent.");
+        }
+        this.limit = Base64.getEncoder().encode(Arrays.copyOf(this.raw, n), this.encoded);
+      } else {
+        this.limit = Base64.getEncoder().encode(this.raw, this.encoded);
+      }
+      this.position = 0;
+      return this.limit > 0;
+    }
+
+    /**
+     * Closes a caption file opened from its path, but never a stream passed in by the caller.
+     */
+    @Override
+    public void close() throws IOException {
+      if (CaptionEntity.this.path != null) {
+        this.in.close();
+      }
+    }
+  }
+}
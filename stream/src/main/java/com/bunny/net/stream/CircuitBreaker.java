@@ -0,0 +1,210 @@
+package com.bunny.net.stream;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker with a separate circuit per endpoint class (list, get, write and upload). Each
+ * circuit keeps the outcome of its most recent calls. When too many of them failed or were slow, the
+ * circuit opens and calls fail right away with CircuitOpenException, instead of piling up on an
+ * API which is in trouble. After the open duration a few probe calls are let through (half-open),
+ * which close the circuit again when they succeed.
+ */
+public class CircuitBreaker {
+  /**
+   * State of a circuit
+   */
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final double failureRateThreshold;
+  private final long slowCallNanos;
+  private final double slowCallRateThreshold;
+  private final int minimumCalls;
+  private final long openNanos;
+  private final int halfOpenCalls;
+  private final Circuit[] circuits;
+
+  /**
+   * CircuitBreaker (Obtain by building a circuit breaker with CircuitBreakerBuilder)
+   *
+   * @param failureRateThreshold Failure rate at which the circuit opens
+   * @param slowCallMillis Duration from which a call is slow in milliseconds
+   * @param slowCallRateThreshold Slow call rate at which the circuit opens
+   * @param windowSize Number of recent calls to compute the rates over
+   * @param minimumCalls Number of calls needed before the circuit may open
+   * @param openMillis Time the circuit stays open in milliseconds
+   * @param halfOpenCalls Number of probe calls while half-open
+   */
+  CircuitBreaker(double failureRateThreshold, long slowCallMillis, double slowCallRateThreshold,
+      int windowSize, int minimumCalls, long openMillis, int halfOpenCalls) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+    this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    this.circuits = new Circuit[EndpointClass.values().length];
+    for (int i = 0; i < this.circuits.length; i++) {
+      this.circuits[i] = new Circuit(Math.max(1, windowSize));
+    }
+  }
+
+  /**
+   * Get state of the circuit of an endpoint class
+   *
+   * @param endpointClass Endpoint class
+   * @return State
+   */
+  public State getState(EndpointClass endpointClass) {
+    return this.circuits[endpointClass.ordinal()].state(System.nanoTime());
+  }
+
+  /**
+   * Let a call through, or reject it when the circuit is open. Every call let through must be
+   * followed by {@link #record(EndpointClass, long, Exception)}.
+   *
+   * @param endpointClass Endpoint class of the call
+   * @throws CircuitOpenException The circuit is open
+   */
+  void acquire(EndpointClass endpointClass) throws CircuitOpenException {
+    if (!this.circuits[endpointClass.ordinal()].tryAcquire(System.nanoTime())) {
+      throw new CircuitOpenException("Circuit breaker is open for " + endpointClass + " requests");
+    }
+  }
+
+  /**
+   * Record the outcome of a call.
+   *
+   * @param endpointClass Endpoint class of the call
+   * @param nanos Duration of the call
+   * @param error Error thrown by the call, or null if it succeeded
+   */
+  void record(EndpointClass endpointClass, long nanos, Exception error) {
+    Circuit circuit = this.circuits[endpointClass.ordinal()];
+    // An upload takes as long as its file needs, so only its outcome counts
+    boolean slowCall = endpointClass != EndpointClass.UPLOAD && nanos >= this.slowCallNanos;
+    if (error instanceof RateLimitExceededException || error instanceof CallCancelledException
+        || (error instanceof DeadlineExceededException && !slowCall)) {
+      // Never sent or abandoned by the client, so it tells nothing about the API
+      circuit.release();
+    } else if (error instanceof DeadlineExceededException) {
+      // The deadline is the caller's own, so the API was slow but did not fail
+      circuit.record(false, true, System.nanoTime());
+    } else {
+      circuit.record(isFailure(error), slowCall, System.nanoTime());
+    }
+  }
+
+  /**
+   * Check whether an error indicates trouble on the API side. Client errors such as 404 do not.
+   */
+  static boolean isFailure(Exception error) {
+    if (error instanceof DeadlineExceededException || error instanceof CallCancelledException) {
+      // Ended by the caller, even though they are IOExceptions
+      return false;
+    }
+    if (error instanceof BunnyStreamAPIException) {
+      int code = ((BunnyStreamAPIException) error).getHttpCode();
+      return code == 408 || code == 429 || code >= 500;
+    }
+    return error instanceof IOException;
+  }
+
+  private class Circuit {
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next = 0;
+    private int calls = 0;
+    private int failures = 0;
+    private int slowCalls = 0;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probes = 0;
+    private int probeSuccesses = 0;
+
+    Circuit(int windowSize) {
+      this.failed = new boolean[windowSize];
+      this.slow = new boolean[windowSize];
+    }
+
+    synchronized State state(long now) {
+      if (this.state == State.OPEN && now - this.openedAt >= CircuitBreaker.this.openNanos) {
+        this.state = State.HALF_OPEN;
+        this.probes = 0;
+        this.probeSuccesses = 0;
+      }
+      return this.state;
+    }
+
+    synchronized boolean tryAcquire(long now) {
+      switch (this.state(now)) {
+        case CLOSED:
+          return true;
+        case HALF_OPEN:
+          if (this.probes < CircuitBreaker.this.halfOpenCalls) {
+            this.probes++;
+            return true;
+          }
+          return false;
+        default:
+          return false;
+      }
+    }
+
+    synchronized void release() {
+      if (this.state == State.HALF_OPEN && this.probes > 0) {
+        this.probes--;
+      }
+    }
+
+    synchronized void record(boolean failure, boolean slowCall, long now) {
+      if (this.state == State.HALF_OPEN) {
+        if (failure || slowCall) {
+          this.open(now);
+        } else if (++this.probeSuccesses >= CircuitBreaker.this.halfOpenCalls) {
+          this.close();
+        }
+        return;
+      }
+      if (this.state == State.OPEN) {
+        // Call started before the circuit opened
+        return;
+      }
+
+      if (this.calls == this.failed.length) {
+        this.failures -= this.failed[this.next] ? 1 : 0;
+        this.slowCalls -= this.slow[this.next] ? 1 : 0;
+      } else {
+        this.calls++;
+      }
+      this.failed[this.next] = failure;
+      this.slow[this.next] = slowCall;
+      this.failures += failure ? 1 : 0;
+      this.slowCalls += slowCall ? 1 : 0;
+      this.next = (this.next + 1) % this.failed.length;
+
+      if (this.calls >= CircuitBreaker.this.minimumCalls
+          && (this.failures >= CircuitBreaker.this.failureRateThreshold * this.calls
+              || this.slowCalls >= CircuitBreaker.this.slowCallRateThreshold * this.calls)) {
+        this.open(now);
+      }
+    }
+
+    private void open(long now) {
+      this.state = State.OPEN;
+      this.openedAt = now;
+    }
+
+    private void close() {
+      this.state = State.CLOSED;
+      this.next = 0;
+      this.calls = 0;
+      this.failures = 0;
+      this.slowCalls = 0;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.bunny.net.stream;
+
+public class CircuitBreakerBuilder {
+  private double failureRateThreshold = 0.5;
+  private long slowCallMillis = 10000;
+  private double slowCallRateThreshold = 0.5;
+  private int windowSize = 100;
+  private int minimumCalls = 20;
+  private long openMillis = 30000;
+  private int halfOpenCalls = 3;
+
+  /**
+   * Set share of failed calls at which the circuit opens. Connection errors, 408, 429 and 5xx
+   * responses count as failures.
+   *
+   * @param failureRateThreshold Failure rate between 0 and 1
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder failureRateThreshold(double failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+    return this;
+  }
+
+  /**
+   * Set duration from which a call counts as slow
+   *
+   * @param slowCallMillis Duration in milliseconds
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder slowCallDuration(long slowCallMillis) {
+    this.slowCallMillis = slowCallMillis;
+    return this;
+  }
+
+  /**
+   * Set share of slow calls at which the circuit opens
+   *
+   * @param slowCallRateThreshold Slow call rate between 0 and 1
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder slowCallRateThreshold(double slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    return this;
+  }
+
+  /**
+   * Set number of most recent calls the rates are computed over
+   *
+   * @param windowSize Number of calls
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder windowSize(int windowSize) {
+    this.windowSize = windowSize;
+    return this;
+  }
+
+  /**
+   * Set number of calls needed in the window before the circuit may open
+   *
+   * @param minimumCalls Number of calls
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder minimumCalls(int minimumCalls) {
+    this.minimumCalls = minimumCalls;
+    return this;
+  }
+
+  /**
+   * Set how long an open circuit rejects calls before letting probes through
+   *
+   * @param openMillis Duration in milliseconds
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder openDuration(long openMillis) {
+    this.openMillis = openMillis;
+    return this;
+  }
+
+  /**
+   * Set number of probe calls let through while half-open. The circuit closes when all of them
+   * succeed, and opens again on the first failure.
+   *
+   * @param halfOpenCalls Number of probe calls
+   * @return CircuitBreakerBuilder
+   */
+  public CircuitBreakerBuilder halfOpenCalls(int halfOpenCalls) {
+    this.halfOpenCalls = halfOpenCalls;
+    return this;
+  }
+
+  /**
+   * Build CircuitBreaker from the given parameters
+   *
+   * @return CircuitBreaker
+   */
+  public CircuitBreaker build() {
+    return new CircuitBreaker(this.failureRateThreshold, this.slowCallMillis,
+        this.slowCallRateThreshold, this.windowSize, this.minimumCalls, this.openMillis,
+        this.halfOpenCalls);
+  }
+
+}
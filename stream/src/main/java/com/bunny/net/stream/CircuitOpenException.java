@@ -0,0 +1,22 @@
+package com.bunny.net.stream;
+
+/**
+ * Thrown when a request is not sent because the circuit breaker of its endpoint class is open.
+ * Reported with HTTP code 503, like an unavailable API.
+ */
+public class CircuitOpenException extends BunnyStreamAPIException {
+
+  /**
+   * Generated serial version UID
+   */
+  private static final long serialVersionUID = 4410237756392187423L;
+
+  /**
+   * CircuitOpenException
+   * 
+   * @param message The error message to return
+   */
+  public CircuitOpenException(String message) {
+    super(message, 503);
+  }
+}
@@ -0,0 +1,140 @@
+package com.bunny.net.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+public class ConnectionPool implements Closeable {
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final CloseableHttpClient httpclient;
+
+  /**
+   * ConnectionPool (Obtain by building a pool with ConnectionPoolBuilder)
+   *
+   * @param maxTotal Maximum number of pooled connections
+   * @param maxPerRoute Maximum number of pooled connections per route
+   * @param keepAliveMillis Keep-alive duration when the server does not send one
+   * @param maxIdleMillis Maximum idle time before a connection is evicted
+   * @param timeToLiveMillis Total time to live of a connection (-1 for no limit)
+   * @param connectTimeoutMillis Connect timeout (0 for no limit)
+   * @param socketTimeoutMillis Socket read timeout (0 for no limit)
+   * @param connectionRequestTimeoutMillis Timeout waiting for a pooled connection (0 for no limit)
+   */
+  ConnectionPool(int maxTotal, int maxPerRoute, long keepAliveMillis, long maxIdleMillis,
+      long timeToLiveMillis, int connectTimeoutMillis, int socketTimeoutMillis,
+      int connectionRequestTimeoutMillis) {
+    this.connectionManager =
+        new PoolingHttpClientConnectionManager(timeToLiveMillis, TimeUnit.MILLISECONDS) {
+          @Override
+          public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            Exchange exchange = Exchange.current();
+            return exchange == null ? request : new ConnectionRequest() {
+              @Override
+              public HttpClientConnection get(long timeout, TimeUnit unit)
+                  throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                // Time spent waiting for a free connection
+                long start = System.nanoTime();
+                try {
+                  return request.get(timeout, unit);
+                } finally {
+                  exchange.poolWaitNanos.add(System.nanoTime() - start);
+                }
+              }
+
+              @Override
+              public boolean cancel() {
+                return request.cancel();
+              }
+            };
+          }
+        };
+    this.connectionManager.setMaxTotal(maxTotal);
+    this.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+    // Honor the server's Keep-Alive header, but never keep a connection longer than configured
+    ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+      long duration =
+          DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+    };
+
+    // Without these, a stalled connection or an exhausted pool blocks a request forever
+    RequestConfig requestConfig = RequestConfig.custom()
+        .setConnectTimeout(connectTimeoutMillis)
+        .setSocketTimeout(socketTimeoutMillis)
+        .setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+        .build();
+
+    this.httpclient = HttpClients.custom()
+        .setConnectionManager(this.connectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .setKeepAliveStrategy(keepAliveStrategy)
+        .evictExpiredConnections()
+        .evictIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Get the shared default pool, used by the static Requests helpers.
+   *
+   * @return Default ConnectionPool
+   */
+  public static ConnectionPool getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Get the pooled HTTP client. It is safe to share across threads.
+   *
+   * @return Pooled HTTP client
+   */
+  public CloseableHttpClient getClient() {
+    return this.httpclient;
+  }
+
+  /**
+   * Get pool statistics (leased, pending, available and max connections).
+   *
+   * @return Pool statistics
+   */
+  public PoolStats getStats() {
+    return this.connectionManager.getTotalStats();
+  }
+
+  /**
+   * Get maximum number of connections per route (host). The API and uploads share one host.
+   *
+   * @return Maximum connections per route
+   */
+  public int getMaxPerRoute() {
+    return this.connectionManager.getDefaultMaxPerRoute();
+  }
+
+  /**
+   * Close the pool, including all of its connections and the eviction thread.
+   */
+  @Override
+  public void close() throws IOException {
+    this.httpclient.close();
+  }
+
+  /**
+   * Lazily creates the default pool on first use.
+   */
+  private static class DefaultHolder {
+    private static final ConnectionPool INSTANCE = new ConnectionPoolBuilder().build();
+  }
+}
@@ -0,0 +1,112 @@
+package com.bunny.net.stream;
+
+public class ConnectionPoolBuilder {
+  private int maxTotal = 50;
+  private int maxPerRoute = 20;
+  private long keepAliveMillis = 30000;
+  private long maxIdleMillis = 60000;
+  private long timeToLiveMillis = -1;
+  private int connectTimeoutMillis = 10000;
+  private int socketTimeoutMillis = 60000;
+  private int connectionRequestTimeoutMillis = 60000;
+
+  /**
+   * Set maximum number of connections in total
+   *
+   * @param maxTotal Maximum number of pooled connections
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder maxTotal(int maxTotal) {
+    this.maxTotal = maxTotal;
+    return this;
+  }
+
+  /**
+   * Set maximum number of connections per route (host)
+   *
+   * @param maxPerRoute Maximum number of pooled connections per route
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder maxPerRoute(int maxPerRoute) {
+    this.maxPerRoute = maxPerRoute;
+    return this;
+  }
+
+  /**
+   * Set how long a connection is kept alive when the server does not send a Keep-Alive header
+   *
+   * @param keepAliveMillis Keep-alive duration in milliseconds
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder keepAlive(long keepAliveMillis) {
+    this.keepAliveMillis = keepAliveMillis;
+    return this;
+  }
+
+  /**
+   * Set how long a connection may sit idle in the pool before it is evicted
+   *
+   * @param maxIdleMillis Maximum idle time in milliseconds
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder maxIdle(long maxIdleMillis) {
+    this.maxIdleMillis = maxIdleMillis;
+    return this;
+  }
+
+  /**
+   * Set the total time to live of a connection, regardless of activity
+   *
+   * @param timeToLiveMillis Time to live in milliseconds (-1 for no limit)
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder timeToLive(long timeToLiveMillis) {
+    this.timeToLiveMillis = timeToLiveMillis;
+    return this;
+  }
+
+  /**
+   * Set how long establishing a connection may take
+   *
+   * @param connectTimeoutMillis Connect timeout in milliseconds (0 for no limit)
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder connectTimeout(int connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set how long to wait for data from the API before a request fails
+   *
+   * @param socketTimeoutMillis Socket read timeout in milliseconds (0 for no limit)
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder socketTimeout(int socketTimeoutMillis) {
+    this.socketTimeoutMillis = socketTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set how long to wait for a free connection when the pool is exhausted
+   *
+   * @param connectionRequestTimeoutMillis Pool wait timeout in milliseconds (0 for no limit)
+   * @return ConnectionPoolBuilder
+   */
+  public ConnectionPoolBuilder connectionRequestTimeout(int connectionRequestTimeoutMillis) {
+    this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Build ConnectionPool from the given parameters
+   *
+   * @return ConnectionPool
+   */
+  public ConnectionPool build() {
+    return new ConnectionPool(this.maxTotal, this.maxPerRoute, this.keepAliveMillis,
+        this.maxIdleMillis, this.timeToLiveMillis, this.connectTimeoutMillis,
+        this.socketTimeoutMillis, this.connectionRequestTimeoutMillis);
+  }
+
+}
@@ -0,0 +1,22 @@
+package com.bunny.net.stream;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown when a call does not complete before its deadline. The deadline covers all attempts of
+ * the call, so it is not retried.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+  /**
+   * Generated serial version UID
+   */
+  private static final long serialVersionUID = -6179834602316557321L;
+
+  /**
+   * DeadlineExceededException
+   */
+  public DeadlineExceededException() {
+    super("Deadline exceeded.");
+  }
+}
@@ -0,0 +1,259 @@
+package com.bunny.net.stream;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import com.bunny.net.stream.ListVideoQueryBuilder.ListVideoQuery;
+
+/**
+ * Watches many videos until they finish encoding (or fail), instead of polling getVideo for each
+ * one. Videos which are due for a check are refreshed together by listing the newest videos of the
+ * library, and only those not found there are fetched one by one. The interval between checks of a
+ * video adapts to how fast its encode progress moves, between the configured minimum and maximum.
+ *
+ * <p>Checks run on a single background thread. Close the watcher to stop it.
+ */
+public class EncodeWatcher implements Closeable {
+  private final BunnyStream bunnyStream;
+  private final long minNanos;
+  private final long maxNanos;
+  private final int pageSize;
+  private final int maxPages;
+  private final ConcurrentHashMap<String, Watch> watches = new ConcurrentHashMap<String, Watch>();
+  private final ScheduledExecutorService scheduler;
+  private ScheduledFuture<?> nextPoll = null;
+  private long nextPollAt;
+
+  /**
+   * EncodeWatcher (Obtain by building a watcher with EncodeWatcherBuilder)
+   *
+   * @param bunnyStream BunnyStream client to poll with
+   * @param minIntervalMillis Minimum interval between checks of a video in milliseconds
+   * @param maxIntervalMillis Maximum interval between checks of a video in milliseconds
+   * @param pageSize Videos per list page
+   * @param maxPages List pages to scan per batch refresh
+   */
+  EncodeWatcher(BunnyStream bunnyStream, long minIntervalMillis, long maxIntervalMillis,
+      int pageSize, int maxPages) {
+    this.bunnyStream = bunnyStream;
+    this.minNanos = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+    this.maxNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(minIntervalMillis, maxIntervalMillis));
+    this.pageSize = pageSize;
+    this.maxPages = maxPages;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "bunnystream-encode-watcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Watch a video until it reaches a terminal status (finished, error or upload failed). Watching
+   * a video which is already watched returns the same future. Cancelling the future stops watching
+   * the video.
+   *
+   * @param videoId Video ID
+   * @return Future completed with the video in its terminal status, or exceptionally if the video
+   *         was not found
+   */
+  public CompletableFuture<Video> watch(String videoId) {
+    Watch watch = this.watches.computeIfAbsent(videoId,
+        id -> new Watch(System.nanoTime() + this.minNanos, this.minNanos));
+    if (this.scheduler.isShutdown()) {
+      this.watches.remove(videoId, watch);
+      watch.future.completeExceptionally(new IllegalStateException("EncodeWatcher is closed."));
+    } else {
+      this.schedule(watch.nextCheck);
+    }
+    return watch.future;
+  }
+
+  /**
+   * Get number of videos being watched
+   *
+   * @return Number of videos
+   */
+  public int getWatchCount() {
+    return this.watches.size();
+  }
+
+  /**
+   * Stop watching. Futures of videos which are still being watched are cancelled.
+   */
+  @Override
+  public void close() {
+    this.scheduler.shutdownNow();
+    for (Watch watch : this.watches.values()) {
+      watch.future.cancel(false);
+    }
+    this.watches.clear();
+  }
+
+  /**
+   * Make sure a poll runs no later than the given time.
+   */
+  private synchronized void schedule(long at) {
+    if (this.nextPoll != null) {
+      if (this.nextPollAt - at <= 0) {
+        return;
+      }
+      this.nextPoll.cancel(false);
+    }
+    try {
+      this.nextPoll = this.scheduler.schedule(this::poll, Math.max(0, at - System.nanoTime()),
+          TimeUnit.NANOSECONDS);
+      this.nextPollAt = at;
+    } catch (RejectedExecutionException e) {
+      // Closed
+      this.nextPoll = null;
+    }
+  }
+
+  private void poll() {
+    synchronized (this) {
+      this.nextPoll = null;
+    }
+
+    long next = 0;
+    boolean pending = false;
+    try {
+      this.refresh(System.nanoTime());
+    } finally {
+      for (Watch watch : this.watches.values()) {
+        if (!pending || watch.nextCheck - next < 0) {
+          next = watch.nextCheck;
+          pending = true;
+        }
+      }
+      if (pending) {
+        this.schedule(next);
+      }
+    }
+  }
+
+  /**
+   * Check all videos which are due, in a batch where possible.
+   */
+  private void refresh(long now) {
+    Map<String, Watch> due = new HashMap<String, Watch>();
+    for (Map.Entry<String, Watch> entry : this.watches.entrySet()) {
+      Watch watch = entry.getValue();
+      if (watch.future.isDone()) {
+        this.watches.remove(entry.getKey(), watch);
+      } else if (watch.nextCheck - now <= this.minNanos) {
+        // Videos due shortly are checked early, so they share the batch
+        due.put(entry.getKey(), watch);
+      }
+    }
+
+    // A single video costs one request either way, so only list when several are due
+    if (due.size() > 1) {
+      for (int page = 1; page <= this.maxPages && !due.isEmpty(); page++) {
+        ListVideoResponse response;
+        List<Video> videos;
+        try {
+          ListVideoQuery lvq = new ListVideoQueryBuilder()
+              .page(page)
+              .perPage(this.pageSize)
+              .sortBy("date")
+              .build();
+          response = this.bunnyStream.loadVideos(lvq);
+          videos = response.getList();
+        } catch (Exception e) {
+          // Fall back to checking the due videos one by one
+          break;
+        }
+
+        for (Video video : videos) {
+          Watch watch = this.watches.get(video.getGuid());
+          if (watch != null) {
+            due.remove(video.getGuid());
+            this.update(video.getGuid(), watch, video, now);
+          }
+        }
+        if (videos.isEmpty() || (long) page * this.pageSize >= response.getTotalItems()) {
+          break;
+        }
+      }
+    }
+
+    for (Map.Entry<String, Watch> entry : due.entrySet()) {
+      String videoId = entry.getKey();
+      Watch watch = entry.getValue();
+      try {
+        this.update(videoId, watch, this.bunnyStream.loadVideo(videoId), now);
+      } catch (BunnyStreamAPIException e) {
+        if (e.getHttpCode() == 404) {
+          this.watches.remove(videoId, watch);
+          watch.future.completeExceptionally(e);
+        } else {
+          this.backOff(watch, now);
+        }
+      } catch (Exception e) {
+        this.backOff(watch, now);
+      }
+    }
+  }
+
+  /**
+   * Record a fresh copy of a watched video, completing the watch if it reached a terminal status.
+   * Otherwise plan the next check: when progress moves, about halfway through the estimated
+   * remaining encode time; when it stalls, twice as late as the previous check.
+   */
+  private void update(String videoId, Watch watch, Video video, long now) {
+    VideoStatus status = video.getVideoStatus();
+    if (status.isTerminal()) {
+      this.watches.remove(videoId, watch);
+      this.bunnyStream.invalidate(videoId);
+      watch.future.complete(video);
+      return;
+    }
+
+    int progress = video.getEncodeProgress();
+    long interval;
+    if (status != watch.status) {
+      interval = this.minNanos;
+      watch.changedAt = now;
+    } else if (progress > watch.progress) {
+      double nanosPerPercent = (now - watch.changedAt) / (double) (progress - watch.progress);
+      interval = (long) (nanosPerPercent * (100 - progress) / 2);
+      watch.changedAt = now;
+    } else {
+      interval = watch.interval * 2;
+    }
+    watch.status = status;
+    watch.progress = progress;
+    watch.interval = Math.min(this.maxNanos, Math.max(this.minNanos, interval));
+    watch.nextCheck = now + watch.interval;
+  }
+
+  private void backOff(Watch watch, long now) {
+    watch.interval = Math.min(this.maxNanos, watch.interval * 2);
+    watch.nextCheck = now + watch.interval;
+  }
+
+  /**
+   * A watched video. Apart from the future, only touched by the poll thread.
+   */
+  private static class Watch {
+    private final CompletableFuture<Video> future = new CompletableFuture<Video>();
+    private volatile long nextCheck;
+    private long interval;
+    private VideoStatus status = null;
+    private int progress;
+    private long changedAt;
+
+    Watch(long nextCheck, long interval) {
+      this.nextCheck = nextCheck;
+      this.interval = interval;
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.bunny.net.stream;
+
+public class EncodeWatcherBuilder {
+  private final BunnyStream bunnyStream;
+  private long minIntervalMillis = 5000;
+  private long maxIntervalMillis = 60000;
+  private int pageSize = 100;
+  private int maxPages = 3;
+
+  /**
+   * EncodeWatcher builder
+   *
+   * @param bunnyStream BunnyStream client to poll with
+   */
+  public EncodeWatcherBuilder(BunnyStream bunnyStream) {
+    this.bunnyStream = bunnyStream;
+  }
+
+  /**
+   * Set shortest time between two checks of the same video
+   *
+   * @param minIntervalMillis Minimum interval in milliseconds
+   * @return EncodeWatcherBuilder
+   */
+  public EncodeWatcherBuilder minInterval(long minIntervalMillis) {
+    this.minIntervalMillis = minIntervalMillis;
+    return this;
+  }
+
+  /**
+   * Set longest time between two checks of the same video
+   *
+   * @param maxIntervalMillis Maximum interval in milliseconds
+   * @return EncodeWatcherBuilder
+   */
+  public EncodeWatcherBuilder maxInterval(long maxIntervalMillis) {
+    this.maxIntervalMillis = maxIntervalMillis;
+    return this;
+  }
+
+  /**
+   * Set number of videos per list page used for batch refreshes
+   *
+   * @param pageSize Videos per page
+   * @return EncodeWatcherBuilder
+   */
+  public EncodeWatcherBuilder pageSize(int pageSize) {
+    this.pageSize = pageSize;
+    return this;
+  }
+
+  /**
+   * Set number of list pages (newest videos first) to scan per batch refresh. Watched videos which
+   * are not on these pages are checked one by one.
+   *
+   * @param maxPages Maximum number of pages (0 to always check videos one by one)
+   * @return EncodeWatcherBuilder
+   */
+  public EncodeWatcherBuilder maxPages(int maxPages) {
+    this.maxPages = maxPages;
+    return this;
+  }
+
+  /**
+   * Build EncodeWatcher from the given parameters
+   *
+   * @return EncodeWatcher
+   */
+  public EncodeWatcher build() {
+    return new EncodeWatcher(this.bunnyStream, this.minIntervalMillis, this.maxIntervalMillis,
+        this.pageSize, this.maxPages);
+  }
+
+}
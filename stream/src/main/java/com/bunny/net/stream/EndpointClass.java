@@ -0,0 +1,24 @@
+package com.bunny.net.stream;
+
+/**
+ * Classes of API endpoints which are tracked separately by the circuit breaker and hedging.
+ */
+public enum EndpointClass {
+  /**
+   * Listing videos
+   */
+  LIST,
+  /**
+   * Getting a single video
+   */
+  GET,
+  /**
+   * Creating, updating and deleting
+   */
+  WRITE,
+  /**
+   * Uploading video and caption files. How long an upload takes depends on the size of the file,
+   * so uploads never count as slow calls.
+   */
+  UPLOAD
+}
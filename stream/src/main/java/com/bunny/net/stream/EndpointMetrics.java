@@ -0,0 +1,148 @@
+package com.bunny.net.stream;
+
+/**
+ * Point-in-time copy of the metrics a MetricsRecorder keeps for one method and endpoint template.
+ */
+public class EndpointMetrics {
+  private final String method;
+  private final String endpoint;
+  private final long calls;
+  private final long errors;
+  private final long rejected;
+  private final long retries;
+  private final long requestBytes;
+  private final long responseBytes;
+  private final long[] statusClasses;
+  private final HistogramSnapshot latency;
+  private final HistogramSnapshot poolWait;
+
+  /**
+   * EndpointMetrics (Obtain from MetricsRecorder)
+   */
+  EndpointMetrics(String method, String endpoint, long calls, long errors, long rejected,
+      long retries, long requestBytes, long responseBytes, long[] statusClasses,
+      HistogramSnapshot latency, HistogramSnapshot poolWait) {
+    this.method = method;
+    this.endpoint = endpoint;
+    this.calls = calls;
+    this.errors = errors;
+    this.rejected = rejected;
+    this.retries = retries;
+    this.requestBytes = requestBytes;
+    this.responseBytes = responseBytes;
+    this.statusClasses = statusClasses;
+    this.latency = latency;
+    this.poolWait = poolWait;
+  }
+
+  /**
+   * Get HTTP method
+   *
+   * @return HTTP method
+   */
+  public String getMethod() {
+    return this.method;
+  }
+
+  /**
+   * Get endpoint template
+   *
+   * @return Endpoint template
+   */
+  public String getEndpoint() {
+    return this.endpoint;
+  }
+
+  /**
+   * Get number of calls
+   *
+   * @return Calls
+   */
+  public long getCalls() {
+    return this.calls;
+  }
+
+  /**
+   * Get number of calls which failed
+   *
+   * @return Errors
+   */
+  public long getErrors() {
+    return this.errors;
+  }
+
+  /**
+   * Get number of calls rejected by the client's rate limiter or circuit breaker. They are
+   * counted as errors and as calls without a response, not by the status the exception carries.
+   *
+   * @return Rejected calls
+   */
+  public long getRejected() {
+    return this.rejected;
+  }
+
+  /**
+   * Get number of retries over all calls
+   *
+   * @return Retries
+   */
+  public long getRetries() {
+    return this.retries;
+  }
+
+  /**
+   * Get request body bytes sent over all calls
+   *
+   * @return Request bytes
+   */
+  public long getRequestBytes() {
+    return this.requestBytes;
+  }
+
+  /**
+   * Get response body bytes received over all calls
+   *
+   * @return Response bytes
+   */
+  public long getResponseBytes() {
+    return this.responseBytes;
+  }
+
+  /**
+   * Get number of calls which ended with a status of the given class.
+   *
+   * @param statusClass 1 to 5 for 1xx to 5xx, or 0 for calls without a response
+   * @return Calls
+   */
+  public long getStatusCount(int statusClass) {
+    return statusClass >= 0 && statusClass < this.statusClasses.length
+        ? this.statusClasses[statusClass]
+        : 0;
+  }
+
+  /**
+   * Get latency histogram of the calls
+   *
+   * @return HistogramSnapshot
+   */
+  public HistogramSnapshot getLatency() {
+    return this.latency;
+  }
+
+  /**
+   * Get histogram of the time calls waited for a pooled connection
+   *
+   * @return HistogramSnapshot
+   */
+  public HistogramSnapshot getPoolWait() {
+    return this.poolWait;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s %s calls=%d errors=%d rejected=%d retries=%d p50=%.1fms p99=%.1fms max=%.1fms",
+        this.method, this.endpoint, this.calls, this.errors, this.rejected, this.retries,
+        this.latency.getPercentileMillis(0.5), this.latency.getPercentileMillis(0.99),
+        this.latency.getMax() / 1e6);
+  }
+}
@@ -0,0 +1,82 @@
+package com.bunny.net.stream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measurements of a BunnyStream call while it runs, filled in by the HTTP layer. Like the call
+ * context it is kept in a thread local, and it is shared by all attempts and hedges of the call.
+ */
+class Exchange {
+  private static final ThreadLocal<Exchange> CURRENT = new ThreadLocal<Exchange>();
+
+  final AtomicInteger attempts = new AtomicInteger();
+  final LongAdder requestBytes = new LongAdder();
+  final LongAdder responseBytes = new LongAdder();
+  final LongAdder poolWaitNanos = new LongAdder();
+  volatile int status = 0;
+
+  /**
+   * Get the exchange of the call running on this thread.
+   *
+   * @return Exchange, or null if the call is not measured
+   */
+  static Exchange current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Make this the exchange of the current thread, until {@link #exit(Exchange)}.
+   *
+   * @return The previous exchange of the thread, to pass to exit
+   */
+  Exchange enter() {
+    Exchange previous = CURRENT.get();
+    CURRENT.set(this);
+    return previous;
+  }
+
+  /**
+   * Restore the previous exchange of the current thread.
+   *
+   * @param previous Exchange returned by enter
+   */
+  void exit(Exchange previous) {
+    if (previous != null) {
+      CURRENT.set(previous);
+    } else {
+      CURRENT.remove();
+    }
+  }
+
+  /**
+   * Count the bytes read from a response body.
+   *
+   * @param in Response body
+   * @return Stream counting into this exchange
+   */
+  InputStream count(InputStream in) {
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          Exchange.this.responseBytes.increment();
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+          Exchange.this.responseBytes.add(n);
+        }
+        return n;
+      }
+    };
+  }
+}
@@ -0,0 +1,115 @@
+package com.bunny.net.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Request entity which streams a range of a file through a fixed-size buffer, so heap usage does
+ * not depend on the size of the file.
+ */
+class FileRangeEntity implements Transport.Body {
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final long offset;
+  private final long length;
+  private final String contentType;
+  private final BandwidthThrottle throttle;
+
+  /**
+   * FileRangeEntity covering the whole file
+   *
+   * @param file File to send
+   * @param contentType The content type. Ex: application/octet-stream
+   */
+  FileRangeEntity(File file, String contentType) {
+    this(file, 0, file.length(), contentType, null);
+  }
+
+  /**
+   * FileRangeEntity
+   *
+   * @param file File to send
+   * @param offset Position of the first byte to send
+   * @param length Number of bytes to send
+   * @param contentType The content type. Ex: application/octet-stream
+   * @param throttle Bandwidth throttle to send through (may be null)
+   */
+  FileRangeEntity(File file, long offset, long length, String contentType,
+      BandwidthThrottle throttle) {
+    this.file = file;
+    this.offset = offset;
+    this.length = length;
+    this.contentType = contentType;
+    this.throttle = throttle;
+  }
+
+  @Override
+  public String getContentType() {
+    return this.contentType;
+  }
+
+  @Override
+  public boolean isRepeatable() {
+    return true;
+  }
+
+  @Override
+  public long getContentLength() {
+    return this.length;
+  }
+
+  @Override
+  public InputStream open() throws IOException {
+    return new RangeStream(FileChannel.open(this.file.toPath(), StandardOpenOption.READ));
+  }
+
+  /**
+   * Stream of the range, read with positional reads so the channel is never seeked.
+   */
+  private class RangeStream extends InputStream {
+    private final FileChannel channel;
+    private long position = FileRangeEntity.this.offset;
+    private long remaining = FileRangeEntity.this.length;
+
+    RangeStream(FileChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return this.read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (this.remaining <= 0) {
+        return -1;
+      }
+      if (len == 0) {
+        return 0;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, this.remaining));
+      int read = this.channel.read(buffer, this.position);
+      if (read < 0) {
+        throw new IOException("File ended before the expected length was sent.");
+      }
+      if (FileRangeEntity.this.throttle != null) {
+        FileRangeEntity.this.throttle.acquire(read);
+      }
+      this.position += read;
+      this.remaining -= read;
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+  }
+}
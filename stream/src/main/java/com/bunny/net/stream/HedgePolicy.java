@@ -0,0 +1,255 @@
+package com.bunny.net.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedging for idempotent reads (getVideo and listVideos). When a read takes longer than the
+ * configured latency percentile of recent reads of its endpoint class, a second identical read is
+ * sent and whichever succeeds first is returned. A budget caps the extra load.
+ *
+ * <p>The read itself runs on the calling thread. Hedges run on a small pool of daemon threads of
+ * their own, never on the executor of the client, so a hedge cannot wait behind the reads it is
+ * meant to rescue. When every hedge thread is busy, the read is not hedged. The losing read is
+ * aborted, which frees its connection.
+ */
+public class HedgePolicy {
+  private static final int SAMPLES = 256;
+  private static final int RECOMPUTE_EVERY = 32;
+
+  private final double percentile;
+  private final long minDelayNanos;
+  private final int minSamples;
+  private final Budget budget;
+  private final Latencies[] latencies;
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * HedgePolicy (Obtain by building a policy with HedgePolicyBuilder)
+   *
+   * @param percentile Latency percentile after which a hedge is sent
+   * @param minDelayMillis Minimum delay before a hedge in milliseconds
+   * @param minSamples Number of samples needed before hedging starts
+   * @param budgetRatio Hedges earned per read
+   * @param budgetReserve Hedges which may be saved up
+   * @param maxConcurrentHedges Most hedges running at the same time
+   */
+  HedgePolicy(double percentile, long minDelayMillis, int minSamples, double budgetRatio,
+      int budgetReserve, int maxConcurrentHedges) {
+    this.percentile = Math.min(1, Math.max(0, percentile));
+    this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    this.minSamples = Math.max(1, Math.min(minSamples, SAMPLES));
+    this.budget = new Budget(budgetRatio, budgetReserve);
+    this.latencies = new Latencies[EndpointClass.values().length];
+    for (int i = 0; i < this.latencies.length; i++) {
+      this.latencies[i] = new Latencies();
+    }
+    // No queue, so a hedge either starts at once or is not sent
+    this.executor = new ThreadPoolExecutor(0, Math.max(1, maxConcurrentHedges), 30,
+        TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), r -> {
+          Thread thread = new Thread(r, "bunnystream-hedge");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Run a read, hedging it when it is slow. The read runs on the calling thread, and a hedge is
+   * started on a hedge thread once the hedge delay has passed without a result.
+   *
+   * @param endpointClass Endpoint class of the read
+   * @param call The read
+   * @return Result of the first successful read
+   * @throws BunnyStreamAPIException Error returned from the API (when all reads failed)
+   * @throws IOException Connection error (when all reads failed), or interrupted while waiting
+   */
+  <T> T execute(EndpointClass endpointClass, RetryPolicy.Call<T> call)
+      throws IOException, BunnyStreamAPIException {
+    Latencies latencies = this.latencies[endpointClass.ordinal()];
+    long delay = latencies.hedgeDelay();
+    this.budget.earn();
+    if (delay < 0) {
+      // Not enough samples yet
+      return this.timed(latencies, call);
+    }
+
+    // Each read gets its own child context, so the losing read can be aborted on its own
+    CallContext parent = CallContext.current();
+    CallContext primaryContext = parent != null ? parent.child() : new CallContext(0);
+    CallContext hedgeContext = parent != null ? parent.child() : new CallContext(0);
+    // Claimed by the timer to start the hedge, or by the primary read when it is done first
+    AtomicBoolean claimed = new AtomicBoolean();
+    // Taken by the hedge when it starts, or by a failed primary read which then stops waiting
+    AtomicBoolean started = new AtomicBoolean();
+    CompletableFuture<T> hedge = new CompletableFuture<T>();
+    ScheduledFuture<?> timer = CallContext.schedule(() -> {
+      if (claimed.get() || !this.budget.spend() || !claimed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        this.executor.execute(() -> {
+          if (!started.compareAndSet(false, true)) {
+            return;
+          }
+          CallContext previous = hedgeContext.enter();
+          try {
+            hedge.complete(this.timed(latencies, call));
+            // Unblock the caller, which is still waiting for the primary read
+            primaryContext.cancel();
+          } catch (Throwable e) {
+            hedge.completeExceptionally(e);
+          } finally {
+            hedgeContext.exit(previous);
+          }
+        });
+        this.hedges.increment();
+      } catch (RejectedExecutionException e) {
+        // Every hedge thread is busy, so this read is not hedged
+        this.budget.refund();
+      }
+    }, Math.max(delay, this.minDelayNanos));
+
+    try {
+      CallContext previous = primaryContext.enter();
+      try {
+        return this.timed(latencies, call);
+      } catch (IOException | BunnyStreamAPIException | RuntimeException e) {
+        if (claimed.compareAndSet(false, true) || started.compareAndSet(false, true)) {
+          // Failed before a hedge was started
+          throw e;
+        }
+        try {
+          T result = await(hedge, hedgeContext);
+          this.hedgeWins.increment();
+          return result;
+        } catch (IOException | BunnyStreamAPIException | RuntimeException hedgeError) {
+          throw e;
+        }
+      } finally {
+        primaryContext.exit(previous);
+      }
+    } finally {
+      timer.cancel(false);
+      claimed.set(true);
+      started.set(true);
+      // Abort whichever read is still running
+      this.done(parent, primaryContext);
+      this.done(parent, hedgeContext);
+    }
+  }
+
+  private <T> T timed(Latencies latencies, RetryPolicy.Call<T> call)
+      throws IOException, BunnyStreamAPIException {
+    long start = System.nanoTime();
+    T result = call.call();
+    latencies.record(System.nanoTime() - start);
+    return result;
+  }
+
+  private void done(CallContext parent, CallContext context) {
+    if (context != null) {
+      context.cancel();
+      if (parent != null) {
+        parent.release(context);
+      }
+    }
+  }
+
+  /**
+   * Wait for a running hedge, no longer than the deadline of the call.
+   */
+  private static <T> T await(CompletableFuture<T> future, CallContext context)
+      throws IOException, BunnyStreamAPIException {
+    try {
+      long remaining = context.remainingNanos();
+      if (remaining == Long.MAX_VALUE) {
+        return future.get();
+      }
+      return future.get(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw new DeadlineExceededException();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the API.");
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    }
+  }
+
+  private static IOException unwrap(ExecutionException e) throws BunnyStreamAPIException {
+    Throwable cause = e.getCause();
+    if (cause instanceof BunnyStreamAPIException) {
+      throw (BunnyStreamAPIException) cause;
+    }
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IOException(cause);
+  }
+
+  /**
+   * Get number of hedges sent
+   *
+   * @return Hedge count
+   */
+  public long getHedgeCount() {
+    return this.hedges.sum();
+  }
+
+  /**
+   * Get number of hedges which returned before the read they hedged
+   *
+   * @return Hedge win count
+   */
+  public long getHedgeWinCount() {
+    return this.hedgeWins.sum();
+  }
+
+  /**
+   * Recent read latencies of an endpoint class, with the hedge delay derived from them.
+   */
+  private class Latencies {
+    private final long[] samples = new long[SAMPLES];
+    private int count = 0;
+    private int next = 0;
+    private volatile long hedgeDelay = -1;
+
+    long hedgeDelay() {
+      return this.hedgeDelay;
+    }
+
+    synchronized void record(long nanos) {
+      this.samples[this.next] = nanos;
+      this.next = (this.next + 1) % SAMPLES;
+      if (this.count < SAMPLES) {
+        this.count++;
+      }
+      if (this.count >= HedgePolicy.this.minSamples
+          && (this.count < SAMPLES || this.next % RECOMPUTE_EVERY == 0)) {
+        long[] sorted = Arrays.copyOf(this.samples, this.count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(HedgePolicy.this.percentile * this.count) - 1;
+        this.hedgeDelay = sorted[Math.max(0, Math.min(this.count - 1, index))];
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.bunny.net.stream;
+
+public class HedgePolicyBuilder {
+  private double percentile = 0.95;
+  private long minDelayMillis = 20;
+  private int minSamples = 20;
+  private double budgetRatio = 0.05;
+  private int budgetReserve = 5;
+  private int maxConcurrentHedges = 8;
+
+  /**
+   * Set latency percentile after which a hedge is sent
+   *
+   * @param percentile Percentile between 0 and 1 (e.g. 0.95 for p95)
+   * @return HedgePolicyBuilder
+   */
+  public HedgePolicyBuilder percentile(double percentile) {
+    this.percentile = percentile;
+    return this;
+  }
+
+  /**
+   * Set shortest delay before a hedge is sent
+   *
+   * @param minDelayMillis Minimum delay in milliseconds
+   * @return HedgePolicyBuilder
+   */
+  public HedgePolicyBuilder minDelay(long minDelayMillis) {
+    this.minDelayMillis = minDelayMillis;
+    return this;
+  }
+
+  /**
+   * Set number of latency samples needed before hedging starts
+   *
+   * @param minSamples Number of samples
+   * @return HedgePolicyBuilder
+   */
+  public HedgePolicyBuilder minSamples(int minSamples) {
+    this.minSamples = minSamples;
+    return this;
+  }
+
+  /**
+   * Set hedge budget. Every read earns ratio hedges and every hedge spends one, with a reserve for
+   * bursts, so hedging never adds more than that share of extra load.
+   *
+   * @param ratio Hedges earned per read (e.g. 0.05 for at most 5% extra reads)
+   * @param reserve Hedges which may be spent before any are earned, and most which can be saved
+   * @return HedgePolicyBuilder
+   */
+  public HedgePolicyBuilder budget(double ratio, int reserve) {
+    this.budgetRatio = ratio;
+    this.budgetReserve = reserve;
+    return this;
+  }
+
+  /**
+   * Set most hedges running at the same time. Hedges run on threads of their own, and a slow read
+   * is not hedged while all of them are busy.
+   *
+   * @param maxConcurrentHedges Number of hedge threads
+   * @return HedgePolicyBuilder
+   */
+  public HedgePolicyBuilder maxConcurrentHedges(int maxConcurrentHedges) {
+    this.maxConcurrentHedges = maxConcurrentHedges;
+    return this;
+  }
+
+  /**
+   * Build HedgePolicy from the given parameters
+   *
+   * @return HedgePolicy
+   */
+  public HedgePolicy build() {
+    return new HedgePolicy(this.percentile, this.minDelayMillis, this.minSamples,
+        this.budgetRatio, this.budgetReserve, this.maxConcurrentHedges);
+  }
+
+}
@@ -0,0 +1,86 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time copy of a latency histogram. All values are in nanoseconds.
+ */
+public class HistogramSnapshot {
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  /**
+   * HistogramSnapshot (Obtain from MetricsRecorder)
+   *
+   * @param counts Count per bucket
+   * @param count Total count
+   * @param sum Sum of all values
+   * @param max Highest value
+   */
+  HistogramSnapshot(long[] counts, long count, long sum, long max) {
+    this.counts = counts;
+    this.count = count;
+    this.sum = sum;
+    this.max = max;
+  }
+
+  /**
+   * Get number of recorded values
+   *
+   * @return Count
+   */
+  public long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Get mean of the recorded values
+   *
+   * @return Mean in nanoseconds (0 if empty)
+   */
+  public long getMean() {
+    return this.count > 0 ? this.sum / this.count : 0;
+  }
+
+  /**
+   * Get highest recorded value
+   *
+   * @return Maximum in nanoseconds
+   */
+  public long getMax() {
+    return this.max;
+  }
+
+  /**
+   * Get the value below which the given fraction of the recorded values fall.
+   *
+   * @param percentile Percentile between 0 and 1 (e.g. 0.99)
+   * @return Value in nanoseconds (0 if empty)
+   */
+  public long getPercentile(double percentile) {
+    if (this.count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, percentile)) * this.count));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return Math.min(LatencyHistogram.highestValue(i), this.max);
+      }
+    }
+    return this.max;
+  }
+
+  /**
+   * Get a percentile in milliseconds, for display.
+   *
+   * @param percentile Percentile between 0 and 1 (e.g. 0.99)
+   * @return Value in milliseconds
+   */
+  public double getPercentileMillis(double percentile) {
+    return this.getPercentile(percentile) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,110 @@
+package com.bunny.net.stream;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.Executor;
+
+/**
+ * Builds a Transport on the JDK's java.net.http client (Java 11 and later). It negotiates HTTP/2
+ * where the server supports it, so many concurrent requests share a few connections instead of
+ * each needing its own from a pool.
+ *
+ * <p>The library is compiled for Java 8, so the transport is loaded reflectively and the jar still
+ * runs on older runtimes, where {@link #isSupported()} is false.
+ *
+ * <p>Deadlines and cancellation are only enforced reliably on JDK 16 and later. On JDK 11 to 15
+ * the java.net.http client ignores the cancellation of a request which is waiting for its response
+ * headers, so such a request is only aborted once the response timeout passes (a request still
+ * sending its body, or reading its response, is aborted on any JDK).
+ */
+public class JdkTransportBuilder {
+  private static final String TRANSPORT_CLASS = "com.bunny.net.stream.JdkTransport";
+
+  private boolean http2 = true;
+  private int connectTimeoutMillis = 10000;
+  private int responseTimeoutMillis = 60000;
+  private Executor executor = null;
+
+  /**
+   * Check whether the running JDK has the java.net.http client.
+   *
+   * @return true if a JDK transport can be built
+   */
+  public static boolean isSupported() {
+    try {
+      Class.forName("java.net.http.HttpClient");
+      return true;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Set whether HTTP/2 is used where the server supports it
+   *
+   * @param http2 true for HTTP/2 with fallback to HTTP/1.1, false for HTTP/1.1 only
+   * @return JdkTransportBuilder
+   */
+  public JdkTransportBuilder http2(boolean http2) {
+    this.http2 = http2;
+    return this;
+  }
+
+  /**
+   * Set how long to wait for a connection to be established
+   *
+   * @param connectTimeoutMillis Connect timeout in milliseconds (0 for no limit)
+   * @return JdkTransportBuilder
+   */
+  public JdkTransportBuilder connectTimeout(int connectTimeoutMillis) {
+    this.connectTimeoutMillis = connectTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set how long to wait for the response headers of a request
+   *
+   * @param responseTimeoutMillis Response timeout in milliseconds (0 for no limit)
+   * @return JdkTransportBuilder
+   */
+  public JdkTransportBuilder responseTimeout(int responseTimeoutMillis) {
+    this.responseTimeoutMillis = responseTimeoutMillis;
+    return this;
+  }
+
+  /**
+   * Set the executor of the client's internal tasks
+   *
+   * @param executor Executor (null for the client's own)
+   * @return JdkTransportBuilder
+   */
+  public JdkTransportBuilder executor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  /**
+   * Build the Transport from the given parameters
+   *
+   * @return Transport
+   * @throws UnsupportedOperationException The running JDK has no java.net.http client
+   */
+  public Transport build() {
+    if (!isSupported()) {
+      throw new UnsupportedOperationException("The JDK transport requires Java 11 or later.");
+    }
+    try {
+      Constructor<?> constructor = Class.forName(TRANSPORT_CLASS)
+          .getDeclaredConstructor(boolean.class, int.class, int.class, Executor.class);
+      return (Transport) constructor.newInstance(this.http2, this.connectTimeoutMillis,
+          this.responseTimeoutMillis, this.executor);
+    } catch (InvocationTargetException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new UnsupportedOperationException("The JDK transport could not be created.", e);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new UnsupportedOperationException("The JDK transport could not be created.", e);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram: every power of
+ * two is split into 64 buckets, so recorded values keep a precision of about 1.5% from nanoseconds
+ * up to an hour while recording stays a single atomic increment.
+ */
+class LatencyHistogram {
+  private static final int SUB_BITS = 7;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int HALF = SUB >> 1;
+  private static final long MAX_VALUE = TimeUnit.HOURS.toNanos(1);
+  private static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Record a value.
+   *
+   * @param nanos Value in nanoseconds (clamped to an hour)
+   */
+  void record(long nanos) {
+    long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+    this.counts.incrementAndGet(index(value));
+    this.sum.add(value);
+    long current = this.max.get();
+    while (value > current && !this.max.compareAndSet(current, value)) {
+      current = this.max.get();
+    }
+  }
+
+  /**
+   * Copy the current state. Values recorded while copying may or may not be included.
+   *
+   * @return HistogramSnapshot
+   */
+  HistogramSnapshot snapshot() {
+    long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = this.counts.get(i);
+      count += counts[i];
+    }
+    return new HistogramSnapshot(counts, count, this.sum.sum(), this.max.get());
+  }
+
+  private static int index(long value) {
+    if (value < SUB) {
+      return (int) value;
+    }
+    int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    return SUB + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+  }
+
+  /**
+   * Get the highest value which falls in a bucket.
+   */
+  static long highestValue(int index) {
+    if (index < SUB) {
+      return index;
+    }
+    int shift = (index - SUB) / HALF + 1;
+    long lowest = (long) ((index - SUB) % HALF + HALF) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -1,62 +1,133 @@
 package com.bunny.net.stream;
 
 import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
+/**
+ * Page of videos returned from the API. The page is decoded once, when the response is created,
+ * and the JSON object is only kept with retainRaw. Counts which are absent from the response are
+ * reported as {@link Video#ABSENT}.
+ */
 public class ListVideoResponse extends BunnyStreamResponse {
+  private final int totalItems;
+  private final int currentPage;
+  private final int itemsPerPage;
+  private final ArrayList<Video> videos;
 
   /**
    * ListVideoResponse
-   * 
+   *
    * @param json JSONObject response from API
    */
   public ListVideoResponse(JSONObject json) {
-    super(json);
+    this(json, false);
+  }
+
+  /**
+   * ListVideoResponse
+   *
+   * @param json JSONObject response from API
+   * @param retainRaw Whether the response and its videos keep their JSON objects for getRaw
+   */
+  public ListVideoResponse(JSONObject json, boolean retainRaw) {
+    super(retainRaw ? json : null);
+    this.totalItems = json.optInt("totalItems", Video.ABSENT);
+    this.currentPage = json.optInt("currentPage", Video.ABSENT);
+    this.itemsPerPage = json.optInt("itemsPerPage", Video.ABSENT);
+    JSONArray items = json.optJSONArray("items");
+    int length = items != null ? items.length() : 0;
+    this.videos = new ArrayList<Video>(length);
+    for (int i = 0; i < length; i++) {
+      this.videos.add(new Video(items.getJSONObject(i), retainRaw));
+    }
   }
 
   /**
    * Get total number of videos
-   * 
+   *
    * @return Total number of videos
    */
   public int getTotalItems() {
-    return super.response.getInt("totalItems");
+    return this.totalItems;
   }
-  
+
   /**
    * Get current page
-   * 
+   *
    * @return Current page number
    */
   public int getCurrentPage() {
-    return super.response.getInt("currentPage");
+    return this.currentPage;
   }
-  
+
   /**
    * Get items shown per page
-   * 
+   *
    * @return Items shown per page
    */
   public int getItemsPerPage() {
-    return super.response.getInt("itemsPerPage");
+    return this.itemsPerPage;
   }
-  
+
   /**
-   * Get list of videos.
-   * 
+   * Get list of videos. Every call returns a copy, so the list may be changed by the caller.
+   *
    * @return List of Video objects containing video data.
    */
-  @SuppressWarnings("unchecked")
   public ArrayList<Video> getList() {
-    List<Object> l = super.response.getJSONArray("items").toList();
-    ArrayList<Video> vidArr = new ArrayList<Video>();
-    l.forEach(t -> {
-      vidArr.add(new Video(new JSONObject((Map<String, Object>) t)));
-    });
+    return new ArrayList<Video>(this.videos);
+  }
 
-    return vidArr;
+  /**
+   * Check whether the raw JSON object was kept
+   *
+   * @return true if {@link #getRaw(String)} is available
+   */
+  public boolean hasRaw() {
+    return super.response != null;
+  }
+
+  /**
+   * Get raw value from the response, if it was created with retainRaw (see
+   * {@link BunnyStream#setRetainRaw(boolean)}).
+   *
+   * @param key The key of the value you wish to obtain
+   * @return Raw object.
+   * @throws JSONException If the key is not found
+   * @throws IllegalStateException If the raw JSON object was not kept
+   */
+  @Override
+  public Object getRaw(String key) throws JSONException {
+    if (super.response == null) {
+      throw new IllegalStateException("Raw JSON was not retained for this response.");
+    }
+    return super.response.get(key);
+  }
+
+  /**
+   * Get JSON string of response.
+   *
+   * @return JSON string
+   */
+  @Override
+  public String toString() {
+    if (super.response != null) {
+      return super.response.toString();
+    }
+    JSONObject obj = new JSONObject();
+    if (this.totalItems != Video.ABSENT)
+      obj.put("totalItems", this.totalItems);
+    if (this.currentPage != Video.ABSENT)
+      obj.put("currentPage", this.currentPage);
+    if (this.itemsPerPage != Video.ABSENT)
+      obj.put("itemsPerPage", this.itemsPerPage);
+    JSONArray items = new JSONArray();
+    for (Video video : this.videos) {
+      items.put(new JSONObject(video.toString()));
+    }
+    obj.put("items", items);
+    return obj.toString();
   }
-  
 }
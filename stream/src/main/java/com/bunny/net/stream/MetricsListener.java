@@ -0,0 +1,16 @@
+package com.bunny.net.stream;
+
+/**
+ * Receives the measurements of every API call made by a BunnyStream client. Implement it to feed
+ * the metrics library of your choice, or use the built-in MetricsRecorder.
+ */
+@FunctionalInterface
+public interface MetricsListener {
+  /**
+   * Called once a call has completed, after all of its retries. Runs on the thread which made the
+   * call, so keep it short.
+   *
+   * @param metrics Measurements of the call
+   */
+  void onCall(CallMetrics metrics);
+}
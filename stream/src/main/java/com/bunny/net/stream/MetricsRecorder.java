@@ -0,0 +1,97 @@
+package com.bunny.net.stream;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in MetricsListener which keeps latency histograms and counters per method and endpoint
+ * template. Recording is lock-free and does not allocate once an endpoint has been seen, so it can
+ * stay enabled in production. Read the metrics with {@link #snapshot()}.
+ */
+public class MetricsRecorder implements MetricsListener {
+  private final ConcurrentHashMap<String, Endpoint> endpoints =
+      new ConcurrentHashMap<String, Endpoint>();
+
+  @Override
+  public void onCall(CallMetrics metrics) {
+    String key = metrics.getMethod() + " " + metrics.getEndpoint();
+    Endpoint endpoint = this.endpoints.get(key);
+    if (endpoint == null) {
+      endpoint = this.endpoints.computeIfAbsent(key,
+          k -> new Endpoint(metrics.getMethod(), metrics.getEndpoint()));
+    }
+    endpoint.record(metrics);
+  }
+
+  /**
+   * Copy the current metrics.
+   *
+   * @return EndpointMetrics by method and endpoint template (e.g. "GET /videos/{id}"), sorted
+   */
+  public Map<String, EndpointMetrics> snapshot() {
+    Map<String, EndpointMetrics> snapshot = new TreeMap<String, EndpointMetrics>();
+    for (Map.Entry<String, Endpoint> entry : this.endpoints.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return snapshot;
+  }
+
+  /**
+   * Forget all metrics recorded so far.
+   */
+  public void reset() {
+    this.endpoints.clear();
+  }
+
+  private static class Endpoint {
+    private final String method;
+    private final String endpoint;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final LongAdder[] statusClasses = new LongAdder[6];
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram poolWait = new LatencyHistogram();
+
+    Endpoint(String method, String endpoint) {
+      this.method = method;
+      this.endpoint = endpoint;
+      for (int i = 0; i < this.statusClasses.length; i++) {
+        this.statusClasses[i] = new LongAdder();
+      }
+    }
+
+    void record(CallMetrics metrics) {
+      this.calls.increment();
+      if (metrics.getError() != null) {
+        this.errors.increment();
+      }
+      if (metrics.isRejectedLocally()) {
+        this.rejected.increment();
+      }
+      this.retries.add(metrics.getRetries());
+      this.requestBytes.add(metrics.getRequestBytes());
+      this.responseBytes.add(metrics.getResponseBytes());
+      int statusClass = metrics.getStatus() / 100;
+      this.statusClasses[statusClass > 0 && statusClass < 6 ? statusClass : 0].increment();
+      this.latency.record(metrics.getLatencyNanos());
+      this.poolWait.record(metrics.getPoolWaitNanos());
+    }
+
+    EndpointMetrics snapshot() {
+      long[] statusClasses = new long[this.statusClasses.length];
+      for (int i = 0; i < statusClasses.length; i++) {
+        statusClasses[i] = this.statusClasses[i].sum();
+      }
+      return new EndpointMetrics(this.method, this.endpoint, this.calls.sum(), this.errors.sum(),
+          this.rejected.sum(), this.retries.sum(), this.requestBytes.sum(),
+          this.responseBytes.sum(), statusClasses, this.latency.snapshot(),
+          this.poolWait.snapshot());
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.bunny.net.stream;
+
+/**
+ * Thrown when a request is not sent because the client-side rate limiter has no permit for it
+ * within the configured wait. Reported with HTTP code 429, like a limit enforced by the API.
+ */
+public class RateLimitExceededException extends BunnyStreamAPIException {
+
+  /**
+   * Generated serial version UID
+   */
+  private static final long serialVersionUID = -3524617305841257215L;
+
+  /**
+   * RateLimitExceededException
+   * 
+   * @param message The error message to return
+   */
+  public RateLimitExceededException(String message) {
+    super(message, 429);
+  }
+}
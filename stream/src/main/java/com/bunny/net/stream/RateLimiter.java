@@ -0,0 +1,229 @@
+package com.bunny.net.stream;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client-side rate limiter with separate budgets for reads and writes, per API key (and optionally
+ * per library). Each budget is a token bucket kept as a single timestamp: every request reserves
+ * the next slot with a compare-and-set and waits until the slot starts, so the limiter is lock-free
+ * and requests beyond the burst are spaced evenly instead of arriving in waves.
+ *
+ * <p>Share one limiter between all clients using the same API key, so they draw from the same
+ * budget.
+ */
+public class RateLimiter {
+  private final long readInterval;
+  private final long writeInterval;
+  private final int burst;
+  private final boolean perLibrary;
+  private final long maxWaitNanos;
+  private final ConcurrentHashMap<String, AtomicLong> buckets =
+      new ConcurrentHashMap<String, AtomicLong>();
+  private final LongAdder delayed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * RateLimiter (Obtain by building a limiter with RateLimiterBuilder)
+   *
+   * @param readsPerSecond Read requests per second (0 for no limit)
+   * @param writesPerSecond Write requests per second (0 for no limit)
+   * @param burst Requests which may be sent at once
+   * @param perLibrary Whether every library gets its own budget
+   * @param maxWaitMillis Maximum wait for a permit in milliseconds (-1 to wait as long as needed)
+   */
+  RateLimiter(double readsPerSecond, double writesPerSecond, int burst, boolean perLibrary,
+      long maxWaitMillis) {
+    this.readInterval = interval(readsPerSecond);
+    this.writeInterval = interval(writesPerSecond);
+    this.burst = Math.max(1, burst);
+    this.perLibrary = perLibrary;
+    this.maxWaitNanos = maxWaitMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+  }
+
+  private static long interval(double perSecond) {
+    return perSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / perSecond) : 0;
+  }
+
+  /**
+   * Wait for a permit as configured (blocking, timed or fail-fast).
+   *
+   * @param apiKey API key
+   * @param streamLibraryId Library ID
+   * @param write Whether the request is a write
+   * @throws RateLimitExceededException No permit within the configured wait
+   * @throws DeadlineExceededException No permit before the deadline of the call
+   * @throws InterruptedIOException Interrupted or cancelled while waiting
+   */
+  void permit(String apiKey, int streamLibraryId, boolean write)
+      throws RateLimitExceededException, InterruptedIOException {
+    long maxWaitNanos = this.maxWaitNanos;
+    boolean deadline = false;
+    CallContext context = CallContext.current();
+    if (context != null) {
+      long remaining = Math.max(0, context.remainingNanos());
+      if (maxWaitNanos < 0 || remaining < maxWaitNanos) {
+        maxWaitNanos = remaining;
+        deadline = remaining != Long.MAX_VALUE;
+      }
+    }
+    long interval = write ? this.writeInterval : this.readInterval;
+    if (interval == 0) {
+      return;
+    }
+    AtomicLong bucket = this.bucket(apiKey, streamLibraryId, write);
+    long wait = this.reserve(bucket, interval, maxWaitNanos);
+    if (wait < 0) {
+      if (deadline) {
+        throw new DeadlineExceededException();
+      }
+      throw new RateLimitExceededException("Client rate limit exceeded");
+    }
+    if (wait == 0) {
+      return;
+    }
+    try {
+      // Ends early when the call is cancelled
+      CallContext.sleep(wait, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      // The request is not sent, so its slot is given back
+      bucket.addAndGet(-interval);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for the rate limiter.");
+    } catch (CallCancelledException | DeadlineExceededException e) {
+      bucket.addAndGet(-interval);
+      throw e;
+    }
+  }
+
+  /**
+   * Wait as long as needed for a permit.
+   *
+   * @param apiKey API key
+   * @param streamLibraryId Library ID
+   * @param write Whether the request is a write
+   * @throws InterruptedException Interrupted while waiting
+   */
+  public void acquire(String apiKey, int streamLibraryId, boolean write)
+      throws InterruptedException {
+    this.acquire(apiKey, streamLibraryId, write, -1);
+  }
+
+  /**
+   * Take a permit if one is available right away.
+   *
+   * @param apiKey API key
+   * @param streamLibraryId Library ID
+   * @param write Whether the request is a write
+   * @return true if a permit was taken
+   */
+  public boolean tryAcquire(String apiKey, int streamLibraryId, boolean write) {
+    try {
+      return this.acquire(apiKey, streamLibraryId, write, 0);
+    } catch (InterruptedException e) {
+      // Does not wait
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Wait at most the given time for a permit. If the permit would not be available in time, no
+   * time is spent waiting.
+   *
+   * @param apiKey API key
+   * @param streamLibraryId Library ID
+   * @param write Whether the request is a write
+   * @param timeout Maximum wait
+   * @param unit Unit of the timeout
+   * @return true if a permit was taken
+   * @throws InterruptedException Interrupted while waiting
+   */
+  public boolean tryAcquire(String apiKey, int streamLibraryId, boolean write, long timeout,
+      TimeUnit unit) throws InterruptedException {
+    return this.acquire(apiKey, streamLibraryId, write, unit.toNanos(timeout));
+  }
+
+  private boolean acquire(String apiKey, int streamLibraryId, boolean write, long maxWaitNanos)
+      throws InterruptedException {
+    long interval = write ? this.writeInterval : this.readInterval;
+    if (interval == 0) {
+      return true;
+    }
+    AtomicLong bucket = this.bucket(apiKey, streamLibraryId, write);
+    long wait = this.reserve(bucket, interval, maxWaitNanos);
+    if (wait < 0) {
+      return false;
+    }
+    if (wait > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      } catch (InterruptedException e) {
+        bucket.addAndGet(-interval);
+        throw e;
+      }
+    }
+    return true;
+  }
+
+  private AtomicLong bucket(String apiKey, int streamLibraryId, boolean write) {
+    String key = (write ? "w:" : "r:") + apiKey
+        + (this.perLibrary ? ":" + streamLibraryId : "");
+    AtomicLong bucket = this.buckets.get(key);
+    if (bucket == null) {
+      bucket = this.buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+    }
+    return bucket;
+  }
+
+  /**
+   * Reserve the next slot of a bucket.
+   *
+   * @return Time to wait for the slot in nanoseconds, or -1 if it is further away than the
+   *         maximum wait (nothing is reserved then)
+   */
+  private long reserve(AtomicLong bucket, long interval, long maxWaitNanos) {
+    // The bucket holds the time at which it is empty again. A request fits while that time is at
+    // most (burst - 1) intervals ahead, and otherwise waits for the difference.
+    long tolerance = (this.burst - 1) * interval;
+    long previous;
+    long base;
+    long wait;
+    do {
+      long now = System.nanoTime();
+      previous = bucket.get();
+      base = previous - now > 0 ? previous : now;
+      wait = Math.max(0, base - tolerance - now);
+      if (maxWaitNanos >= 0 && wait > maxWaitNanos) {
+        this.rejected.increment();
+        return -1;
+      }
+    } while (!bucket.compareAndSet(previous, base + interval));
+
+    if (wait > 0) {
+      this.delayed.increment();
+    }
+    return wait;
+  }
+
+  /**
+   * Get number of requests which had to wait for a permit
+   *
+   * @return Delayed count
+   */
+  public long getDelayedCount() {
+    return this.delayed.sum();
+  }
+
+  /**
+   * Get number of requests which did not get a permit
+   *
+   * @return Rejected count
+   */
+  public long getRejectedCount() {
+    return this.rejected.sum();
+  }
+}
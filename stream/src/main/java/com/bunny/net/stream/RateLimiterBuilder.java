@@ -0,0 +1,97 @@
+package com.bunny.net.stream;
+
+public class RateLimiterBuilder {
+  private double readsPerSecond = 0;
+  private double writesPerSecond = 0;
+  private int burst = 5;
+  private boolean perLibrary = false;
+  private long maxWaitMillis = -1;
+
+  /**
+   * Set rate of read requests (GET)
+   *
+   * @param readsPerSecond Requests per second (0 for no limit)
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder readsPerSecond(double readsPerSecond) {
+    this.readsPerSecond = readsPerSecond;
+    return this;
+  }
+
+  /**
+   * Set rate of write requests (POST, PUT and DELETE)
+   *
+   * @param writesPerSecond Requests per second (0 for no limit)
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder writesPerSecond(double writesPerSecond) {
+    this.writesPerSecond = writesPerSecond;
+    return this;
+  }
+
+  /**
+   * Set number of requests which may be sent at once after an idle period. Beyond that, requests
+   * are spaced evenly at the configured rate.
+   *
+   * @param burst Number of requests
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder burst(int burst) {
+    this.burst = burst;
+    return this;
+  }
+
+  /**
+   * Set whether every library gets its own budget. By default all libraries using the same API
+   * key share one.
+   *
+   * @param perLibrary true for a budget per library
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder perLibrary(boolean perLibrary) {
+    this.perLibrary = perLibrary;
+    return this;
+  }
+
+  /**
+   * Wait as long as needed for a permit (default).
+   *
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder blocking() {
+    this.maxWaitMillis = -1;
+    return this;
+  }
+
+  /**
+   * Wait at most the given time for a permit, then fail with RateLimitExceededException.
+   *
+   * @param maxWaitMillis Maximum wait in milliseconds
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder timeout(long maxWaitMillis) {
+    this.maxWaitMillis = maxWaitMillis;
+    return this;
+  }
+
+  /**
+   * Fail with RateLimitExceededException right away when no permit is available.
+   *
+   * @return RateLimiterBuilder
+   */
+  public RateLimiterBuilder failFast() {
+    this.maxWaitMillis = 0;
+    return this;
+  }
+
+  /**
+   * Build RateLimiter from the given parameters
+   *
+   * @return RateLimiter
+   */
+  public RateLimiter build() {
+    return new RateLimiter(this.readsPerSecond, this.writesPerSecond, this.burst, this.perLibrary,
+        this.maxWaitMillis);
+  }
+
+}
@@ -2,24 +2,22 @@ package com.bunny.net.stream;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
-import java.nio.file.Files;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.List;
-import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.ClientProtocolException;
-import org.apache.http.client.ResponseHandler;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpPut;
-import org.apache.http.client.methods.HttpDelete;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 public class Requests {
 
@@ -31,7 +29,7 @@ public class Requests {
    * @return URI including query parameters
    * @throws UnsupportedEncodingException Should not occur.
    */
-  private static String addQueryParameters(String baseUrl, List<NameValuePair> parameters)
+  static String addQueryParameters(String baseUrl, List<NameValuePair> parameters)
       throws UnsupportedEncodingException {
     String url = baseUrl;
     boolean isFirstParameter = true;
@@ -48,6 +46,20 @@ public class Requests {
     return url;
   }
 
+  /**
+   * Build a JSON request body from form parameters.
+   * 
+   * @param form Parameters to send in the body.
+   * @return JSONObject Body
+   */
+  static JSONObject jsonBody(List<NameValuePair> form) {
+    JSONObject obj = new JSONObject();
+    for (NameValuePair nvp : form) {
+      obj.put(nvp.getName(), nvp.getValue());
+    }
+    return obj;
+  }
+
   /**
    * Post request helper for application/json requests.
    * 
@@ -91,37 +103,62 @@ public class Requests {
    */
   public static JSONObject post(String apiKey, String uri, List<NameValuePair> form,
       String contentType) throws BunnyStreamAPIException, Exception {
-    try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-      HttpPost httpPost = new HttpPost(uri);
+    return post(ConnectionPool.getDefault().getClient(), apiKey, uri, form, contentType);
+  }
 
-      // Set required HTTP headers
-      httpPost.addHeader("AccessKey", apiKey);
-      httpPost.addHeader("Content-Type", contentType);
+  /**
+   * Post request to the API.
+   * 
+   * @param httpclient The (pooled) HTTP client to execute the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the POST request.
+   * @param form Parameters to send along with the POST request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response.
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  public static JSONObject post(CloseableHttpClient httpclient, String apiKey, String uri,
+      List<NameValuePair> form, String contentType) throws BunnyStreamAPIException, IOException {
+    return post(new ApacheTransport(httpclient), apiKey, uri, form, contentType);
+  }
 
-      // Add form parameters
-      JSONObject obj = new JSONObject();
-      for (NameValuePair nvp : form) {
-        obj.put(nvp.getName(), nvp.getValue());
-      }
+  /**
+   * Post request to the API.
+   * 
+   * @param transport The transport to send the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the POST request.
+   * @param form Parameters to send along with the POST request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response.
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  static JSONObject post(Transport transport, String apiKey, String uri, List<NameValuePair> form,
+      String contentType) throws BunnyStreamAPIException, IOException {
+    byte[] body = jsonBody(form).toString().getBytes(StandardCharsets.UTF_8);
+    return post(transport, apiKey, uri, Transport.Body.of(body, contentType), contentType);
+  }
 
-      httpPost.setEntity(new StringEntity(obj.toString(), "UTF-8"));
-
-      ResponseHandler<String> responseHandler = response -> {
-        int status = response.getStatusLine().getStatusCode();
-        if (status >= 200 && status < 300) {
-          HttpEntity responseEntity = response.getEntity();
-          return responseEntity != null ? EntityUtils.toString(responseEntity) : null;
-        } else {
-          throw new ClientProtocolException(Integer.toString(status));
-        }
-      };
-      String responseBody = httpclient.execute(httpPost, responseHandler);
-      return new JSONObject(responseBody);
-    } catch (ClientProtocolException e) {
-      throw new BunnyStreamAPIException("API returned error code", Integer.parseInt(e.getMessage()));
-    } catch (Exception e) {
-      throw e;
-    }
+  /**
+   * Post request to the API with a prepared request body.
+   * 
+   * @param transport The transport to send the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the POST request.
+   * @param body Body to send with the post request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response.
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Body could not be sent.
+   */
+  static JSONObject post(Transport transport, String apiKey, String uri, Transport.Body body,
+      String contentType) throws IOException, BunnyStreamAPIException {
+    return send(transport, new Transport.Request("POST", uri)
+        .header("AccessKey", apiKey)
+        .header("Content-Type", contentType)
+        .body(body));
   }
 
   /**
@@ -138,33 +175,47 @@ public class Requests {
    */
   public static JSONObject put(String apiKey, String uri, File file, String contentType)
       throws IOException, BunnyStreamAPIException, Exception {
-    try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-      HttpPut httpPut = new HttpPut(uri);
-
-      // Set required HTTP headers
-      httpPut.addHeader("AccessKey", apiKey);
-      httpPut.addHeader("Content-Type", contentType);
-
-      httpPut.setEntity(new ByteArrayEntity(Files.readAllBytes(file.toPath())));
-
-      ResponseHandler<String> responseHandler = response -> {
-        int status = response.getStatusLine().getStatusCode();
-        if (status >= 200 && status < 300) {
-          HttpEntity responseEntity = response.getEntity();
-          return responseEntity != null ? EntityUtils.toString(responseEntity) : null;
-        } else {
-          throw new ClientProtocolException(Integer.toString(status));
-        }
-      };
-      String responseBody = httpclient.execute(httpPut, responseHandler);
-      return new JSONObject(responseBody);
-    } catch (ClientProtocolException e) {
-      throw new BunnyStreamAPIException("API returned error code", Integer.parseInt(e.getMessage()));
-    } catch (IOException e) {
-      throw e;
-    } catch (Exception e) {
-      throw e;
-    }
+    return put(ConnectionPool.getDefault().getClient(), apiKey, uri, file, contentType);
+  }
+
+  /**
+   * Put request to the API.
+   * 
+   * @param httpclient The (pooled) HTTP client to execute the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the PUT request.
+   * @param file File to send with the put request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response.
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws Exception Unhandled exception
+   * @throws IOException File could not be read.
+   */
+  public static JSONObject put(CloseableHttpClient httpclient, String apiKey, String uri,
+      File file, String contentType) throws IOException, BunnyStreamAPIException, Exception {
+    // Stream the file from disk instead of loading it on the heap
+    return put(new ApacheTransport(httpclient), apiKey, uri,
+        new FileRangeEntity(file, "application/octet-stream"), contentType);
+  }
+
+  /**
+   * Put request to the API with a prepared request body.
+   * 
+   * @param transport The transport to send the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the PUT request.
+   * @param body Body to send with the put request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response.
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Body could not be sent.
+   */
+  static JSONObject put(Transport transport, String apiKey, String uri, Transport.Body body,
+      String contentType) throws IOException, BunnyStreamAPIException {
+    return send(transport, new Transport.Request("PUT", uri)
+        .header("AccessKey", apiKey)
+        .header("Content-Type", contentType)
+        .body(body));
   }
 
   /**
@@ -178,29 +229,41 @@ public class Requests {
    * @throws Exception Unhandled exception
    */
   public static JSONObject delete(String apiKey, String uri, String contentType) throws BunnyStreamAPIException, Exception {
-    try (CloseableHttpClient httpclient = HttpClients.createDefault()) {
-      HttpDelete httpDelete = new HttpDelete(uri);
-
-      // Set required HTTP headers
-      httpDelete.addHeader("AccessKey", apiKey);
-      httpDelete.addHeader("Content-Type", contentType);
-
-      ResponseHandler<String> responseHandler = response -> {
-        int status = response.getStatusLine().getStatusCode();
-        if (status >= 200 && status < 300) {
-          HttpEntity responseEntity = response.getEntity();
-          return responseEntity != null ? EntityUtils.toString(responseEntity) : null;
-        } else {
-          throw new ClientProtocolException(Integer.toString(status));
-        }
-      };
-      String responseBody = httpclient.execute(httpDelete, responseHandler);
-      return new JSONObject(responseBody);
-    } catch (ClientProtocolException e) {
-      throw new BunnyStreamAPIException("API returned error code", Integer.parseInt(e.getMessage()));
-    } catch (Exception e) {
-      throw e;
-    }
+    return delete(ConnectionPool.getDefault().getClient(), apiKey, uri, contentType);
+  }
+
+  /**
+   * Delete request to the API.
+   * 
+   * @param httpclient The (pooled) HTTP client to execute the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the DELETE request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  public static JSONObject delete(CloseableHttpClient httpclient, String apiKey, String uri,
+      String contentType) throws BunnyStreamAPIException, IOException {
+    return delete(new ApacheTransport(httpclient), apiKey, uri, contentType);
+  }
+
+  /**
+   * Delete request to the API.
+   * 
+   * @param transport The transport to send the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the DELETE request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  static JSONObject delete(Transport transport, String apiKey, String uri, String contentType)
+      throws BunnyStreamAPIException, IOException {
+    return send(transport, new Transport.Request("DELETE", uri)
+        .header("AccessKey", apiKey)
+        .header("Content-Type", contentType));
   }
 
 
@@ -217,35 +280,167 @@ public class Requests {
    */
   public static JSONObject get(String apiKey, String uri, List<NameValuePair> parameters,
       String contentType) throws BunnyStreamAPIException, Exception {
+    return get(ConnectionPool.getDefault().getClient(), apiKey, uri, parameters, contentType);
+  }
+
+  /**
+   * Get request to the API.
+   * 
+   * @param httpclient The (pooled) HTTP client to execute the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the GET request.
+   * @param parameters Query parameters to send along with the GET request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  public static JSONObject get(CloseableHttpClient httpclient, String apiKey, String uri,
+      List<NameValuePair> parameters, String contentType)
+      throws BunnyStreamAPIException, IOException {
+    return get(new ApacheTransport(httpclient), apiKey, uri, parameters, contentType);
+  }
+
+  /**
+   * Get request to the API.
+   * 
+   * @param transport The transport to send the request with.
+   * @param apiKey The API key.
+   * @param uri Target of the GET request.
+   * @param parameters Query parameters to send along with the GET request.
+   * @param contentType The content type. Ex: application/json
+   * @return JSONObject Response
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  static JSONObject get(Transport transport, String apiKey, String uri,
+      List<NameValuePair> parameters, String contentType)
+      throws BunnyStreamAPIException, IOException {
+    String target = uri;
     try {
-      CloseableHttpClient httpclient = HttpClients.createDefault();
-      String target = uri;
       if (parameters != null) {
         target = addQueryParameters(target, parameters);
       }
-      HttpGet httpGet = new HttpGet(target);
-
-      // Set required HTTP headers
-      httpGet.addHeader("AccessKey", apiKey);
-      httpGet.addHeader("Content-Type", contentType);
-
-      ResponseHandler<String> responseHandler = response -> {
-        int status = response.getStatusLine().getStatusCode();
-        if (status >= 200 && status < 300) {
-          HttpEntity responseEntity = response.getEntity();
-          return responseEntity != null ? EntityUtils.toString(responseEntity) : null;
-        } else {
-          throw new ClientProtocolException(Integer.toString(status));
-        }
-      };
-      String responseBody = httpclient.execute(httpGet, responseHandler);
-      return new JSONObject(responseBody);
-    } catch (ClientProtocolException e) {
-      throw new BunnyStreamAPIException("API returned error code", Integer.parseInt(e.getMessage()));
     } catch (UnsupportedEncodingException e) {
-      throw new Exception("Should not occur. Please contact support.");
-    } catch (Exception e) {
-      throw e;
+      throw new IOException("Should not occur. Please contact support.");
+    }
+    return send(transport, new Transport.Request("GET", target)
+        .header("AccessKey", apiKey)
+        .header("Content-Type", contentType));
+  }
+
+  /**
+   * Send a request with the given transport and parse the JSON response. The response is decoded
+   * directly from the connection's input stream, without buffering the body as a String first.
+   * The connection is always released back to the pool, also when the API returns an error. Within
+   * a BunnyStream call, the request is aborted when the call is cancelled or its deadline passes.
+   * 
+   * @param transport The transport to send the request with.
+   * @param request The request to send.
+   * @return JSONObject Response
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException Connection or protocol error
+   */
+  private static JSONObject send(Transport transport, Transport.Request request)
+      throws BunnyStreamAPIException, IOException {
+    Exchange exchange = Exchange.current();
+    if (exchange != null && request.getBody() != null
+        && request.getBody().getContentLength() > 0) {
+      exchange.requestBytes.add(request.getBody().getContentLength());
+    }
+    Transport.Handler<JSONObject> responseHandler = response -> {
+      int status = response.getStatus();
+      if (exchange != null) {
+        exchange.status = status;
+      }
+      if (status >= 200 && status < 300) {
+        return parse(response, exchange);
+      } else {
+        throw new StatusException(status, retryAfter(response.getHeader("Retry-After")));
+      }
+    };
+    try {
+      return CallContext.execute(transport.newCall(request), responseHandler);
+    } catch (StatusException e) {
+      throw new BunnyStreamAPIException("API returned error code", e.status, e.retryAfterMillis);
+    }
+  }
+
+  /**
+   * Parse a Retry-After header, given either in seconds or as an HTTP date.
+   * 
+   * @param header The header (may be null)
+   * @return Delay in milliseconds, or -1 if absent or malformed
+   */
+  private static long retryAfter(String header) {
+    if (header == null) {
+      return -1;
+    }
+    String value = header.trim();
+    try {
+      return Math.max(0, Long.parseLong(value) * 1000);
+    } catch (NumberFormatException e) {
+      Date date = DateUtils.parseDate(value);
+      return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Non-2xx response, carried out of the response handler. As a ClientProtocolException, Apache
+   * HttpClient still consumes the body and reuses the connection.
+   */
+  private static class StatusException extends ClientProtocolException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final long retryAfterMillis;
+
+    StatusException(int status, long retryAfterMillis) {
+      super(Integer.toString(status));
+      this.status = status;
+      this.retryAfterMillis = retryAfterMillis;
+    }
+  }
+
+  /**
+   * Parse a JSON object from a response while it is being read.
+   * 
+   * @param response The response.
+   * @param exchange Exchange counting the bytes read (may be null)
+   * @return JSONObject Response (empty if the response has no body)
+   * @throws IOException Connection error
+   */
+  private static JSONObject parse(Transport.Response response, Exchange exchange)
+      throws IOException {
+    InputStream body = response.getBody();
+    PushbackInputStream content =
+        new PushbackInputStream(exchange != null ? exchange.count(body) : body);
+    int first = content.read();
+    if (first < 0) {
+      return new JSONObject();
+    }
+    content.unread(first);
+    try (Reader reader = new InputStreamReader(content, charset(response))) {
+      return new JSONObject(new JSONTokener(reader));
+    }
+  }
+
+  /**
+   * Get the charset of a response from its Content-Type header.
+   * 
+   * @return Charset of the response, UTF-8 if not given or unknown
+   */
+  private static Charset charset(Transport.Response response) {
+    String contentType = response.getHeader("Content-Type");
+    int start = contentType != null ? contentType.toLowerCase().indexOf("charset=") : -1;
+    if (start >= 0) {
+      String name = contentType.substring(start + 8).split(";")[0].trim().replace("\"", "");
+      try {
+        return Charset.forName(name);
+      } catch (IllegalArgumentException e) {
+        // Fall back to the JSON default
+      }
     }
+    return StandardCharsets.UTF_8;
   }
 }
@@ -0,0 +1,142 @@
+package com.bunny.net.stream;
+
+import java.io.File;
+
+public class ResumableUploadQueryBuilder {
+  private final String videoId;
+  private final File file;
+  private File checkpoint = null;
+  private long chunkSize = 16L * 1024 * 1024;
+  private int maxRetries = 10;
+
+  /**
+   * ResumableUploadQuery builder
+   *
+   * @param videoId Video ID of the video you wish to attach to the upload
+   * @param file File object of the video
+   */
+  public ResumableUploadQueryBuilder(String videoId, File file) {
+    this.videoId = videoId;
+    this.file = file;
+  }
+
+  /**
+   * Set checkpoint file. Acknowledged offsets are recorded in it, so an interrupted upload can be
+   * resumed, also after a restart. Defaults to the video file name with ".upload" appended.
+   *
+   * @param checkpoint Checkpoint file
+   * @return ResumableUploadQueryBuilder
+   */
+  public ResumableUploadQueryBuilder checkpoint(File checkpoint) {
+    this.checkpoint = checkpoint;
+    return this;
+  }
+
+  /**
+   * Set chunk size
+   *
+   * @param chunkSize Number of bytes sent per request
+   * @return ResumableUploadQueryBuilder
+   */
+  public ResumableUploadQueryBuilder chunkSize(long chunkSize) {
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * Set maximum number of consecutive failed attempts before the upload is given up
+   *
+   * @param maxRetries Maximum number of consecutive retries
+   * @return ResumableUploadQueryBuilder
+   */
+  public ResumableUploadQueryBuilder maxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  /**
+   * Build ResumableUploadQuery from the given parameters
+   *
+   * @return ResumableUploadQuery
+   */
+  public ResumableUploadQuery build() {
+    File checkpointFile = this.checkpoint;
+    if (checkpointFile == null) {
+      checkpointFile = new File(this.file.getPath() + ".upload");
+    }
+    return new ResumableUploadQuery(this.videoId, this.file, checkpointFile, this.chunkSize,
+        this.maxRetries);
+  }
+
+  public class ResumableUploadQuery {
+    private final String videoId;
+    private final File file;
+    private final File checkpoint;
+    private final long chunkSize;
+    private final int maxRetries;
+
+    /**
+     * ResumableUploadQuery
+     *
+     * @param videoId Video ID
+     * @param file File object of the video
+     * @param checkpoint Checkpoint file
+     * @param chunkSize Number of bytes sent per request
+     * @param maxRetries Maximum number of consecutive retries
+     */
+    public ResumableUploadQuery(String videoId, File file, File checkpoint, long chunkSize,
+        int maxRetries) {
+      this.videoId = videoId;
+      this.file = file;
+      this.checkpoint = checkpoint;
+      this.chunkSize = chunkSize;
+      this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Get video ID
+     *
+     * @return Video ID
+     */
+    public String getVideoId() {
+      return this.videoId;
+    }
+
+    /**
+     * Get file
+     *
+     * @return File object of the video
+     */
+    public File getFile() {
+      return this.file;
+    }
+
+    /**
+     * Get checkpoint file
+     *
+     * @return Checkpoint file
+     */
+    public File getCheckpoint() {
+      return this.checkpoint;
+    }
+
+    /**
+     * Get chunk size
+     *
+     * @return Number of bytes sent per request
+     */
+    public long getChunkSize() {
+      return this.chunkSize;
+    }
+
+    /**
+     * Get maximum number of retries
+     *
+     * @return Maximum number of consecutive retries
+     */
+    public int getMaxRetries() {
+      return this.maxRetries;
+    }
+  }
+
+}
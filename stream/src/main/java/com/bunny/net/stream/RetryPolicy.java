@@ -0,0 +1,176 @@
+package com.bunny.net.stream;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLException;
+
+/**
+ * Decides whether and when a failed API request is retried. Transient errors are retried with
+ * exponential backoff and jitter: rate limiting (429) for every request, and connection errors and
+ * 408/502/503/504 responses for idempotent requests only. A Retry-After header sent by the API
+ * overrides the backoff. All attempts together are bounded by the deadline of the call, if any.
+ * A request whose body can only be sent once, e.g. read from an InputStream, is never retried.
+ *
+ * <p>A policy is thread-safe and may be shared between clients, which then share its retry budget.
+ */
+public class RetryPolicy {
+  /**
+   * Policy which never retries.
+   */
+  public static final RetryPolicy NONE = new RetryPolicyBuilder().maxAttempts(1).build();
+
+  private final int maxAttempts;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final long maxRetryAfterMillis;
+  private final boolean retryNonIdempotent;
+  private final AttemptListener listener;
+  private final Budget budget;
+
+  /**
+   * RetryPolicy (Obtain by building a policy with RetryPolicyBuilder)
+   *
+   * @param maxAttempts Maximum number of attempts per request
+   * @param baseDelayMillis Delay cap of the first retry in milliseconds
+   * @param maxDelayMillis Maximum delay cap in milliseconds
+   * @param maxRetryAfterMillis Maximum Retry-After delay in milliseconds
+   * @param budgetRatio Retries earned per request
+   * @param budgetReserve Retries which may be saved up
+   * @param retryNonIdempotent Whether requests which are not idempotent are retried
+   * @param listener AttemptListener (may be null)
+   */
+  RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long maxRetryAfterMillis,
+      double budgetRatio, int budgetReserve, boolean retryNonIdempotent, AttemptListener listener) {
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    this.maxRetryAfterMillis = maxRetryAfterMillis;
+    this.retryNonIdempotent = retryNonIdempotent;
+    this.listener = listener;
+    this.budget = new Budget(budgetRatio, budgetReserve);
+  }
+
+  /**
+   * Request which can be attempted more than once.
+   */
+  @FunctionalInterface
+  interface Call<T> {
+    T call() throws IOException, BunnyStreamAPIException;
+  }
+
+  /**
+   * Run a request, retrying it according to this policy.
+   *
+   * @param method HTTP method
+   * @param uri Request URI
+   * @param idempotent Whether repeating the request has no further effect
+   * @param repeatable Whether the body of the request can be sent more than once
+   * @param call The request
+   * @return Result of the request
+   * @throws BunnyStreamAPIException Error returned from the API by the last attempt
+   * @throws IOException Connection error of the last attempt, or interrupted while waiting
+   */
+  <T> T execute(String method, String uri, boolean idempotent, boolean repeatable, Call<T> call)
+      throws IOException, BunnyStreamAPIException {
+    this.budget.earn();
+    for (int attempt = 1;; attempt++) {
+      T result;
+      try {
+        result = call.call();
+      } catch (BunnyStreamAPIException | IOException e) {
+        long delay = repeatable ? this.retryDelay(e, attempt, idempotent) : -1;
+        this.report(method, uri, attempt, e, delay);
+        if (delay < 0) {
+          throw e;
+        }
+        try {
+          // Woken right away when the call is cancelled
+          CallContext.sleep(delay);
+        } catch (CallCancelledException | DeadlineExceededException stopped) {
+          stopped.addSuppressed(e);
+          throw stopped;
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          InterruptedIOException interrupted = new InterruptedIOException("Interrupted while "
+              + "waiting to retry.");
+          interrupted.initCause(e);
+          throw interrupted;
+        }
+        continue;
+      }
+      this.report(method, uri, attempt, null, -1);
+      return result;
+    }
+  }
+
+  /**
+   * Get the delay before retrying a failed attempt.
+   *
+   * @return Delay in milliseconds, or -1 if the attempt is not retried
+   */
+  private long retryDelay(Exception e, int attempt, boolean idempotent) {
+    if (attempt >= this.maxAttempts || Thread.currentThread().isInterrupted()
+        || e instanceof DeadlineExceededException || e instanceof CallCancelledException) {
+      return -1;
+    }
+
+    long retryAfter = -1;
+    if (e instanceof RateLimitExceededException || e instanceof CircuitOpenException) {
+      // Rejected by the client itself, retrying right away would be rejected again
+      return -1;
+    } else if (e instanceof BunnyStreamAPIException) {
+      BunnyStreamAPIException apiError = (BunnyStreamAPIException) e;
+      int code = apiError.getHttpCode();
+      if (code == 429) {
+        // Rejected before it was processed, so safe to repeat
+      } else if (code == 408 || code == 502 || code == 503 || code == 504) {
+        if (!idempotent && !this.retryNonIdempotent) {
+          return -1;
+        }
+      } else {
+        return -1;
+      }
+      retryAfter = apiError.getRetryAfterMillis();
+      if (retryAfter > this.maxRetryAfterMillis) {
+        return -1;
+      }
+    } else if (e instanceof UnknownHostException || e instanceof SSLException
+        || (!idempotent && !this.retryNonIdempotent)) {
+      return -1;
+    }
+
+    long cap = Math.min(this.maxDelayMillis,
+        this.baseDelayMillis << Math.min(attempt - 1, 30));
+    long backoff = cap > 0 ? ThreadLocalRandom.current().nextLong(cap + 1) : 0;
+    long delay = Math.max(retryAfter, backoff);
+
+    // Do not start a retry which the deadline of the call would cut short anyway
+    CallContext context = CallContext.current();
+    if (context != null && (context.isCancelled()
+        || TimeUnit.MILLISECONDS.toNanos(delay) >= context.remainingNanos())) {
+      return -1;
+    }
+    if (!this.budget.spend()) {
+      return -1;
+    }
+    return delay;
+  }
+
+  private void report(String method, String uri, int attempt, Exception error, long delay) {
+    if (this.listener != null) {
+      this.listener.onAttempt(method, uri, attempt, error, delay);
+    }
+  }
+
+  /**
+   * Get number of retries left in the budget
+   *
+   * @return Retries left
+   */
+  public double getBudget() {
+    return this.budget.get();
+  }
+}
@@ -0,0 +1,100 @@
+package com.bunny.net.stream;
+
+public class RetryPolicyBuilder {
+  private int maxAttempts = 4;
+  private long baseDelayMillis = 200;
+  private long maxDelayMillis = 10000;
+  private long maxRetryAfterMillis = 60000;
+  private double budgetRatio = 0.1;
+  private int budgetReserve = 10;
+  private boolean retryNonIdempotent = false;
+  private AttemptListener listener = null;
+
+  /**
+   * Set maximum number of attempts per request, including the first one
+   *
+   * @param maxAttempts Maximum number of attempts (1 to disable retries)
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+    return this;
+  }
+
+  /**
+   * Set exponential backoff. The n-th retry waits a random time between zero and
+   * min(maxDelay, baseDelay * 2^(n-1)) (full jitter).
+   *
+   * @param baseDelayMillis Delay cap of the first retry in milliseconds
+   * @param maxDelayMillis Maximum delay cap in milliseconds
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder backoff(long baseDelayMillis, long maxDelayMillis) {
+    this.baseDelayMillis = baseDelayMillis;
+    this.maxDelayMillis = maxDelayMillis;
+    return this;
+  }
+
+  /**
+   * Set longest Retry-After delay which is waited for. If the API asks for a longer delay, the
+   * error is returned instead.
+   *
+   * @param maxRetryAfterMillis Maximum Retry-After delay in milliseconds
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder maxRetryAfter(long maxRetryAfterMillis) {
+    this.maxRetryAfterMillis = maxRetryAfterMillis;
+    return this;
+  }
+
+  /**
+   * Set retry budget, shared by all requests using the policy. Every request earns ratio retries
+   * and every retry spends one, with a reserve for bursts. When the budget is spent, errors are
+   * returned without retrying, so an outage does not multiply the load on the API.
+   *
+   * @param ratio Retries earned per request (e.g. 0.1 for at most 10% extra requests)
+   * @param reserve Retries which may be spent before any are earned, and most which can be saved
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder budget(double ratio, int reserve) {
+    this.budgetRatio = ratio;
+    this.budgetReserve = reserve;
+    return this;
+  }
+
+  /**
+   * Set whether requests which are not idempotent (creating or fetching a video) are retried after
+   * connection errors and 5xx responses as well. This may create duplicates. Rate limited (429)
+   * requests were not processed and are always retried.
+   *
+   * @param retryNonIdempotent true to retry requests which are not idempotent
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder retryNonIdempotent(boolean retryNonIdempotent) {
+    this.retryNonIdempotent = retryNonIdempotent;
+    return this;
+  }
+
+  /**
+   * Set listener which is called after every attempt
+   *
+   * @param listener AttemptListener
+   * @return RetryPolicyBuilder
+   */
+  public RetryPolicyBuilder listener(AttemptListener listener) {
+    this.listener = listener;
+    return this;
+  }
+
+  /**
+   * Build RetryPolicy from the given parameters
+   *
+   * @return RetryPolicy
+   */
+  public RetryPolicy build() {
+    return new RetryPolicy(this.maxAttempts, this.baseDelayMillis, this.maxDelayMillis,
+        this.maxRetryAfterMillis, this.budgetRatio, this.budgetReserve, this.retryNonIdempotent,
+        this.listener);
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent identical calls. While a call for a key is in flight, other callers with
+ * the same key wait for it and receive its result or error instead of making a call of their own.
+ * Nothing is kept once the call has completed. Callers wait no longer than their own deadline, stop
+ * waiting when their own call is cancelled, and make a call of their own when the one they joined
+ * was cancelled or timed out by its caller.
+ */
+class SingleFlight {
+  private final ConcurrentHashMap<String, CompletableFuture<Object>> calls =
+      new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+  /**
+   * Run a call, or join the one already in flight for the same key.
+   *
+   * @param key Key identifying the call (e.g. URL and query parameters)
+   * @param call The call
+   * @return Result of the call
+   * @throws Exception Error thrown by the call
+   */
+  @SuppressWarnings("unchecked")
+  <T> T execute(String key, Callable<T> call) throws Exception {
+    for (;;) {
+      CompletableFuture<Object> flight = new CompletableFuture<Object>();
+      CompletableFuture<Object> existing = this.calls.putIfAbsent(key, flight);
+      if (existing == null) {
+        try {
+          T result = call.call();
+          this.calls.remove(key, flight);
+          flight.complete(result);
+          return result;
+        } catch (Throwable t) {
+          this.calls.remove(key, flight);
+          flight.completeExceptionally(t);
+          throw t;
+        }
+      }
+
+      try {
+        // Through the context of this caller, so its cancellation ends the wait
+        return (T) CallContext.await(existing);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof CallCancelledException || cause instanceof DeadlineExceededException) {
+          // The call we joined was cut short by its own caller, so make one of our own
+          CallContext.checkCurrent();
+          continue;
+        }
+        if (cause instanceof Exception) {
+          throw (Exception) cause;
+        }
+        throw (Error) cause;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,35 @@
+package com.bunny.net.stream;
+
+public class ThumbnailAssignment {
+  private final String videoId;
+  private final String thumbnailUrl;
+
+  /**
+   * ThumbnailAssignment
+   *
+   * @param videoId Video ID of the video you wish to set the thumbnail on.
+   * @param thumbnailUrl URL to the video thumbnail.
+   */
+  public ThumbnailAssignment(String videoId, String thumbnailUrl) {
+    this.videoId = videoId;
+    this.thumbnailUrl = thumbnailUrl;
+  }
+
+  /**
+   * Get video ID
+   *
+   * @return Video ID of the video
+   */
+  public String getVideoId() {
+    return this.videoId;
+  }
+
+  /**
+   * Get thumbnail URL
+   *
+   * @return URL to the video thumbnail
+   */
+  public String getThumbnailUrl() {
+    return this.thumbnailUrl;
+  }
+}
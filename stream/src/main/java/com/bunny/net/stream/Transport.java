@@ -0,0 +1,255 @@
+package com.bunny.net.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * HTTP layer of a BunnyStream client. The client builds transport-neutral requests and hands them
+ * to its transport, so the HTTP implementation can be swapped without touching the API calls.
+ *
+ * <p>{@link ApacheTransport} (Apache HttpClient with a ConnectionPool) is the default. On Java 11
+ * and later, {@link JdkTransportBuilder} builds a transport on the JDK's java.net.http client,
+ * which multiplexes concurrent requests over a few HTTP/2 connections.
+ *
+ * <p>A transport must be thread-safe. Retries, deadlines, rate limiting and metrics are handled by
+ * the client on top of it.
+ */
+public interface Transport extends Closeable {
+  /**
+   * Prepare a request. Nothing is sent until the call is executed.
+   *
+   * @param request The request
+   * @return Call which sends the request once
+   */
+  Call newCall(Request request);
+
+  /**
+   * A single exchange of a request and its response.
+   */
+  interface Call {
+    /**
+     * Send the request and hand the response to the handler. The response body is released when
+     * the handler returns, so the handler must read everything it needs.
+     *
+     * @param handler Handles the response
+     * @return Result of the handler
+     * @throws IOException Connection or protocol error, or the call was aborted
+     */
+    <T> T execute(Handler<T> handler) throws IOException;
+
+    /**
+     * Abort the call from another thread, e.g. when its deadline passes. A call in flight fails
+     * with an IOException, and a call which has not started fails when it is executed.
+     */
+    void abort();
+  }
+
+  /**
+   * Reads a response.
+   */
+  @FunctionalInterface
+  interface Handler<T> {
+    T handle(Response response) throws IOException;
+  }
+
+  /**
+   * Response of a call, valid until its handler returns.
+   */
+  interface Response {
+    /**
+     * Get status code
+     *
+     * @return HTTP status code
+     */
+    int getStatus();
+
+    /**
+     * Get header
+     *
+     * @param name Header name (case insensitive)
+     * @return First value of the header, or null if absent
+     */
+    String getHeader(String name);
+
+    /**
+     * Get body
+     *
+     * @return Body of the response (empty if it has none)
+     * @throws IOException Connection error
+     */
+    InputStream getBody() throws IOException;
+  }
+
+  /**
+   * Body of a request, written to the connection while the request is sent.
+   */
+  interface Body {
+    /**
+     * Get content type
+     *
+     * @return The content type. Ex: application/json
+     */
+    String getContentType();
+
+    /**
+     * Get content length
+     *
+     * @return Length in bytes, or -1 if unknown (sent chunked)
+     */
+    long getContentLength();
+
+    /**
+     * Check whether the body can be written more than once, e.g. to retry the request
+     *
+     * @return true if repeatable
+     */
+    boolean isRepeatable();
+
+    /**
+     * Open the body for reading. Transports which pull the body (java.net.http) read it from here,
+     * so no thread is needed to push it.
+     *
+     * @return Stream of the body, closed by the caller
+     * @throws IOException Body could not be opened, or was already sent and is not repeatable
+     */
+    InputStream open() throws IOException;
+
+    /**
+     * Write the body.
+     *
+     * @param out Stream to write to (not to be closed)
+     * @throws IOException Body could not be read or written
+     */
+    default void writeTo(OutputStream out) throws IOException {
+      try (InputStream in = this.open()) {
+        byte[] buffer = new byte[FileRangeEntity.BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+          out.write(buffer, 0, read);
+        }
+      }
+    }
+
+    /**
+     * Body with the given bytes.
+     *
+     * @param content Content of the body
+     * @param contentType The content type. Ex: application/json
+     * @return Body
+     */
+    static Body of(byte[] content, String contentType) {
+      return new Body() {
+        @Override
+        public String getContentType() {
+          return contentType;
+        }
+
+        @Override
+        public long getContentLength() {
+          return content.length;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+          return true;
+        }
+
+        @Override
+        public InputStream open() {
+          return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+          out.write(content);
+        }
+      };
+    }
+  }
+
+  /**
+   * Request to send.
+   */
+  class Request {
+    private final String method;
+    private final String uri;
+    private final Map<String, String> headers = new LinkedHashMap<String, String>();
+    private Body body = null;
+
+    /**
+     * Request
+     *
+     * @param method HTTP method
+     * @param uri Target of the request
+     */
+    public Request(String method, String uri) {
+      this.method = method;
+      this.uri = uri;
+    }
+
+    /**
+     * Set header
+     *
+     * @param name Header name
+     * @param value Header value
+     * @return Request
+     */
+    public Request header(String name, String value) {
+      this.headers.put(name, value);
+      return this;
+    }
+
+    /**
+     * Set body
+     *
+     * @param body Body of the request
+     * @return Request
+     */
+    public Request body(Body body) {
+      this.body = body;
+      return this;
+    }
+
+    /**
+     * Get method
+     *
+     * @return HTTP method
+     */
+    public String getMethod() {
+      return this.method;
+    }
+
+    /**
+     * Get URI
+     *
+     * @return Target of the request
+     */
+    public String getUri() {
+      return this.uri;
+    }
+
+    /**
+     * Get headers
+     *
+     * @return Headers in the order they were set
+     */
+    public Map<String, String> getHeaders() {
+      return Collections.unmodifiableMap(this.headers);
+    }
+
+    /**
+     * Get body
+     *
+     * @return Body of the request, or null if it has none
+     */
+    public Body getBody() {
+      return this.body;
+    }
+  }
+}
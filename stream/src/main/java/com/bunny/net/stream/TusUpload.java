@@ -0,0 +1,343 @@
+package com.bunny.net.stream;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Properties;
+import com.bunny.net.stream.ResumableUploadQueryBuilder.ResumableUploadQuery;
+
+/**
+ * Resumable, chunked upload using the TUS protocol. Acknowledged offsets are recorded in a
+ * checkpoint file, so an upload continues from the last good offset after a network error or a
+ * restart of the process.
+ */
+class TusUpload {
+  private static final String TUS_VERSION = "1.0.0";
+  private static final long SIGNATURE_VALIDITY_SECONDS = 24 * 60 * 60;
+  private static final long MAX_BACKOFF_MILLIS = 30000;
+
+  private final Transport transport;
+  private final String apiKey;
+  private final int streamLibraryId;
+  private final String endpoint;
+  private final ResumableUploadQuery ruq;
+
+  /**
+   * TusUpload
+   *
+   * @param transport The transport to send the requests with
+   * @param apiKey The API key
+   * @param streamLibraryId Bunny Stream library ID
+   * @param endpoint TUS upload endpoint
+   * @param ruq ResumableUploadQuery
+   */
+  TusUpload(Transport transport, String apiKey, int streamLibraryId, String endpoint,
+      ResumableUploadQuery ruq) {
+    this.transport = transport;
+    this.apiKey = apiKey;
+    this.streamLibraryId = streamLibraryId;
+    this.endpoint = endpoint;
+    this.ruq = ruq;
+  }
+
+  /**
+   * Run the upload until the whole file has been acknowledged. The checkpoint file is removed
+   * once the upload is complete.
+   *
+   * @throws BunnyStreamAPIException Error returned from the API
+   * @throws IOException The file could not be read, or the retries were exhausted
+   * @throws InterruptedException Interrupted while waiting to retry
+   */
+  void run() throws BunnyStreamAPIException, IOException, InterruptedException {
+    File file = this.ruq.getFile();
+    long length = file.length();
+    Checkpoint checkpoint = Checkpoint.load(this.ruq.getCheckpoint());
+    if (checkpoint != null && !checkpoint.matches(this.ruq.getVideoId(), file)) {
+      checkpoint = null;
+    }
+
+    long offset = -1;
+    int failures = 0;
+    while (true) {
+      try {
+        if (checkpoint == null) {
+          checkpoint = new Checkpoint(this.ruq.getVideoId(), file, this.create(length));
+          checkpoint.save(this.ruq.getCheckpoint());
+          offset = 0;
+        } else if (offset < 0) {
+          offset = this.head(checkpoint.uploadUrl);
+          if (offset < 0) {
+            // The server no longer knows this upload, so start over
+            checkpoint = null;
+            continue;
+          }
+          if (offset > length) {
+            throw new ProtocolException("Upload-Offset " + offset + " is beyond the upload length "
+                + length + ".");
+          }
+        }
+
+        while (offset < length) {
+          long chunk = Math.min(this.ruq.getChunkSize(), length - offset);
+          offset = this.patch(checkpoint.uploadUrl, file, offset, chunk);
+          checkpoint.offset = offset;
+          checkpoint.save(this.ruq.getCheckpoint());
+          failures = 0;
+        }
+
+        Files.deleteIfExists(this.ruq.getCheckpoint().toPath());
+        return;
+      } catch (RetryableException | IOException e) {
+        // Give up right away when the call was cancelled or ran out of time
+        CallContext.checkCurrent();
+        if (++failures > this.ruq.getMaxRetries()) {
+          throw new IOException("Resumable upload failed after " + (failures - 1) + " retries.", e);
+        }
+        offset = -1;
+        // Cut short by cancellation, and never waits past the deadline
+        CallContext.sleep(Math.min(MAX_BACKOFF_MILLIS, 500L << Math.min(failures - 1, 16)));
+      }
+    }
+  }
+
+  /**
+   * Create the upload on the server.
+   *
+   * @param length Total upload length
+   * @return Upload URL
+   */
+  private String create(long length)
+      throws BunnyStreamAPIException, RetryableException, IOException {
+    Transport.Request request = this.request("POST", this.endpoint)
+        .header("Upload-Length", Long.toString(length))
+        .header("Upload-Metadata", "filetype " + Base64.getEncoder()
+            .encodeToString("video/mp4".getBytes(StandardCharsets.UTF_8)));
+
+    Response response = this.execute(request);
+    if (response.status != 201 || response.location == null) {
+      throw response.toException();
+    }
+    return URI.create(this.endpoint).resolve(response.location).toString();
+  }
+
+  /**
+   * Get the offset acknowledged by the server.
+   *
+   * @param uploadUrl Upload URL
+   * @return Offset, or -1 if the upload is unknown to the server
+   */
+  private long head(String uploadUrl)
+      throws BunnyStreamAPIException, RetryableException, IOException {
+    Response response = this.execute(this.request("HEAD", uploadUrl));
+    if (response.status == 404 || response.status == 410) {
+      return -1;
+    }
+    if (response.status / 100 != 2 || response.offset < 0) {
+      throw response.toException();
+    }
+    return response.offset;
+  }
+
+  /**
+   * Send a chunk of the file. An offset conflict or an unknown upload is retried, which first asks
+   * the server where to continue. An acknowledged offset which does not move forward, or moves
+   * past the chunk, is a protocol error, so a misbehaving server cannot keep the upload resending
+   * the same chunk forever.
+   *
+   * @return New offset
+   */
+  private long patch(String uploadUrl, File file, long offset, long chunk)
+      throws BunnyStreamAPIException, RetryableException, IOException {
+    Transport.Request request = this.request("PATCH", uploadUrl)
+        .header("Upload-Offset", Long.toString(offset))
+        .header("Content-Type", "application/offset+octet-stream")
+        .body(new FileRangeEntity(file, offset, chunk, "application/offset+octet-stream", null));
+
+    Response response = this.execute(request);
+    if (response.status == 409 || response.status == 404 || response.status == 410) {
+      throw new RetryableException(response.status);
+    }
+    if (response.status / 100 != 2 || response.offset < 0) {
+      throw response.toException();
+    }
+    if (response.offset <= offset || response.offset > offset + chunk) {
+      throw new ProtocolException("Upload-Offset " + response.offset + " does not acknowledge the "
+          + "chunk of " + chunk + " bytes sent at offset " + offset + ".");
+    }
+    return response.offset;
+  }
+
+  /**
+   * Create a request with the TUS and authorization headers.
+   *
+   * @param method HTTP method
+   * @param uri Target of the request
+   * @return The request
+   */
+  private Transport.Request request(String method, String uri) throws IOException {
+    long expire = System.currentTimeMillis() / 1000 + SIGNATURE_VALIDITY_SECONDS;
+    return new Transport.Request(method, uri)
+        .header("Tus-Resumable", TUS_VERSION)
+        .header("AuthorizationSignature", sign(Integer.toString(this.streamLibraryId)
+            + this.apiKey + expire + this.ruq.getVideoId()))
+        .header("AuthorizationExpire", Long.toString(expire))
+        .header("VideoId", this.ruq.getVideoId())
+        .header("LibraryId", Integer.toString(this.streamLibraryId));
+  }
+
+  private Response execute(Transport.Request request) throws IOException {
+    return CallContext.execute(this.transport.newCall(request), response -> {
+      String location = response.getHeader("Location");
+      return new Response(response.getStatus(), offset(response.getHeader("Upload-Offset")),
+          location);
+    });
+  }
+
+  /**
+   * Parse an Upload-Offset header.
+   *
+   * @param value Header value (may be null)
+   * @return Offset, or -1 if the header is absent
+   * @throws ProtocolException Malformed header
+   */
+  private static long offset(String value) throws ProtocolException {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      long offset = Long.parseLong(value.trim());
+      if (offset >= 0) {
+        return offset;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new ProtocolException("Malformed Upload-Offset header: " + value);
+  }
+
+  /**
+   * SHA-256 hex digest, as required by the TUS authorization signature.
+   *
+   * @param value Value to sign
+   * @return Hex encoded digest
+   */
+  private static String sign(String value) throws IOException {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException("SHA-256 is not available.", e);
+    }
+  }
+
+  private static class Response {
+    private final int status;
+    private final long offset;
+    private final String location;
+
+    Response(int status, long offset, String location) {
+      this.status = status;
+      this.offset = offset;
+      this.location = location;
+    }
+
+    /**
+     * Server errors and rate limiting are worth retrying, anything else is not.
+     */
+    BunnyStreamAPIException toException() throws RetryableException {
+      if (this.status == 429 || this.status >= 500) {
+        throw new RetryableException(this.status);
+      }
+      return new BunnyStreamAPIException("API returned error code", this.status);
+    }
+  }
+
+  private static class RetryableException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    RetryableException(int status) {
+      super(Integer.toString(status));
+    }
+  }
+
+  /**
+   * Upload state persisted between attempts.
+   */
+  private static class Checkpoint {
+    private final String videoId;
+    private final long fileLength;
+    private final long fileLastModified;
+    private final String uploadUrl;
+    private long offset;
+
+    Checkpoint(String videoId, File file, String uploadUrl) {
+      this(videoId, file.length(), file.lastModified(), uploadUrl, 0);
+    }
+
+    private Checkpoint(String videoId, long fileLength, long fileLastModified, String uploadUrl,
+        long offset) {
+      this.videoId = videoId;
+      this.fileLength = fileLength;
+      this.fileLastModified = fileLastModified;
+      this.uploadUrl = uploadUrl;
+      this.offset = offset;
+    }
+
+    /**
+     * Whether this checkpoint belongs to the given upload, and the file did not change since.
+     */
+    boolean matches(String videoId, File file) {
+      return this.videoId.equals(videoId) && this.fileLength == file.length()
+          && this.fileLastModified == file.lastModified();
+    }
+
+    static Checkpoint load(File checkpoint) {
+      if (!checkpoint.isFile()) {
+        return null;
+      }
+      Properties p = new Properties();
+      try (FileInputStream in = new FileInputStream(checkpoint)) {
+        p.load(in);
+        return new Checkpoint(p.getProperty("videoId"), Long.parseLong(p.getProperty("fileLength")),
+            Long.parseLong(p.getProperty("fileLastModified")), p.getProperty("uploadUrl"),
+            Long.parseLong(p.getProperty("offset")));
+      } catch (IOException | RuntimeException e) {
+        // Unreadable checkpoint, start a new upload
+        return null;
+      }
+    }
+
+    /**
+     * Write the checkpoint to a temporary file first, so a crash never leaves a partial file.
+     */
+    void save(File checkpoint) throws IOException {
+      Properties p = new Properties();
+      p.setProperty("videoId", this.videoId);
+      p.setProperty("fileLength", Long.toString(this.fileLength));
+      p.setProperty("fileLastModified", Long.toString(this.fileLastModified));
+      p.setProperty("uploadUrl", this.uploadUrl);
+      p.setProperty("offset", Long.toString(this.offset));
+
+      File tmp = new File(checkpoint.getPath() + ".tmp");
+      try (FileOutputStream out = new FileOutputStream(tmp)) {
+        p.store(out, "Bunny Stream resumable upload");
+      }
+      Files.move(tmp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
@@ -1,203 +1,392 @@
 package com.bunny.net.stream;
 
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
+/**
+ * Video returned from the API. All fields are decoded once, when the video is created. Numeric
+ * fields which are absent from the response are reported as {@link #ABSENT} (or NaN for the frame
+ * rate), text fields as a blank string.
+ */
 public class Video {
-  private JSONObject res;
+  /**
+   * Value of numeric fields which are not present in the response.
+   */
+  public static final int ABSENT = -1;
+
+  private final int videoLibraryId;
+  private final String guid;
+  private final String title;
+  private final String dateUploaded;
+  private final long views;
+  private final boolean isPublic;
+  private final long length;
+  private final int status;
+  private final double framerate;
+  private final int width;
+  private final int height;
+  private final String availableResolutions;
+  private final long thumbnailCount;
+  private final int encodeProgress;
+  private final long storageSize;
+  private final String captions;
+  private final boolean hasMP4Fallback;
+  private final String collectionId;
+  private final String thumbnailFileName;
+  private final JSONObject res;
+
+  /**
+   * Video
+   *
+   * @param res JSONObject response from API
+   */
   public Video(JSONObject res) {
-    this.res = res;
+    this(res, false);
   }
-  
+
+  /**
+   * Video
+   *
+   * @param res JSONObject response from API
+   * @param retainRaw Whether to keep the JSON object for {@link #getRaw(String)}
+   */
+  public Video(JSONObject res, boolean retainRaw) {
+    this.videoLibraryId = (int) longField(res, "videoLibraryId");
+    this.guid = stringField(res, "guid");
+    this.title = stringField(res, "title");
+    this.dateUploaded = stringField(res, "dateUploaded");
+    this.views = longField(res, "views");
+    this.isPublic = booleanField(res, "isPublic");
+    this.length = longField(res, "length");
+    this.status = (int) longField(res, "status");
+    this.framerate = doubleField(res, "framerate");
+    this.width = (int) longField(res, "width");
+    this.height = (int) longField(res, "height");
+    this.availableResolutions = stringField(res, "availableResolutions");
+    this.thumbnailCount = longField(res, "thumbnailCount");
+    this.encodeProgress = (int) longField(res, "encodeProgress");
+    this.storageSize = longField(res, "storageSize");
+    this.captions = stringField(res, "captions");
+    this.hasMP4Fallback = booleanField(res, "hasMP4Fallback");
+    this.collectionId = stringField(res, "collectionId");
+    this.thumbnailFileName = stringField(res, "thumbnailFileName");
+    this.res = retainRaw ? res : null;
+  }
+
   /**
-   * Get field from JSON object. If it is not present, return a blank string.
-   * 
+   * Get text field from JSON object. If it is not present, return a blank string.
+   *
+   * @param res JSON object
    * @param key Key in JSON object
    * @return String value
    */
-  private String getField(String key) {
-    String s = "";
-    try {
-      s = this.res.getString(key);
-    } catch (Exception e) {
+  private static String stringField(JSONObject res, String key) {
+    Object value = res.opt(key);
+    return value == null || JSONObject.NULL.equals(value) ? "" : value.toString();
+  }
+
+  /**
+   * Get numeric field from JSON object, accepting numbers as well as numeric strings.
+   *
+   * @param res JSON object
+   * @param key Key in JSON object
+   * @return Value, or ABSENT if it is not present
+   */
+  private static long longField(JSONObject res, String key) {
+    Object value = res.opt(key);
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof String) {
+      try {
+        return Long.parseLong((String) value);
+      } catch (NumberFormatException e) {
+      }
+    }
+    return ABSENT;
+  }
+
+  /**
+   * Get decimal field from JSON object, accepting numbers as well as numeric strings.
+   *
+   * @param res JSON object
+   * @param key Key in JSON object
+   * @return Value, or NaN if it is not present
+   */
+  private static double doubleField(JSONObject res, String key) {
+    Object value = res.opt(key);
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
     }
-    return s;
+    if (value instanceof String) {
+      try {
+        return Double.parseDouble((String) value);
+      } catch (NumberFormatException e) {
+      }
+    }
+    return Double.NaN;
+  }
+
+  /**
+   * Get boolean field from JSON object. If it is not present, return false.
+   *
+   * @param res JSON object
+   * @param key Key in JSON object
+   * @return Boolean value
+   */
+  private static boolean booleanField(JSONObject res, String key) {
+    Object value = res.opt(key);
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    return value instanceof String && Boolean.parseBoolean((String) value);
   }
 
   /**
    * Get video library ID
-   * 
-   * @return Video Library ID
+   *
+   * @return Video Library ID (ABSENT if not present)
    */
   public int getVideoLibraryId() {
-    return Integer.parseInt(this.getField("videoLibraryId"));
+    return this.videoLibraryId;
   }
 
   /**
    * Get GUID (Video ID)
-   * 
+   *
    * @return GUID/Video ID
    */
   public String getGuid() {
-    return this.getField("guid");
+    return this.guid;
   }
 
   /**
    * Get video title.
-   * 
+   *
    * @return Video title
    */
   public String getTitle() {
-    return this.getField("title");
+    return this.title;
   }
 
   /**
    * Get date uploaded.
-   * 
+   *
    * @return Date uploaded
    */
   public String getDateUploaded() {
-    return this.getField("dateUploaded");
+    return this.dateUploaded;
   }
 
   /**
    * Get view count
-   * 
-   * @return View count
+   *
+   * @return View count (ABSENT if not present)
    */
   public long getViews() {
-    return Long.parseLong(this.getField("views"));
+    return this.views;
   }
 
   /**
-   * Check whether or not 
-   * 
+   * Check whether or not the video is public
+   *
    * @return Public status (true if public, false otherwise)
    */
   public boolean isPublic() {
-    return Boolean.parseBoolean(this.getField("isPublic"));
+    return this.isPublic;
   }
 
   /**
    * Get video length
-   * 
-   * @return Video length
+   *
+   * @return Video length (ABSENT if not present)
    */
   public long getLength() {
-    return Long.parseLong(this.getField("length"));
+    return this.length;
   }
 
   /**
    * Get status
-   * 
-   * @return the status
+   *
+   * @return the status code as text (blank if not present)
    */
   public String getStatus() {
-    return this.getField("status");
+    return this.status == ABSENT ? "" : Integer.toString(this.status);
+  }
+
+  /**
+   * Get status
+   *
+   * @return the status (UNKNOWN if not present)
+   */
+  public VideoStatus getVideoStatus() {
+    return VideoStatus.fromCode(this.status);
   }
 
   /**
    * Get frame rate
-   * 
-   * @return Framerate
+   *
+   * @return Framerate (NaN if not present)
    */
   public double getFrameRate() {
-    return Double.parseDouble(this.getField("framerate"));
+    return this.framerate;
   }
 
   /**
    * Get width
-   * 
-   * @return Width
+   *
+   * @return Width (ABSENT if not present)
    */
   public int getWidth() {
-    return Integer.parseInt(this.getField("width"));
+    return this.width;
   }
 
   /**
    * Get height
-   * 
-   * @return Height
+   *
+   * @return Height (ABSENT if not present)
    */
   public int getHeight() {
-    return Integer.parseInt(this.getField("height"));
+    return this.height;
   }
 
   /**
    * Get available resolutions. Will be an empty string if it is not available yet.
-   * 
+   *
    * @return The available resolutions
    */
   public String getAvailableResolutions() {
-    return this.getField("availableResolutions");
+    return this.availableResolutions;
   }
 
   /**
    * Get thumbnail count
-   * 
-   * @return the thumbnailCount
+   *
+   * @return the thumbnailCount (ABSENT if not present)
    */
-  public Long getThumbnailCount() {
-    return Long.parseLong(this.getField("thumbnailCount"));
+  public long getThumbnailCount() {
+    return this.thumbnailCount;
   }
 
   /**
    * Get encode progress
-   * 
-   * @return Encode progress
+   *
+   * @return Encode progress (ABSENT if not present)
    */
   public int getEncodeProgress() {
-    return Integer.parseInt(this.getField("encodeProgress"));
+    return this.encodeProgress;
   }
 
   /**
    * Get storage size
-   * 
-   * @return Storage size
+   *
+   * @return Storage size (ABSENT if not present)
    */
   public long getStorageSize() {
-    return Long.parseUnsignedLong(this.getField("storageSize"));
+    return this.storageSize;
   }
 
   /**
    * Get captions
-   * 
+   *
    * @return Captions
    */
   public String getCaptions() {
-    return this.getField("captions");
+    return this.captions;
   }
 
   /**
    * Get MP4 fallback status
-   * 
+   *
    * @return MP4 fallback status
    */
   public boolean isHasMP4Fallback() {
-    return Boolean.parseBoolean(this.getField("hasMP4Fallback"));
+    return this.hasMP4Fallback;
   }
 
   /**
    * Get collection ID
-   * 
+   *
    * @return Collection ID
    */
   public String getCollectionId() {
-    return this.getField("collectionId");
+    return this.collectionId;
   }
 
   /**
    * Get thumbnail filename
-   * 
+   *
    * @return Thumbnail filename
    */
   public String getThumbnailFileName() {
-    return this.getField("thumbnailFileName");
+    return this.thumbnailFileName;
   }
-  
+
+  /**
+   * Check whether the raw JSON object was kept
+   *
+   * @return true if {@link #getRaw(String)} is available
+   */
+  public boolean hasRaw() {
+    return this.res != null;
+  }
+
+  /**
+   * Get raw value from the response, if the video was created with retainRaw (see
+   * {@link BunnyStream#setRetainRaw(boolean)}).
+   *
+   * @param key The key of the value you wish to obtain
+   * @return Raw object.
+   * @throws JSONException If the key is not found
+   * @throws IllegalStateException If the raw JSON object was not kept
+   */
+  public Object getRaw(String key) throws JSONException {
+    if (this.res == null) {
+      throw new IllegalStateException("Raw JSON was not retained for this video.");
+    }
+    return this.res.get(key);
+  }
+
   /**
    * Return string representation of Video
    */
   public String toString() {
-    return this.res.toString();
+    if (this.res != null) {
+      return this.res.toString();
+    }
+    JSONObject obj = new JSONObject();
+    if (this.videoLibraryId != ABSENT)
+      obj.put("videoLibraryId", this.videoLibraryId);
+    obj.put("guid", this.guid);
+    obj.put("title", this.title);
+    obj.put("dateUploaded", this.dateUploaded);
+    if (this.views != ABSENT)
+      obj.put("views", this.views);
+    obj.put("isPublic", this.isPublic);
+    if (this.length != ABSENT)
+      obj.put("length", this.length);
+    if (this.status != ABSENT)
+      obj.put("status", this.status);
+    if (!Double.isNaN(this.framerate))
+      obj.put("framerate", this.framerate);
+    if (this.width != ABSENT)
+      obj.put("width", this.width);
+    if (this.height != ABSENT)
+      obj.put("height", this.height);
+    obj.put("availableResolutions", this.availableResolutions);
+    if (this.thumbnailCount != ABSENT)
+      obj.put("thumbnailCount", this.thumbnailCount);
+    if (this.encodeProgress != ABSENT)
+      obj.put("encodeProgress", this.encodeProgress);
+    if (this.storageSize != ABSENT)
+      obj.put("storageSize", this.storageSize);
+    if (!this.captions.isEmpty())
+      obj.put("captions",
+          this.captions.startsWith("[") ? new JSONArray(this.captions) : this.captions);
+    obj.put("hasMP4Fallback", this.hasMP4Fallback);
+    obj.put("collectionId", this.collectionId);
+    obj.put("thumbnailFileName", this.thumbnailFileName);
+    return obj.toString();
   }
 }
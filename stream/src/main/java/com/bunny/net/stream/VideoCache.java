@@ -0,0 +1,358 @@
+package com.bunny.net.stream;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process cache for getVideo and listVideos results, with a time to live and size-bounded LRU
+ * eviction. Entries are spread over independently locked segments, so concurrent readers rarely
+ * contend, and the LRU order is kept per segment. The configured maximum is split between the
+ * segments, so the cache never holds more entries than that.
+ *
+ * <p>Entries are kept per library, so one cache may be shared by clients of several libraries.
+ * Writes through BunnyStream invalidate the video they touch and every cached list page of its
+ * library: a write may add the video to a page, move it between pages or change the totals, so
+ * no page of the library is known to be unaffected. Pages of other libraries are kept. A load
+ * which raced with an invalidation is not stored. Videos track invalidations per stripe of video
+ * IDs and list pages per stripe of libraries, so invalidating one video does not discard the loads
+ * of other videos in flight.
+ */
+public class VideoCache {
+  private static final int SEGMENTS = 16;
+  private static final int GENERATION_STRIPES = 1024;
+
+  private final Segment[] videos;
+  private final Segment[] lists;
+  private final long ttlNanos;
+  private final long staleNanos;
+  private final AtomicLong[] videoGenerations = new AtomicLong[GENERATION_STRIPES];
+  private final AtomicLong[] listGenerations = new AtomicLong[GENERATION_STRIPES];
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * VideoCache (Obtain by building a cache with VideoCacheBuilder)
+   *
+   * @param maxVideos Maximum number of cached videos
+   * @param maxLists Maximum number of cached list pages
+   * @param ttlMillis Time to live in milliseconds
+   * @param staleMillis Stale-while-revalidate window in milliseconds
+   */
+  VideoCache(int maxVideos, int maxLists, long ttlMillis, long staleMillis) {
+    this.videos = segments(maxVideos, this.evictions);
+    this.lists = segments(maxLists, this.evictions);
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMillis);
+    for (int i = 0; i < GENERATION_STRIPES; i++) {
+      this.videoGenerations[i] = new AtomicLong();
+      this.listGenerations[i] = new AtomicLong();
+    }
+  }
+
+  private static Segment[] segments(int maxEntries, LongAdder evictions) {
+    // Fewer segments for a small cache, so that every segment holds at least one entry, and the
+    // capacities add up to exactly the maximum
+    int max = Math.max(0, maxEntries);
+    int count = Math.min(SEGMENTS, Integer.highestOneBit(Math.max(1, max)));
+    Segment[] segments = new Segment[count];
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment(max / count + (i < max % count ? 1 : 0), evictions);
+    }
+    return segments;
+  }
+
+  /**
+   * Get a cached video, loading it on a miss.
+   *
+   * @param libraryId Library ID
+   * @param videoId Video ID
+   * @param loader Loads the video from the API
+   * @param executor Executor for stale-while-revalidate refreshes
+   * @return Video
+   * @throws Exception Error thrown by the loader
+   */
+  Video getVideo(int libraryId, String videoId, Callable<Video> loader, Executor executor)
+      throws Exception {
+    return this.get(this.videos, key(libraryId, videoId), loader, executor);
+  }
+
+  /**
+   * Get a cached list page, loading it on a miss.
+   *
+   * @param libraryId Library ID
+   * @param query Key identifying the list query
+   * @param loader Loads the page from the API
+   * @param executor Executor for stale-while-revalidate refreshes
+   * @return ListVideoResponse
+   * @throws Exception Error thrown by the loader
+   */
+  ListVideoResponse getList(int libraryId, String query, Callable<ListVideoResponse> loader,
+      Executor executor) throws Exception {
+    return this.get(this.lists, key(libraryId, query), loader, executor);
+  }
+
+  private static String key(int libraryId, String key) {
+    return libraryId + ":" + key;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T get(Segment[] segments, String key, Callable<T> loader, Executor executor)
+      throws Exception {
+    Segment segment = segmentFor(segments, key);
+    Entry entry = segment.read(key);
+    long now = System.nanoTime();
+    if (entry != null) {
+      long age = now - entry.expiresAt;
+      if (age < 0) {
+        this.hits.increment();
+        return (T) entry.value;
+      }
+      if (age < this.staleNanos) {
+        this.staleHits.increment();
+        this.refresh(segments, segment, key, entry, loader, executor);
+        return (T) entry.value;
+      }
+    }
+
+    this.misses.increment();
+    AtomicLong generation = this.generation(segments, key);
+    long expected = generation.get();
+    T value = loader.call();
+    this.store(segment, key, value, generation, expected);
+    return value;
+  }
+
+  /**
+   * Start a background refresh of an expired entry, unless one is already running.
+   */
+  private <T> void refresh(Segment[] segments, Segment segment, String key, Entry entry,
+      Callable<T> loader, Executor executor) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    AtomicLong generation = this.generation(segments, key);
+    long expected = generation.get();
+    try {
+      executor.execute(() -> {
+        try {
+          if (!this.store(segment, key, loader.call(), generation, expected)) {
+            entry.refreshing.set(false);
+          }
+        } catch (Exception e) {
+          // Keep serving the stale copy, the next read tries again
+          entry.refreshing.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      entry.refreshing.set(false);
+    }
+  }
+
+  /**
+   * Get the generation which an invalidation of the key increments.
+   */
+  private AtomicLong generation(Segment[] segments, String key) {
+    if (segments == this.lists) {
+      // Lists are invalidated per library, so their stripe follows the library part of the key
+      return this.listGeneration(key.substring(0, key.indexOf(':')));
+    }
+    int h = key.hashCode();
+    return this.videoGenerations[(h ^ (h >>> 16)) & (GENERATION_STRIPES - 1)];
+  }
+
+  private AtomicLong listGeneration(String library) {
+    int h = library.hashCode();
+    return this.listGenerations[(h ^ (h >>> 16)) & (GENERATION_STRIPES - 1)];
+  }
+
+  /**
+   * Store a loaded value, unless its key was invalidated while it was being loaded.
+   *
+   * @return true if the value was stored
+   */
+  private boolean store(Segment segment, String key, Object value, AtomicLong generation,
+      long expected) {
+    Entry entry = new Entry(value, System.nanoTime() + this.ttlNanos);
+    segment.lock.lock();
+    try {
+      if (generation.get() != expected) {
+        return false;
+      }
+      segment.put(key, entry);
+      return true;
+    } finally {
+      segment.lock.unlock();
+    }
+  }
+
+  /**
+   * Invalidate a video and all cached list pages of its library.
+   *
+   * @param libraryId Library ID
+   * @param videoId Video ID
+   */
+  public void invalidate(int libraryId, String videoId) {
+    String key = key(libraryId, videoId);
+    String library = key(libraryId, "");
+    this.generation(this.videos, key).incrementAndGet();
+    this.listGeneration(String.valueOf(libraryId)).incrementAndGet();
+    Segment segment = segmentFor(this.videos, key);
+    segment.lock.lock();
+    try {
+      segment.remove(key);
+    } finally {
+      segment.lock.unlock();
+    }
+    for (Segment lists : this.lists) {
+      lists.lock.lock();
+      try {
+        lists.keySet().removeIf(list -> list.startsWith(library));
+      } finally {
+        lists.lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Invalidate all entries.
+   */
+  public void invalidateAll() {
+    for (AtomicLong generation : this.videoGenerations) {
+      generation.incrementAndGet();
+    }
+    for (AtomicLong generation : this.listGenerations) {
+      generation.incrementAndGet();
+    }
+    clear(this.videos);
+    clear(this.lists);
+  }
+
+  private static void clear(Segment[] segments) {
+    for (Segment segment : segments) {
+      segment.lock.lock();
+      try {
+        segment.clear();
+      } finally {
+        segment.lock.unlock();
+      }
+    }
+  }
+
+  private static Segment segmentFor(Segment[] segments, String key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & (segments.length - 1)];
+  }
+
+  /**
+   * Get number of reads served from a fresh entry
+   *
+   * @return Hit count
+   */
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  /**
+   * Get number of reads served from an expired entry while it was refreshed
+   *
+   * @return Stale hit count
+   */
+  public long getStaleHitCount() {
+    return this.staleHits.sum();
+  }
+
+  /**
+   * Get number of reads which had to be loaded from the API
+   *
+   * @return Miss count
+   */
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  /**
+   * Get number of entries evicted because the cache was full
+   *
+   * @return Eviction count
+   */
+  public long getEvictionCount() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Get number of cached entries (videos and list pages)
+   *
+   * @return Number of entries
+   */
+  public int size() {
+    int size = 0;
+    for (Segment[] segments : new Segment[][] {this.videos, this.lists}) {
+      for (Segment segment : segments) {
+        segment.lock.lock();
+        try {
+          size += segment.size();
+        } finally {
+          segment.lock.unlock();
+        }
+      }
+    }
+    return size;
+  }
+
+  private static class Entry {
+    private final Object value;
+    private final long expiresAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  /**
+   * Access-ordered map which drops its least recently used entry when full. Guarded by its lock.
+   */
+  private static class Segment extends LinkedHashMap<String, Entry> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient ReentrantLock lock = new ReentrantLock();
+    private final int capacity;
+    private final transient LongAdder evictions;
+
+    Segment(int capacity, LongAdder evictions) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+      this.evictions = evictions;
+    }
+
+    // Qualified, since on Java 8 a bare Entry here names the inherited LinkedHashMap.Entry
+    VideoCache.Entry read(String key) {
+      this.lock.lock();
+      try {
+        return this.get(key);
+      } finally {
+        this.lock.unlock();
+      }
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, VideoCache.Entry> eldest) {
+      if (this.size() > this.capacity) {
+        this.evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.bunny.net.stream;
+
+public class VideoCacheBuilder {
+  private int maxVideos = 10000;
+  private int maxLists = 1000;
+  private long ttlMillis = 60000;
+  private long staleMillis = 0;
+
+  /**
+   * Set maximum number of cached videos (getVideo results)
+   *
+   * @param maxVideos Maximum number of cached videos
+   * @return VideoCacheBuilder
+   */
+  public VideoCacheBuilder maxVideos(int maxVideos) {
+    this.maxVideos = maxVideos;
+    return this;
+  }
+
+  /**
+   * Set maximum number of cached list pages (listVideos results)
+   *
+   * @param maxLists Maximum number of cached list pages
+   * @return VideoCacheBuilder
+   */
+  public VideoCacheBuilder maxLists(int maxLists) {
+    this.maxLists = maxLists;
+    return this;
+  }
+
+  /**
+   * Set how long an entry is fresh
+   *
+   * @param ttlMillis Time to live in milliseconds
+   * @return VideoCacheBuilder
+   */
+  public VideoCacheBuilder ttl(long ttlMillis) {
+    this.ttlMillis = ttlMillis;
+    return this;
+  }
+
+  /**
+   * Set how long an expired entry may still be served while it is refreshed in the background
+   * (stale-while-revalidate). Only one refresh per entry runs at a time.
+   *
+   * @param staleMillis Stale window in milliseconds (0 to always reload expired entries)
+   * @return VideoCacheBuilder
+   */
+  public VideoCacheBuilder staleWhileRevalidate(long staleMillis) {
+    this.staleMillis = staleMillis;
+    return this;
+  }
+
+  /**
+   * Build VideoCache from the given parameters
+   *
+   * @return VideoCache
+   */
+  public VideoCache build() {
+    return new VideoCache(this.maxVideos, this.maxLists, this.ttlMillis, this.staleMillis);
+  }
+
+}
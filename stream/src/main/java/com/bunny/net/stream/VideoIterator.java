@@ -0,0 +1,122 @@
+package com.bunny.net.stream;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import com.bunny.net.stream.ListVideoQueryBuilder.ListVideoQuery;
+
+/**
+ * Lazy iterator over all videos matching a list query, page by page. While the caller consumes a
+ * page, the following pages are fetched in the background, up to the configured prefetch depth.
+ *
+ * <p>Errors returned from the API are thrown as a {@link CompletionException} with the original
+ * exception as its cause. The iterator is not thread-safe. Close it when you stop early, so no
+ * more pages are requested.
+ */
+public class VideoIterator implements Iterator<Video>, AutoCloseable {
+  private final BunnyStream bunnyStream;
+  private final ListVideoQuery lvq;
+  private final int prefetch;
+  private final ArrayDeque<CompletableFuture<ListVideoResponse>> pending =
+      new ArrayDeque<CompletableFuture<ListVideoResponse>>();
+  private Iterator<Video> current = Collections.emptyIterator();
+  private int nextPage;
+  private int lastPage = -1;
+  private boolean closed = false;
+
+  /**
+   * VideoIterator
+   *
+   * @param bunnyStream BunnyStream client to list with
+   * @param lvq ListVideoQuery of the first page to return
+   * @param prefetch Number of pages to fetch ahead of the page being consumed
+   */
+  VideoIterator(BunnyStream bunnyStream, ListVideoQuery lvq, int prefetch) {
+    this.bunnyStream = bunnyStream;
+    this.lvq = lvq;
+    this.prefetch = prefetch;
+    this.nextPage = lvq.getPage();
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!this.current.hasNext()) {
+      if (this.closed) {
+        return false;
+      }
+      if (this.pending.isEmpty()) {
+        if (this.lastPage >= 0 && this.nextPage > this.lastPage) {
+          return false;
+        }
+        this.request();
+      }
+
+      ListVideoResponse response;
+      try {
+        response = this.pending.poll().join();
+      } catch (CompletionException e) {
+        this.close();
+        throw e;
+      }
+
+      List<Video> videos = response.getList();
+      if (this.lastPage < 0) {
+        int perPage = Math.max(1, response.getItemsPerPage());
+        this.lastPage = (response.getTotalItems() + perPage - 1) / perPage;
+      }
+      if (videos.isEmpty()) {
+        // The library shrank while iterating, nothing follows
+        this.close();
+        return false;
+      }
+      this.current = videos.iterator();
+      this.fill();
+    }
+    return true;
+  }
+
+  @Override
+  public Video next() {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return this.current.next();
+  }
+
+  /**
+   * Stop iterating and cancel pages which are still being fetched.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.current = Collections.emptyIterator();
+    CompletableFuture<ListVideoResponse> future;
+    while ((future = this.pending.poll()) != null) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * Keep the prefetch queue filled, without requesting pages past the last one.
+   */
+  private void fill() {
+    while (this.pending.size() < this.prefetch && this.nextPage <= this.lastPage) {
+      this.request();
+    }
+  }
+
+  private void request() {
+    ListVideoQuery page = new ListVideoQueryBuilder()
+        .page(this.nextPage++)
+        .perPage(this.lvq.getPerPage())
+        .sortBy(this.lvq.getSortBy())
+        .search(this.lvq.getSearch())
+        .collection(this.lvq.getCollection())
+        .build();
+    this.pending.add(this.bunnyStream.listVideosAsync(page));
+  }
+}
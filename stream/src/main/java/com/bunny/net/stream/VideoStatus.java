@@ -0,0 +1,50 @@
+package com.bunny.net.stream;
+
+public enum VideoStatus {
+  CREATED (0),
+  UPLOADED (1),
+  PROCESSING (2),
+  TRANSCODING (3),
+  FINISHED (4),
+  ERROR (5),
+  UPLOAD_FAILED (6),
+  UNKNOWN (-1)
+  ;
+
+  private static final VideoStatus[] BY_CODE = {
+      CREATED, UPLOADED, PROCESSING, TRANSCODING, FINISHED, ERROR, UPLOAD_FAILED};
+
+  private final int code;
+
+  VideoStatus(int code) {
+    this.code = code;
+  }
+
+  /**
+   * Get status code as returned by the API
+   *
+   * @return Status code (-1 if unknown)
+   */
+  public int getCode() {
+    return this.code;
+  }
+
+  /**
+   * Check whether the video will not change status on its own anymore
+   *
+   * @return true if finished or failed, false while it is still being uploaded or encoded
+   */
+  public boolean isTerminal() {
+    return this == FINISHED || this == ERROR || this == UPLOAD_FAILED;
+  }
+
+  /**
+   * Resolve a status code returned by the API
+   *
+   * @param code Status code
+   * @return VideoStatus (UNKNOWN if the code is not known)
+   */
+  public static VideoStatus fromCode(int code) {
+    return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : UNKNOWN;
+  }
+}
@@ -0,0 +1,58 @@
+package com.bunny.net.stream;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads (JDK 21 and later) from a library compiled for Java 8. The JDK method
+ * is looked up reflectively, so the jar still loads on older runtimes.
+ *
+ * <p>Pass {@link #newExecutor()} to the BunnyStream constructor to run the *Async operations on
+ * virtual threads. The transport and the connection pool block on locks and sockets, not inside a
+ * synchronized block, so a blocked virtual thread releases its carrier thread. The client's own
+ * synchronized sections (the circuit breaker, hedge latencies, encode watcher and a streamed caption
+ * body) only update state in memory and never block while holding the monitor. Raise the
+ * connection pool's max total and max per route to match the concurrency you need, otherwise the
+ * virtual threads simply queue up for a connection.
+ */
+public class VirtualThreads {
+  private static final Method NEW_EXECUTOR = lookup();
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Check whether the running JDK supports virtual threads.
+   *
+   * @return true if virtual threads are available
+   */
+  public static boolean isSupported() {
+    return NEW_EXECUTOR != null;
+  }
+
+  /**
+   * Create an executor which starts a new virtual thread for each task.
+   *
+   * @return Virtual thread per task executor
+   * @throws UnsupportedOperationException The running JDK has no virtual threads
+   */
+  public static ExecutorService newExecutor() {
+    if (NEW_EXECUTOR == null) {
+      throw new UnsupportedOperationException("Virtual threads require JDK 21 or later.");
+    }
+    try {
+      return (ExecutorService) NEW_EXECUTOR.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("Virtual threads could not be created.", e);
+    }
+  }
+
+  private static Method lookup() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
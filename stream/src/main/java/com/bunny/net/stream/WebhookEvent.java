@@ -0,0 +1,281 @@
+package com.bunny.net.stream;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Status event posted by Bunny Stream to a webhook URL, e.g.
+ * {@code {"VideoLibraryId":133,"VideoGuid":"657bb740-a71b-4529-a012-528021c31a92","Status":3}}.
+ *
+ * <p>Webhook status codes differ from the video status codes of {@link VideoStatus}: 0 queued,
+ * 1 processing, 2 encoding, 3 finished, 4 resolution finished, 5 failed, 6 presigned upload
+ * started, 7 presigned upload finished, 8 presigned upload failed, 9 captions generated, 10 title
+ * or description generated.
+ */
+public class WebhookEvent {
+  public static final int QUEUED = 0;
+  public static final int PROCESSING = 1;
+  public static final int ENCODING = 2;
+  public static final int FINISHED = 3;
+  public static final int RESOLUTION_FINISHED = 4;
+  public static final int FAILED = 5;
+  public static final int PRESIGNED_UPLOAD_STARTED = 6;
+  public static final int PRESIGNED_UPLOAD_FINISHED = 7;
+  public static final int PRESIGNED_UPLOAD_FAILED = 8;
+  public static final int CAPTIONS_GENERATED = 9;
+  public static final int TITLE_OR_DESCRIPTION_GENERATED = 10;
+
+  private final int videoLibraryId;
+  private final String videoGuid;
+  private final int status;
+
+  /**
+   * WebhookEvent
+   *
+   * @param videoLibraryId Video library ID
+   * @param videoGuid Video ID
+   * @param status Webhook status code
+   */
+  public WebhookEvent(int videoLibraryId, String videoGuid, int status) {
+    this.videoLibraryId = videoLibraryId;
+    this.videoGuid = videoGuid;
+    this.status = status;
+  }
+
+  /**
+   * Get video library ID
+   *
+   * @return Video library ID (Video.ABSENT if not present)
+   */
+  public int getVideoLibraryId() {
+    return this.videoLibraryId;
+  }
+
+  /**
+   * Get GUID (Video ID)
+   *
+   * @return GUID/Video ID
+   */
+  public String getVideoGuid() {
+    return this.videoGuid;
+  }
+
+  /**
+   * Get webhook status code
+   *
+   * @return Status code (Video.ABSENT if not present)
+   */
+  public int getStatus() {
+    return this.status;
+  }
+
+  /**
+   * Check whether the video finished encoding or failed
+   *
+   * @return true if finished or failed
+   */
+  public boolean isTerminal() {
+    return this.status == FINISHED || this.status == FAILED
+        || this.status == PRESIGNED_UPLOAD_FAILED;
+  }
+
+  /**
+   * Return string representation of WebhookEvent
+   */
+  public String toString() {
+    return "{\"VideoLibraryId\":" + this.videoLibraryId + ",\"VideoGuid\":\"" + this.videoGuid
+        + "\",\"Status\":" + this.status + "}";
+  }
+
+  /**
+   * Parse a webhook payload. The payload is scanned in place; apart from the video ID nothing is
+   * allocated. Unknown keys are skipped.
+   *
+   * @param buf Buffer holding the payload (UTF-8 JSON object)
+   * @param len Length of the payload
+   * @return WebhookEvent
+   * @throws IllegalArgumentException If the payload is not a JSON object with a VideoGuid
+   */
+  static WebhookEvent parse(byte[] buf, int len) {
+    Scanner scanner = new Scanner(buf, len);
+    int libraryId = Video.ABSENT;
+    String guid = null;
+    int status = Video.ABSENT;
+
+    scanner.expect('{');
+    if (scanner.peek() != '}') {
+      do {
+        int keyStart = scanner.string();
+        int keyEnd = scanner.pos - 1;
+        scanner.expect(':');
+        if (scanner.keyIs(keyStart, keyEnd, "VideoGuid")) {
+          int start = scanner.string();
+          guid = new String(buf, start, scanner.pos - 1 - start, StandardCharsets.UTF_8);
+        } else if (scanner.keyIs(keyStart, keyEnd, "VideoLibraryId")) {
+          libraryId = scanner.integer();
+        } else if (scanner.keyIs(keyStart, keyEnd, "Status")) {
+          status = scanner.integer();
+        } else {
+          scanner.skipValue();
+        }
+      } while (scanner.next(',', '}'));
+    } else {
+      scanner.pos++;
+    }
+
+    if (guid == null || guid.isEmpty()) {
+      throw new IllegalArgumentException("Webhook payload has no VideoGuid.");
+    }
+    return new WebhookEvent(libraryId, guid, status);
+  }
+
+  /**
+   * Minimal scanner over a JSON object with flat values.
+   */
+  private static class Scanner {
+    private final byte[] buf;
+    private final int len;
+    private int pos = 0;
+
+    Scanner(byte[] buf, int len) {
+      this.buf = buf;
+      this.len = len;
+    }
+
+    byte peek() {
+      while (this.pos < this.len && this.buf[this.pos] <= ' ') {
+        this.pos++;
+      }
+      if (this.pos >= this.len) {
+        throw new IllegalArgumentException("Unexpected end of webhook payload.");
+      }
+      return this.buf[this.pos];
+    }
+
+    void expect(char c) {
+      if (this.peek() != c) {
+        throw new IllegalArgumentException("Expected '" + c + "' at " + this.pos + ".");
+      }
+      this.pos++;
+    }
+
+    /**
+     * Consume ',' (returns true) or the closing character (returns false).
+     */
+    boolean next(char separator, char close) {
+      byte b = this.peek();
+      this.pos++;
+      if (b == separator) {
+        return true;
+      }
+      if (b == close) {
+        return false;
+      }
+      throw new IllegalArgumentException("Unexpected '" + (char) b + "' at " + (this.pos - 1) + ".");
+    }
+
+    /**
+     * Consume a string (escapes are kept as is) and return the offset of its first character. The
+     * position is left after the closing quote.
+     */
+    int string() {
+      this.expect('"');
+      int start = this.pos;
+      while (this.pos < this.len) {
+        byte b = this.buf[this.pos++];
+        if (b == '\\') {
+          this.pos++;
+        } else if (b == '"') {
+          return start;
+        }
+      }
+      throw new IllegalArgumentException("Unterminated string in webhook payload.");
+    }
+
+    boolean keyIs(int start, int end, String key) {
+      if (end - start != key.length()) {
+        return false;
+      }
+      for (int i = 0; i < key.length(); i++) {
+        if (this.buf[start + i] != key.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    int integer() {
+      if (this.peek() == '"') {
+        // Some senders quote numbers
+        int start = this.string();
+        return parseInt(this.buf, start, this.pos - 1);
+      }
+      int start = this.pos;
+      while (this.pos < this.len && (this.buf[this.pos] == '-'
+          || (this.buf[this.pos] >= '0' && this.buf[this.pos] <= '9'))) {
+        this.pos++;
+      }
+      if (this.pos == start) {
+        this.skipValue();
+        return Video.ABSENT;
+      }
+      return parseInt(this.buf, start, this.pos);
+    }
+
+    /**
+     * Parse a decimal integer. Malformed numbers and numbers which do not fit an int are ABSENT.
+     */
+    private static int parseInt(byte[] buf, int start, int end) {
+      boolean negative = start < end && buf[start] == '-';
+      int first = negative ? start + 1 : start;
+      if (first == end) {
+        return Video.ABSENT;
+      }
+      // Accumulated negatively, so Integer.MIN_VALUE fits as well
+      int value = 0;
+      for (int i = first; i < end; i++) {
+        if (buf[i] < '0' || buf[i] > '9') {
+          return Video.ABSENT;
+        }
+        int digit = buf[i] - '0';
+        if (value < (Integer.MIN_VALUE + digit) / 10) {
+          return Video.ABSENT;
+        }
+        value = value * 10 - digit;
+      }
+      if (!negative && value == Integer.MIN_VALUE) {
+        return Video.ABSENT;
+      }
+      return negative ? value : -value;
+    }
+
+    /**
+     * Skip any value, including nested objects and arrays.
+     */
+    void skipValue() {
+      byte first = this.peek();
+      if (first == ',' || first == '}' || first == ']') {
+        throw new IllegalArgumentException("Missing value at " + this.pos + ".");
+      }
+      int depth = 0;
+      do {
+        byte b = this.peek();
+        if (b == '"') {
+          this.string();
+          continue;
+        }
+        if (b == '{' || b == '[') {
+          depth++;
+        } else if (b == '}' || b == ']') {
+          if (depth == 0) {
+            return;
+          }
+          depth--;
+        } else if (b == ',' && depth == 0) {
+          return;
+        }
+        this.pos++;
+      } while (depth > 0 || (this.pos < this.len && this.buf[this.pos] > ' '
+          && this.buf[this.pos] != ',' && this.buf[this.pos] != '}'));
+    }
+  }
+}
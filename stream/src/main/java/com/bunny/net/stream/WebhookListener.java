@@ -0,0 +1,15 @@
+package com.bunny.net.stream;
+
+/**
+ * Receives webhook events from a WebhookReceiver.
+ */
+@FunctionalInterface
+public interface WebhookListener {
+  /**
+   * Called for every event of the videos the listener is registered for. Runs on a receiver
+   * thread, so keep it short.
+   *
+   * @param event The event
+   */
+  void onEvent(WebhookEvent event);
+}
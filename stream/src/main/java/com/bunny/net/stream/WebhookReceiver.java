@@ -0,0 +1,257 @@
+package com.bunny.net.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP listener for Bunny Stream status webhooks, built on the JDK HTTP server. Each
+ * callback is acknowledged before its listeners run, so the sender is not held up by them.
+ * Listeners are registered for a single video or for all videos, and run on the receiver threads.
+ *
+ * <p>Events can also be injected with {@link #dispatch(WebhookEvent)}, or by posting a synthetic
+ * payload to the listener, e.g.
+ * {@code curl -d '{"VideoLibraryId":1,"VideoGuid":"abc","Status":3}' http://localhost:8080/}.
+ *
+ * <p>The JDK HTTP server delays small responses (Nagle's algorithm) unless the JVM is started with
+ * {@code -Dsun.net.httpserver.nodelay=true}, which is recommended for bursts of callbacks.
+ */
+public class WebhookReceiver implements Closeable {
+  private static final int MAX_PAYLOAD = 64 * 1024;
+  private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[1024]);
+
+  private final String host;
+  private final int port;
+  private final String path;
+  private final int threads;
+  private final int backlog;
+  private final VideoCache cache;
+  private final ConcurrentHashMap<String, List<WebhookListener>> listeners =
+      new ConcurrentHashMap<String, List<WebhookListener>>();
+  private final List<WebhookListener> globalListeners = new CopyOnWriteArrayList<WebhookListener>();
+  private final LongAdder received = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder listenerErrors = new LongAdder();
+  private HttpServer server = null;
+  private ExecutorService executor = null;
+
+  /**
+   * WebhookReceiver (Obtain by building a receiver with WebhookReceiverBuilder)
+   *
+   * @param host Address to listen on
+   * @param port Port to listen on
+   * @param path Path the webhook is posted to
+   * @param threads Number of threads
+   * @param backlog Connection backlog
+   * @param cache VideoCache to invalidate, or null
+   */
+  WebhookReceiver(String host, int port, String path, int threads, int backlog, VideoCache cache) {
+    this.host = host;
+    this.port = port;
+    this.path = path;
+    this.threads = threads;
+    this.backlog = backlog;
+    this.cache = cache;
+  }
+
+  /**
+   * Start accepting callbacks.
+   *
+   * @throws IOException If the address cannot be bound
+   */
+  public synchronized void start() throws IOException {
+    if (this.server != null) {
+      throw new IllegalStateException("WebhookReceiver is already started.");
+    }
+    this.server = HttpServer.create(new InetSocketAddress(this.host, this.port), this.backlog);
+    this.executor = Executors.newFixedThreadPool(this.threads, r -> {
+      Thread thread = new Thread(r, "bunnystream-webhook");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.server.setExecutor(this.executor);
+    this.server.createContext(this.path, this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Get the port the receiver listens on (useful when it was built with port 0).
+   *
+   * @return Port
+   */
+  public synchronized int getPort() {
+    if (this.server == null) {
+      throw new IllegalStateException("WebhookReceiver is not started.");
+    }
+    return this.server.getAddress().getPort();
+  }
+
+  /**
+   * Register a listener for events of all videos.
+   *
+   * @param listener WebhookListener
+   */
+  public void addListener(WebhookListener listener) {
+    this.globalListeners.add(listener);
+  }
+
+  /**
+   * Unregister a listener for events of all videos.
+   *
+   * @param listener WebhookListener
+   */
+  public void removeListener(WebhookListener listener) {
+    this.globalListeners.remove(listener);
+  }
+
+  /**
+   * Register a listener for events of a video.
+   *
+   * @param videoId Video ID
+   * @param listener WebhookListener
+   */
+  public void addListener(String videoId, WebhookListener listener) {
+    this.listeners.computeIfAbsent(videoId, id -> new CopyOnWriteArrayList<WebhookListener>())
+        .add(listener);
+  }
+
+  /**
+   * Unregister a listener for events of a video.
+   *
+   * @param videoId Video ID
+   * @param listener WebhookListener
+   */
+  public void removeListener(String videoId, WebhookListener listener) {
+    this.listeners.computeIfPresent(videoId, (id, list) -> {
+      list.remove(listener);
+      return list.isEmpty() ? null : list;
+    });
+  }
+
+  /**
+   * Handle an event as if it was posted to the receiver: invalidate the video in the cache and run
+   * the listeners of the video, then the listeners of all videos. Errors thrown by listeners are
+   * counted and otherwise ignored.
+   *
+   * @param event WebhookEvent
+   */
+  public void dispatch(WebhookEvent event) {
+    if (this.cache != null) {
+      this.cache.invalidate(event.getVideoLibraryId(), event.getVideoGuid());
+    }
+    List<WebhookListener> videoListeners = this.listeners.get(event.getVideoGuid());
+    if (videoListeners != null) {
+      this.notify(videoListeners, event);
+    }
+    this.notify(this.globalListeners, event);
+  }
+
+  private void notify(List<WebhookListener> listeners, WebhookEvent event) {
+    for (WebhookListener listener : listeners) {
+      try {
+        listener.onEvent(event);
+      } catch (RuntimeException e) {
+        this.listenerErrors.increment();
+      }
+    }
+  }
+
+  /**
+   * Get number of callbacks accepted
+   *
+   * @return Received count
+   */
+  public long getReceivedCount() {
+    return this.received.sum();
+  }
+
+  /**
+   * Get number of callbacks rejected (wrong method, too large or malformed payload)
+   *
+   * @return Rejected count
+   */
+  public long getRejectedCount() {
+    return this.rejected.sum();
+  }
+
+  /**
+   * Get number of errors thrown by listeners
+   *
+   * @return Listener error count
+   */
+  public long getListenerErrorCount() {
+    return this.listenerErrors.sum();
+  }
+
+  /**
+   * Stop accepting callbacks.
+   */
+  @Override
+  public synchronized void close() {
+    if (this.server != null) {
+      this.server.stop(0);
+      this.executor.shutdown();
+      this.server = null;
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        this.reject(exchange, 405);
+        return;
+      }
+
+      // Read into a per-thread buffer, so a burst of callbacks does not allocate one per request
+      byte[] buf = BUFFERS.get();
+      int len = 0;
+      InputStream in = exchange.getRequestBody();
+      int read;
+      while ((read = in.read(buf, len, buf.length - len)) > 0) {
+        len += read;
+        if (len == buf.length) {
+          if (buf.length >= MAX_PAYLOAD) {
+            if (in.read() < 0) {
+              // Exactly at the limit
+              break;
+            }
+            this.reject(exchange, 413);
+            return;
+          }
+          buf = Arrays.copyOf(buf, buf.length * 2);
+          BUFFERS.set(buf);
+        }
+      }
+
+      WebhookEvent event;
+      try {
+        event = WebhookEvent.parse(buf, len);
+      } catch (IllegalArgumentException e) {
+        this.reject(exchange, 400);
+        return;
+      }
+
+      this.received.increment();
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      this.dispatch(event);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void reject(HttpExchange exchange, int code) throws IOException {
+    this.rejected.increment();
+    exchange.sendResponseHeaders(code, -1);
+  }
+}
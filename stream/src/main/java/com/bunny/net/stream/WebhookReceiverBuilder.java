@@ -0,0 +1,89 @@
+package com.bunny.net.stream;
+
+public class WebhookReceiverBuilder {
+  private String host = "127.0.0.1";
+  private int port = 8080;
+  private String path = "/";
+  private int threads = 2;
+  private int backlog = 1024;
+  private VideoCache cache = null;
+
+  /**
+   * Set address to listen on. The default is the loopback address, which only accepts callbacks
+   * through a reverse proxy or tunnel on the same host; use "0.0.0.0" to accept them from the
+   * network.
+   *
+   * @param host Host name or IP address
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder host(String host) {
+    this.host = host;
+    return this;
+  }
+
+  /**
+   * Set port to listen on
+   *
+   * @param port Port (0 to pick a free port)
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder port(int port) {
+    this.port = port;
+    return this;
+  }
+
+  /**
+   * Set path the webhook is posted to
+   *
+   * @param path Path
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder path(String path) {
+    this.path = path;
+    return this;
+  }
+
+  /**
+   * Set number of threads handling callbacks and running listeners
+   *
+   * @param threads Number of threads
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder threads(int threads) {
+    this.threads = threads;
+    return this;
+  }
+
+  /**
+   * Set number of connections which may queue while all threads are busy
+   *
+   * @param backlog Connection backlog
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder backlog(int backlog) {
+    this.backlog = backlog;
+    return this;
+  }
+
+  /**
+   * Set cache to invalidate videos in when an event for them arrives
+   *
+   * @param cache VideoCache (e.g. the one set on BunnyStream)
+   * @return WebhookReceiverBuilder
+   */
+  public WebhookReceiverBuilder cache(VideoCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  /**
+   * Build WebhookReceiver from the given parameters. Call start() to accept callbacks.
+   *
+   * @return WebhookReceiver
+   */
+  public WebhookReceiver build() {
+    return new WebhookReceiver(this.host, this.port, this.path, this.threads, this.backlog,
+        this.cache);
+  }
+
+}
@@ -0,0 +1,326 @@
+package com.bunny.net.stream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Transport on the JDK's java.net.http client (Obtain by building a transport with
+ * JdkTransportBuilder). Compiled for Java 11 and only loaded through the builder, so the rest of
+ * the library still runs on Java 8.
+ *
+ * <p>Small bodies are sent from memory. Larger bodies are read by the client from
+ * {@link Transport.Body#open()} as it sends them, so no thread is needed to push them.
+ *
+ * <p>Cancelling the future of an exchange only aborts it on JDK 16 and later. An aborted call
+ * therefore also closes the body it is sending and the response it is reading, which fails the
+ * exchange on any JDK, except while it waits for the response headers.
+ */
+class JdkTransport implements Transport {
+  private static final int BUFFERED_BODY_SIZE = 64 * 1024;
+  private static final int MAX_DRAIN_SIZE = 64 * 1024;
+  private static final Set<String> RESTRICTED_HEADERS =
+      Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+  private final HttpClient client;
+  private final Duration responseTimeout;
+
+  /**
+   * JdkTransport (Obtain by building a transport with JdkTransportBuilder)
+   *
+   * @param http2 Whether HTTP/2 is used where the server supports it
+   * @param connectTimeoutMillis Connect timeout (0 for no limit)
+   * @param responseTimeoutMillis Timeout waiting for the response headers (0 for no limit)
+   * @param executor Executor of the client's internal tasks (may be null)
+   */
+  JdkTransport(boolean http2, int connectTimeoutMillis, int responseTimeoutMillis,
+      Executor executor) {
+    HttpClient.Builder builder = HttpClient.newBuilder()
+        .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER);
+    if (connectTimeoutMillis > 0) {
+      builder.connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+    }
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    this.client = builder.build();
+    this.responseTimeout = responseTimeoutMillis > 0 ? Duration.ofMillis(responseTimeoutMillis)
+        : null;
+  }
+
+  @Override
+  public Call newCall(Request request) {
+    return new JdkCall(request);
+  }
+
+  /**
+   * Closes the client on JDKs where it can be closed (21 and later). On older JDKs its threads
+   * end once its connections are idle.
+   */
+  @Override
+  public void close() throws IOException {
+    Object client = this.client;
+    if (client instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) client).close();
+      } catch (Exception e) {
+        throw new IOException("HTTP client could not be closed.", e);
+      }
+    }
+  }
+
+  private class JdkCall implements Call {
+    private final Request request;
+    private final Queue<InputStream> bodies = new ConcurrentLinkedQueue<InputStream>();
+    private volatile boolean aborted = false;
+    private volatile CompletableFuture<?> future = null;
+    private volatile InputStream body = null;
+
+    JdkCall(Request request) {
+      this.request = request;
+    }
+
+    @Override
+    public <T> T execute(Handler<T> handler) throws IOException {
+      try {
+        HttpRequest httpRequest = this.build();
+        if (this.aborted) {
+          throw aborted();
+        }
+        CompletableFuture<HttpResponse<InputStream>> future =
+            JdkTransport.this.client.sendAsync(httpRequest, BodyHandlers.ofInputStream());
+        this.future = future;
+        if (this.aborted) {
+          // Aborted before the future was visible to abort()
+          future.cancel(true);
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+          response = future.get();
+        } catch (InterruptedException e) {
+          future.cancel(true);
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted while waiting for the response.");
+        } catch (CancellationException e) {
+          throw aborted();
+        } catch (ExecutionException e) {
+          throw this.aborted ? aborted() : unwrap(e.getCause());
+        }
+
+        try (InputStream body = response.body()) {
+          this.body = body;
+          if (this.aborted) {
+            throw aborted();
+          }
+          try {
+            return handler.handle(new JdkResponse(response, body));
+          } finally {
+            drain(body);
+          }
+        }
+      } finally {
+        this.closeBodies();
+      }
+    }
+
+    @Override
+    public void abort() {
+      this.aborted = true;
+      CompletableFuture<?> future = this.future;
+      if (future != null) {
+        future.cancel(true);
+      }
+      InputStream body = this.body;
+      if (body != null) {
+        try {
+          body.close();
+        } catch (IOException e) {
+          // Aborting anyway
+        }
+      }
+      // Fails an exchange still sending its body, on JDKs where cancel does not abort it
+      this.closeBodies();
+    }
+
+    private HttpRequest build() throws IOException {
+      Body body = this.request.getBody();
+      HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(this.request.getUri()))
+          .method(this.request.getMethod(), this.publisher(body));
+      boolean contentType = false;
+      for (Map.Entry<String, String> header : this.request.getHeaders().entrySet()) {
+        String name = header.getKey().toLowerCase();
+        if (!RESTRICTED_HEADERS.contains(name)) {
+          builder.header(header.getKey(), header.getValue());
+          contentType |= name.equals("content-type");
+        }
+      }
+      if (body != null && !contentType && body.getContentType() != null) {
+        builder.header("Content-Type", body.getContentType());
+      }
+      if (JdkTransport.this.responseTimeout != null) {
+        builder.timeout(JdkTransport.this.responseTimeout);
+      }
+      return builder.build();
+    }
+
+    private BodyPublisher publisher(Body body) throws IOException {
+      if (body == null) {
+        return BodyPublishers.noBody();
+      }
+      long length = body.getContentLength();
+      if (length >= 0 && length <= BUFFERED_BODY_SIZE) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) length);
+        body.writeTo(out);
+        return BodyPublishers.ofByteArray(out.toByteArray());
+      }
+      BodyPublisher stream = BodyPublishers.ofInputStream(() -> {
+        try {
+          return this.open(body);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      return length >= 0 ? BodyPublishers.fromPublisher(stream, length) : stream;
+    }
+
+    /**
+     * Open the body for the client to read, and keep it so an abort can close it.
+     */
+    private InputStream open(Body body) throws IOException {
+      InputStream in = new ClosableBody(body.open());
+      this.bodies.add(in);
+      if (this.aborted) {
+        this.closeBodies();
+      }
+      return in;
+    }
+
+    private void closeBodies() {
+      InputStream body;
+      while ((body = this.bodies.poll()) != null) {
+        try {
+          body.close();
+        } catch (IOException e) {
+          // Only fails the exchange
+        }
+      }
+    }
+  }
+
+  /**
+   * Body which fails every read once it is closed, so the client never mistakes an aborted body
+   * for a complete one.
+   */
+  private static class ClosableBody extends FilterInputStream {
+    private volatile boolean closed = false;
+
+    ClosableBody(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      this.check();
+      int b = super.read();
+      this.check();
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      this.check();
+      int read = super.read(b, off, len);
+      this.check();
+      return read;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.closed = true;
+      super.close();
+    }
+
+    private void check() throws IOException {
+      if (this.closed) {
+        throw aborted();
+      }
+    }
+  }
+
+  private static class JdkResponse implements Response {
+    private final HttpResponse<?> response;
+    private final InputStream body;
+
+    JdkResponse(HttpResponse<?> response, InputStream body) {
+      this.response = response;
+      this.body = body;
+    }
+
+    @Override
+    public int getStatus() {
+      return this.response.statusCode();
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return this.response.headers().firstValue(name).orElse(null);
+    }
+
+    @Override
+    public InputStream getBody() {
+      return this.body;
+    }
+  }
+
+  /**
+   * Read what is left of a small body, so an HTTP/1.1 connection can be reused.
+   */
+  private static void drain(InputStream body) {
+    try {
+      byte[] buffer = new byte[8192];
+      long drained = 0;
+      int read;
+      while (drained < MAX_DRAIN_SIZE && (read = body.read(buffer)) >= 0) {
+        drained += read;
+      }
+    } catch (IOException e) {
+      // The connection is closed instead
+    }
+  }
+
+  private static IOException aborted() {
+    return new IOException("Request was aborted.");
+  }
+
+  private static IOException unwrap(Throwable cause) {
+    // A failed body read reaches the caller wrapped by the client
+    while (cause instanceof UncheckedIOException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    return new IOException(cause);
+  }
+}
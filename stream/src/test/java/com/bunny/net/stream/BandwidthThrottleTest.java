@@ -0,0 +1,45 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Waiting in the throttle inside an upload call.
+ */
+public class BandwidthThrottleTest extends TestCase {
+  public void testCancellationEndsTheWait() throws Exception {
+    BandwidthThrottle throttle = new BandwidthThrottle(1000, null);
+    // Takes the first second, so the next bytes have to wait for it to pass
+    throttle.acquire(1000);
+
+    CallContext context = new CallContext(0);
+    CallContext previous = context.enter();
+    CallContext.schedule(context::cancel, TimeUnit.MILLISECONDS.toNanos(100));
+    long start = System.nanoTime();
+    try {
+      throttle.acquire(1000);
+      fail("Expected the cancellation");
+    } catch (CallCancelledException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    } finally {
+      context.exit(previous);
+    }
+  }
+
+  public void testWaitPastTheDeadlineFailsRightAway() throws Exception {
+    BandwidthThrottle throttle = new BandwidthThrottle(1000, null);
+    throttle.acquire(1000);
+
+    CallContext context = new CallContext(100);
+    CallContext previous = context.enter();
+    long start = System.nanoTime();
+    try {
+      throttle.acquire(1000);
+      fail("Expected the deadline");
+    } catch (DeadlineExceededException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    } finally {
+      context.exit(previous);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.BulkResult.Outcome;
+import com.bunny.net.stream.BulkUploadResult.JobResult;
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+/**
+ * Bulk uploads on the executor of the client against the fake server.
+ */
+public class BulkUploaderTest extends TestCase {
+  private FakeBunnyServer server;
+  private ExecutorService pool;
+  private AtomicInteger tasks;
+  private BunnyStream bunnyStream;
+  private List<File> files;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.pool = Executors.newFixedThreadPool(4);
+    this.tasks = new AtomicInteger();
+    this.bunnyStream = new BunnyStream("test-key", 1, new ConnectionPoolBuilder().build(),
+        task -> {
+          this.tasks.incrementAndGet();
+          this.pool.execute(task);
+        });
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    this.files = new ArrayList<File>();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.pool.shutdownNow();
+    this.server.close();
+    for (File file : this.files) {
+      file.delete();
+    }
+  }
+
+  public void testUploadsOnTheClientExecutor() throws Exception {
+    List<BulkUploadJob> jobs = new ArrayList<BulkUploadJob>();
+    for (int size : new int[] {300, 10, 2000, 40}) {
+      jobs.add(new BulkUploadJob("video-" + size, this.file(size), ""));
+    }
+    BulkUploadResult result = new BulkUploaderBuilder(this.bunnyStream).parallelism(3).build()
+        .upload(jobs);
+
+    assertEquals(4, result.getSucceeded());
+    assertEquals(2350, result.getBytesUploaded());
+    // The calling thread is one of the workers
+    assertEquals(2, this.tasks.get());
+    for (int i = 0; i < jobs.size(); i++) {
+      JobResult job = result.getJobResults().get(i);
+      assertSame(jobs.get(i), job.getJob());
+      assertEquals(job.getBytes(), this.bunnyStream.getVideo(job.getVideo().getGuid())
+          .getStorageSize());
+    }
+  }
+
+  public void testClassifiesFailuresLikeOtherBulkOperations() throws Exception {
+    File missing = new File(this.file(10).getPath() + ".missing");
+    BulkUploadJob ok = new BulkUploadJob("ok", this.file(10), "");
+    BulkUploadJob unreadable = new BulkUploadJob("missing", missing, "");
+    BulkUploadResult result = new BulkUploaderBuilder(this.bunnyStream).parallelism(2).build()
+        .upload(Arrays.asList(ok, unreadable));
+
+    assertEquals(Outcome.SUCCESS, result.getResults().get(0).getOutcome());
+    // A missing file is an IOException, but not one which goes away by trying again
+    assertEquals(Outcome.PERMANENT_FAILURE, result.getResults().get(1).getOutcome());
+    assertTrue(result.getRetryableItems().isEmpty());
+    assertNull(result.getJobResults().get(1).getVideo());
+  }
+
+  private File file(int size) throws Exception {
+    File file = File.createTempFile("bunnystream-bulk", ".bin");
+    this.files.add(file);
+    try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+      out.setLength(size);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,99 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+/**
+ * Caption uploads, encoded while they are sent, against the fake server.
+ */
+public class CaptionUploadTest extends TestCase {
+  private FakeBunnyServer server;
+  private BunnyStream bunnyStream;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.bunnyStream = new BunnyStream("test-key", 1);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    this.bunnyStream.setRetryPolicy(new RetryPolicyBuilder().maxAttempts(3).backoff(1, 1).build());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+  }
+
+  public void testStreamedCaptionIsSent() throws Exception {
+    String videoId = this.server.addVideo("captioned");
+    this.bunnyStream.addCaptionFile(new AddCaptionQueryBuilder(videoId, "en")
+        .captionFile(stream("WEBVTT\n\n00:00.000 --> 00:01.000\nHello\n"))
+        .build());
+    assertEquals(1, this.server.getRequestCount());
+  }
+
+  public void testStreamedCaptionIsNotRetriedOnRateLimit() throws Exception {
+    String videoId = this.server.addVideo("captioned");
+    this.server.setErrorRate(429, 1);
+    this.server.setRetryAfter(0);
+    try {
+      this.bunnyStream.addCaptionFile(new AddCaptionQueryBuilder(videoId, "en")
+          .captionFile(stream("WEBVTT\n"))
+          .build());
+      fail("Expected the rate limit error");
+    } catch (BunnyStreamAPIException e) {
+      // The stream cannot be sent twice, so the 429 itself is returned
+      assertEquals(429, e.getHttpCode());
+      assertEquals(0, e.getRetryAfterMillis());
+    }
+    assertEquals(1, this.server.getRequestCount());
+  }
+
+  public void testCaptionFromStringIsRetriedOnRateLimit() throws Exception {
+    String videoId = this.server.addVideo("captioned");
+    this.server.setErrorRate(429, 1);
+    try {
+      this.bunnyStream.addCaptionFile(new AddCaptionQueryBuilder(videoId, "en")
+          .captionFile("V0VCVlRUCg==")
+          .build());
+      fail("Expected the rate limit error");
+    } catch (BunnyStreamAPIException e) {
+      assertEquals(429, e.getHttpCode());
+    }
+    assertEquals(3, this.server.getRequestCount());
+  }
+
+  public void testEncodesCaptionFileWhileReading() throws Exception {
+    byte[] content = new byte[3 * FileRangeEntity.BUFFER_SIZE + 2];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) (i * 31);
+    }
+    Path path = Files.createTempFile("bunnystream-caption", ".vtt");
+    try {
+      Files.write(path, content);
+      CaptionEntity entity = new CaptionEntity("en", "English", path);
+      ByteArrayOutputStream written = new ByteArrayOutputStream();
+      entity.writeTo(written);
+
+      assertEquals(entity.getContentLength(), written.size());
+      JSONObject json = new JSONObject(new String(written.toByteArray(), StandardCharsets.UTF_8));
+      assertEquals("en", json.getString("srclang"));
+      assertEquals("English", json.getString("label"));
+      assertTrue(Arrays.equals(content, Base64.getDecoder().decode(json.getString("captionFile"))));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  private static ByteArrayInputStream stream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,85 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Which outcomes count against a circuit.
+ */
+public class CircuitBreakerTest extends TestCase {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+  private CircuitBreaker circuitBreaker;
+
+  @Override
+  protected void setUp() {
+    this.circuitBreaker = new CircuitBreakerBuilder().failureRateThreshold(0.5)
+        .slowCallDuration(1000).slowCallRateThreshold(0.5).windowSize(4).minimumCalls(4).build();
+  }
+
+  public void testConnectionErrorsOpenTheCircuit() throws Exception {
+    this.run(4, FAST, new IOException("Connection reset"));
+    assertEquals(CircuitBreaker.State.OPEN, this.circuitBreaker.getState(EndpointClass.GET));
+  }
+
+  public void testCallerDeadlineIsNotAFailure() throws Exception {
+    this.run(4, FAST, new DeadlineExceededException());
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(EndpointClass.GET));
+  }
+
+  public void testCancellationIsNotAFailure() throws Exception {
+    this.run(4, FAST, new CallCancelledException());
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(EndpointClass.GET));
+  }
+
+  public void testSlowCallsPastTheDeadlineOpenTheCircuit() throws Exception {
+    this.run(4, SLOW, new DeadlineExceededException());
+    assertEquals(CircuitBreaker.State.OPEN, this.circuitBreaker.getState(EndpointClass.GET));
+  }
+
+  public void testLongUploadsAreNotSlowCalls() throws Exception {
+    this.run(EndpointClass.UPLOAD, 4, SLOW, null);
+    assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(EndpointClass.UPLOAD));
+  }
+
+  public void testLongUploadsLeaveWritesClosed() throws Exception {
+    this.circuitBreaker = new CircuitBreakerBuilder().slowCallDuration(50)
+        .slowCallRateThreshold(0.5).windowSize(4).minimumCalls(4).build();
+    File file = File.createTempFile("bunnystream-upload", ".bin");
+    try (FakeBunnyServer server = new FakeBunnyServer("test-key", 1);
+        BunnyStream bunnyStream = new BunnyStream("test-key", 1)) {
+      try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+        out.setLength(64 * 1024);
+      }
+      server.setLatency(FakeBunnyServer.fixedLatency(100));
+      bunnyStream.setBaseUrl(server.getBaseUrl());
+      bunnyStream.setCircuitBreaker(this.circuitBreaker);
+      String videoId = server.addVideo("long");
+      for (int i = 0; i < 8; i++) {
+        bunnyStream.uploadVideo(videoId, file);
+      }
+      assertEquals(CircuitBreaker.State.CLOSED, this.circuitBreaker.getState(EndpointClass.WRITE));
+      assertEquals(CircuitBreaker.State.CLOSED,
+          this.circuitBreaker.getState(EndpointClass.UPLOAD));
+    } finally {
+      file.delete();
+    }
+  }
+
+  private void run(int calls, long nanos, Exception error) throws Exception {
+    this.run(EndpointClass.GET, calls, nanos, error);
+  }
+
+  private void run(EndpointClass endpointClass, int calls, long nanos, Exception error)
+      throws Exception {
+    for (int i = 0; i < calls; i++) {
+      this.circuitBreaker.acquire(endpointClass);
+      this.circuitBreaker.record(endpointClass, nanos, error);
+    }
+  }
+}
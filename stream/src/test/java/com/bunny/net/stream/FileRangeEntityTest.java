@@ -0,0 +1,68 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import junit.framework.TestCase;
+
+/**
+ * Uploads streamed from disk. Tests run with a small heap (see the surefire configuration), so a
+ * body which is buffered in memory fails them.
+ */
+public class FileRangeEntityTest extends TestCase {
+  private static final long SPARSE_SIZE = 3L * 1024 * 1024 * 1024;
+
+  private File file;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.file = File.createTempFile("bunnystream-upload", ".bin");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.file.delete();
+  }
+
+  public void testWritesTheRange() throws Exception {
+    byte[] content = new byte[3 * FileRangeEntity.BUFFER_SIZE + 17];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    try (RandomAccessFile out = new RandomAccessFile(this.file, "rw")) {
+      out.write(content);
+    }
+    int offset = FileRangeEntity.BUFFER_SIZE - 5;
+    int length = 2 * FileRangeEntity.BUFFER_SIZE + 9;
+    FileRangeEntity entity =
+        new FileRangeEntity(this.file, offset, length, "application/octet-stream", null);
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    entity.writeTo(written);
+    // Repeatable, e.g. for a retry
+    entity.writeTo(written);
+
+    byte[] bytes = written.toByteArray();
+    assertEquals(2 * length, bytes.length);
+    for (int i = 0; i < bytes.length; i++) {
+      assertEquals(content[offset + i % length], bytes[i]);
+    }
+  }
+
+  public void testUploadsMultiGigabyteFile() throws Exception {
+    assertTrue("Run with a heap smaller than the file",
+        Runtime.getRuntime().maxMemory() < SPARSE_SIZE);
+    try (RandomAccessFile out = new RandomAccessFile(this.file, "rw")) {
+      out.setLength(SPARSE_SIZE);
+    }
+
+    try (FakeBunnyServer server = new FakeBunnyServer("test-key", 1);
+        BunnyStream bunnyStream = new BunnyStream("test-key", 1)) {
+      bunnyStream.setBaseUrl(server.getBaseUrl());
+      String videoId = server.addVideo("large");
+      bunnyStream.uploadVideo(videoId, this.file);
+      assertEquals(SPARSE_SIZE, bunnyStream.getVideo(videoId).getStorageSize());
+    }
+  }
+}
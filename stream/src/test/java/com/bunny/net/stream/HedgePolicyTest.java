@@ -0,0 +1,122 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import junit.framework.TestCase;
+
+/**
+ * Hedged reads against the fake server, which answers every fifth request slowly.
+ */
+public class HedgePolicyTest extends TestCase {
+  private FakeBunnyServer server;
+  private ConnectionPool pool;
+  private ExecutorService executor;
+  private AtomicLong executed;
+  private BunnyStream bunnyStream;
+  private HedgePolicy hedgePolicy;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    AtomicLong requests = new AtomicLong();
+    this.server.setLatency(() -> requests.incrementAndGet() % 5 == 0 ? 400 : 5);
+    this.pool = new ConnectionPoolBuilder().build();
+    ExecutorService pool = Executors.newCachedThreadPool();
+    this.executor = pool;
+    this.executed = new AtomicLong();
+    this.bunnyStream = new BunnyStream("test-key", 1, this.pool, task -> {
+      this.executed.incrementAndGet();
+      pool.execute(task);
+    });
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    this.hedgePolicy = new HedgePolicyBuilder()
+        .percentile(0.5)
+        .minDelay(20)
+        .minSamples(10)
+        .budget(1, 100)
+        .build();
+    this.bunnyStream.setHedgePolicy(this.hedgePolicy);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.pool.close();
+    this.executor.shutdownNow();
+    this.server.close();
+  }
+
+  public void testSlowReadsAreHedged() throws Exception {
+    String videoId = this.server.addVideo("hedged");
+    for (int i = 0; i < 20; i++) {
+      this.bunnyStream.getVideo(videoId);
+    }
+
+    long slowest = 0;
+    for (int i = 0; i < 20; i++) {
+      long start = System.nanoTime();
+      assertEquals(videoId, this.bunnyStream.getVideo(videoId).getGuid());
+      slowest = Math.max(slowest, (System.nanoTime() - start) / 1000000);
+    }
+    assertTrue("Slowest read took " + slowest + " ms", slowest < 300);
+    assertTrue(this.hedgePolicy.getHedgeWinCount() > 0);
+  }
+
+  public void testHedgesDoNotRunOnTheExecutor() throws Exception {
+    String videoId = this.server.addVideo("hedged");
+    for (int i = 0; i < 40; i++) {
+      this.bunnyStream.getVideo(videoId);
+    }
+    // Reads run on the calling thread and hedges on hedge threads
+    assertTrue(this.hedgePolicy.getHedgeCount() > 0);
+    assertEquals(0, this.executed.get());
+  }
+
+  public void testHedgesRunWhileTheDefaultExecutorIsBusy() throws Exception {
+    ConnectionPool pool = new ConnectionPoolBuilder().maxPerRoute(4).build();
+    BunnyStream bunnyStream = new BunnyStream("test-key", 1, pool);
+    bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    bunnyStream.setHedgePolicy(this.hedgePolicy);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      String videoId = this.server.addVideo("hedged");
+      for (int i = 0; i < 20; i++) {
+        bunnyStream.getVideo(videoId);
+      }
+
+      // Occupy every thread of the default executor, which has one per connection
+      Executor executor = bunnyStream.getExecutor();
+      CountDownLatch busy = new CountDownLatch(4);
+      for (int i = 0; i < 4; i++) {
+        executor.execute(() -> {
+          busy.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+      }
+      assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+      long hedges = this.hedgePolicy.getHedgeCount();
+      long slowest = 0;
+      for (int i = 0; i < 20; i++) {
+        long start = System.nanoTime();
+        assertEquals(videoId, bunnyStream.getVideo(videoId).getGuid());
+        slowest = Math.max(slowest, (System.nanoTime() - start) / 1000000);
+      }
+      assertTrue("Slowest read took " + slowest + " ms", slowest < 300);
+      assertTrue(this.hedgePolicy.getHedgeCount() > hedges);
+    } finally {
+      release.countDown();
+      bunnyStream.close();
+      pool.close();
+    }
+  }
+}
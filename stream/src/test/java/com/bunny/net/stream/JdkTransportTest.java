@@ -0,0 +1,123 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Bodies sent through the java.net.http transport, which reads them from Body.open.
+ */
+public class JdkTransportTest extends TestCase {
+  private FakeBunnyServer server;
+  private Transport transport;
+  private BunnyStream bunnyStream;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.transport = new JdkTransportBuilder().http2(false).build();
+    this.bunnyStream = new BunnyStream("test-key", 1, this.transport);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+  }
+
+  public void testUploadsLargeFile() throws Exception {
+    File file = File.createTempFile("bunnystream-upload", ".bin");
+    try {
+      try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+        out.setLength(5 * 1024 * 1024 + 3);
+      }
+      String videoId = this.server.addVideo("large");
+      this.bunnyStream.uploadVideo(videoId, file);
+      assertEquals(file.length(), this.bunnyStream.getVideo(videoId).getStorageSize());
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testStreamsCaptionOfUnknownLength() throws Exception {
+    String videoId = this.server.addVideo("captioned");
+    this.bunnyStream.addCaptionFile(new AddCaptionQueryBuilder(videoId, "en")
+        .captionFile(new ByteArrayInputStream(new byte[200 * 1024]))
+        .build());
+    assertEquals(1, this.server.getRequestCount());
+  }
+
+  public void testAbortFailsBodyStillBeingSent() throws Exception {
+    CountDownLatch closed = new CountDownLatch(1);
+    InputStream stalled = new InputStream() {
+      private boolean sent = false;
+
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        return this.read(b, 0, 1) < 0 ? -1 : b[0];
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        if (!this.sent) {
+          this.sent = true;
+          b[off] = 'x';
+          return 1;
+        }
+        try {
+          // Ends the body once it is closed, which must not look like a complete body
+          closed.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return -1;
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+      }
+    };
+    Transport.Body body = new Transport.Body() {
+      @Override
+      public String getContentType() {
+        return "application/octet-stream";
+      }
+
+      @Override
+      public long getContentLength() {
+        return -1;
+      }
+
+      @Override
+      public boolean isRepeatable() {
+        return false;
+      }
+
+      @Override
+      public InputStream open() {
+        return stalled;
+      }
+    };
+    Transport.Call call = this.transport.newCall(
+        new Transport.Request("PUT", this.server.getBaseUrl() + "/library/1/videos/x").body(body));
+    CallContext.schedule(call::abort, TimeUnit.MILLISECONDS.toNanos(200));
+
+    long start = System.nanoTime();
+    try {
+      call.execute(response -> response.getStatus());
+      fail("Aborted request completed");
+    } catch (IOException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+    }
+    assertEquals(0, closed.getCount());
+  }
+}
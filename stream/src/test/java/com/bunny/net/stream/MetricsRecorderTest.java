@@ -0,0 +1,64 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import junit.framework.TestCase;
+
+/**
+ * Metrics of calls answered by the API and of calls rejected by the client itself.
+ */
+public class MetricsRecorderTest extends TestCase {
+  private FakeBunnyServer server;
+  private BunnyStream bunnyStream;
+  private MetricsRecorder recorder;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.bunnyStream = new BunnyStream("test-key", 1);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    this.recorder = new MetricsRecorder();
+    this.bunnyStream.setMetricsListener(this.recorder);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+  }
+
+  public void testServerErrorsAreCountedByStatus() throws Exception {
+    String videoId = this.server.addVideo("video");
+    this.server.setErrorRate(503, 1);
+    try {
+      this.bunnyStream.getVideo(videoId);
+      fail("Expected the server error");
+    } catch (BunnyStreamAPIException e) {
+      assertEquals(503, e.getHttpCode());
+    }
+    EndpointMetrics metrics = this.recorder.snapshot().get("GET /videos/{id}");
+    assertEquals(1, metrics.getStatusCount(5));
+    assertEquals(0, metrics.getRejected());
+  }
+
+  public void testRateLimitedCallsAreRejectedLocally() throws Exception {
+    String videoId = this.server.addVideo("video");
+    this.bunnyStream.setRateLimiter(new RateLimiterBuilder().readsPerSecond(0.001).burst(1)
+        .timeout(0).build());
+    this.bunnyStream.getVideo(videoId);
+    try {
+      this.bunnyStream.getVideo(videoId);
+      fail("Expected the client rate limit");
+    } catch (RateLimitExceededException e) {
+      // Not sent
+    }
+    assertEquals(1, this.server.getRequestCount());
+
+    EndpointMetrics metrics = this.recorder.snapshot().get("GET /videos/{id}");
+    assertEquals(2, metrics.getCalls());
+    assertEquals(1, metrics.getRejected());
+    assertEquals(1, metrics.getErrors());
+    // Not reported as a 429 of the API
+    assertEquals(0, metrics.getStatusCount(4));
+    assertEquals(1, metrics.getStatusCount(0));
+  }
+}
@@ -0,0 +1,30 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Waiting for a permit inside a call.
+ */
+public class RateLimiterTest extends TestCase {
+  public void testCancellationEndsTheWaitAndGivesBackTheSlot() throws Exception {
+    RateLimiter limiter = new RateLimiterBuilder().writesPerSecond(1).burst(1).blocking().build();
+    limiter.permit("test-key", 1, true);
+
+    CallContext context = new CallContext(0);
+    CallContext previous = context.enter();
+    CallContext.schedule(context::cancel, TimeUnit.MILLISECONDS.toNanos(100));
+    long start = System.nanoTime();
+    try {
+      limiter.permit("test-key", 1, true);
+      fail("Expected the cancellation");
+    } catch (CallCancelledException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+    } finally {
+      context.exit(previous);
+    }
+
+    // The cancelled request did not use its slot, so the next one is a second after the first
+    assertTrue(limiter.tryAcquire("test-key", 1, true, 1500, TimeUnit.MILLISECONDS));
+  }
+}
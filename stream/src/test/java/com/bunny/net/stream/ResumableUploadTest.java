@@ -0,0 +1,214 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import junit.framework.TestCase;
+
+/**
+ * Resumable uploads over TUS against the fake server, which cuts chunks off partway.
+ */
+public class ResumableUploadTest extends TestCase {
+  private static final int FILE_SIZE = 1024 * 1024 + 123;
+  private static final long CHUNK_SIZE = 128 * 1024;
+
+  private FakeBunnyServer server;
+  private BunnyStream bunnyStream;
+  private File file;
+  private File checkpoint;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.bunnyStream = this.client();
+    this.file = File.createTempFile("bunnystream-upload", ".bin");
+    byte[] content = new byte[FILE_SIZE];
+    new Random(42).nextBytes(content);
+    Files.write(this.file.toPath(), content);
+    this.checkpoint = new File(this.file.getPath() + ".checkpoint");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+    this.file.delete();
+    this.checkpoint.delete();
+  }
+
+  public void testUploadsInChunks() throws Exception {
+    String videoId = this.server.addVideo("resumable");
+    this.bunnyStream.resumableUploadVideo(this.query(videoId, 10));
+
+    this.assertUploaded(videoId);
+    assertFalse(this.checkpoint.exists());
+  }
+
+  public void testResumesAfterChunksAreCutOff() throws Exception {
+    String videoId = this.server.addVideo("resumable");
+    this.server.setChunkDrops(2);
+    this.bunnyStream.resumableUploadVideo(this.query(videoId, 10));
+
+    assertEquals(2, this.server.getInjectedResetCount());
+    this.assertUploaded(videoId);
+    // Resumed the same upload instead of starting over
+    assertEquals(1, this.server.getResumableUploadCount());
+  }
+
+  public void testResumesFromCheckpointAfterRestart() throws Exception {
+    String videoId = this.server.addVideo("resumable");
+    this.server.setChunkDrops(1);
+    try {
+      this.bunnyStream.resumableUploadVideo(this.query(videoId, 0));
+      fail("Expected the cut off chunk to fail the upload");
+    } catch (IOException e) {
+      // No retries left
+    }
+    assertTrue(this.checkpoint.exists());
+    long received = this.server.getResumableUploadOffset(videoId);
+    assertTrue(received > 0 && received < FILE_SIZE);
+
+    // A new client, as after a restart of the process
+    this.bunnyStream.close();
+    this.bunnyStream = this.client();
+    this.bunnyStream.resumableUploadVideo(this.query(videoId, 0));
+
+    this.assertUploaded(videoId);
+    assertEquals(1, this.server.getResumableUploadCount());
+    assertFalse(this.checkpoint.exists());
+  }
+
+  public void testBackoffEndsAtTheDeadline() throws Exception {
+    String videoId = this.server.addVideo("resumable");
+    this.server.setChunkDrops(Integer.MAX_VALUE);
+    this.bunnyStream.setTimeout(250);
+    long start = System.nanoTime();
+    try {
+      this.bunnyStream.resumableUploadVideo(this.query(videoId, 10));
+      fail("Expected the deadline to pass");
+    } catch (DeadlineExceededException e) {
+      // The first backoff (500 ms) does not fit in the deadline
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1000000;
+    assertTrue("Took " + elapsedMillis + " ms", elapsedMillis < 450);
+  }
+
+  public void testOffsetWhichDoesNotAdvanceIsRejected() throws Exception {
+    AtomicInteger patches = new AtomicInteger();
+    HttpServer stub = this.stub(offset -> offset, patches);
+    try {
+      this.uploadToStub(stub);
+      fail("Expected a protocol error");
+    } catch (IOException e) {
+      assertTrue(e.getCause() instanceof ProtocolException);
+    } finally {
+      stub.stop(0);
+    }
+    // The first attempt and one retry, instead of resending the chunk forever
+    assertEquals(2, patches.get());
+  }
+
+  public void testOffsetBeyondTheChunkIsRejected() throws Exception {
+    HttpServer stub = this.stub(offset -> Long.toString(FILE_SIZE + 1L), new AtomicInteger());
+    try {
+      this.uploadToStub(stub);
+      fail("Expected a protocol error");
+    } catch (IOException e) {
+      assertTrue(e.getCause() instanceof ProtocolException);
+    } finally {
+      stub.stop(0);
+    }
+  }
+
+  public void testMalformedOffsetIsRejected() throws Exception {
+    HttpServer stub = this.stub(offset -> "12abc", new AtomicInteger());
+    try {
+      this.uploadToStub(stub);
+      fail("Expected a protocol error");
+    } catch (IOException e) {
+      assertTrue(e.getCause() instanceof ProtocolException);
+    } finally {
+      stub.stop(0);
+    }
+  }
+
+  private BunnyStream client() {
+    BunnyStream client = new BunnyStream("test-key", 1);
+    client.setBaseUrl(this.server.getBaseUrl());
+    client.setTusUploadUrl(this.server.getTusUploadUrl());
+    return client;
+  }
+
+  private ResumableUploadQueryBuilder.ResumableUploadQuery query(String videoId, int maxRetries) {
+    return new ResumableUploadQueryBuilder(videoId, this.file)
+        .checkpoint(this.checkpoint)
+        .chunkSize(CHUNK_SIZE)
+        .maxRetries(maxRetries)
+        .build();
+  }
+
+  private void assertUploaded(String videoId) throws Exception {
+    CRC32 crc = new CRC32();
+    crc.update(Files.readAllBytes(this.file.toPath()));
+    assertEquals(FILE_SIZE, this.server.getResumableUploadOffset(videoId));
+    assertEquals(crc.getValue(), this.server.getResumableUploadChecksum(videoId));
+    assertEquals(FILE_SIZE, this.bunnyStream.getVideo(videoId).getStorageSize());
+  }
+
+  private void uploadToStub(HttpServer stub) throws Exception {
+    this.bunnyStream.setTusUploadUrl("http://127.0.0.1:" + stub.getAddress().getPort()
+        + "/tusupload");
+    this.bunnyStream.resumableUploadVideo(this.query("video", 1));
+  }
+
+  /**
+   * TUS endpoint which answers every chunk with the given Upload-Offset.
+   *
+   * @param acknowledge Upload-Offset header for the offset a chunk was sent at
+   * @param patches Counts the chunks received
+   */
+  private HttpServer stub(Acknowledge acknowledge, AtomicInteger patches) throws IOException {
+    HttpServer stub = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+        0);
+    stub.createContext("/tusupload", exchange -> {
+      try (InputStream in = exchange.getRequestBody()) {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+          // Discard the chunk
+        }
+      }
+      switch (exchange.getRequestMethod()) {
+        case "POST":
+          exchange.getResponseHeaders().add("Location", "/tusupload/upload");
+          exchange.sendResponseHeaders(201, -1);
+          break;
+        case "HEAD":
+          exchange.getResponseHeaders().add("Upload-Offset", "0");
+          exchange.sendResponseHeaders(200, -1);
+          break;
+        default:
+          patches.incrementAndGet();
+          String offset = exchange.getRequestHeaders().getFirst("Upload-Offset");
+          exchange.getResponseHeaders().add("Upload-Offset", acknowledge.offset(offset));
+          exchange.sendResponseHeaders(204, -1);
+      }
+      exchange.close();
+    });
+    stub.start();
+    return stub;
+  }
+
+  @FunctionalInterface
+  private interface Acknowledge {
+    String offset(String sentOffset);
+  }
+}
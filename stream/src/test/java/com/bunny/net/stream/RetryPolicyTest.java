@@ -0,0 +1,29 @@
+package com.bunny.net.stream;
+
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Backoff between attempts of a call.
+ */
+public class RetryPolicyTest extends TestCase {
+  public void testCancellationEndsTheBackoff() throws Exception {
+    RetryPolicy policy = new RetryPolicyBuilder().maxAttempts(2).backoff(1, 1).build();
+    CallContext context = new CallContext(0);
+    CallContext previous = context.enter();
+    CallContext.schedule(context::cancel, TimeUnit.MILLISECONDS.toNanos(100));
+    long start = System.nanoTime();
+    try {
+      policy.execute("GET", "/videos/x", true, true, () -> {
+        throw new BunnyStreamAPIException("Too many requests", 429, 30000);
+      });
+      fail("Expected the cancellation");
+    } catch (CallCancelledException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+      // The error which was going to be retried
+      assertEquals(429, ((BunnyStreamAPIException) e.getSuppressed()[0]).getHttpCode());
+    } finally {
+      context.exit(previous);
+    }
+  }
+}
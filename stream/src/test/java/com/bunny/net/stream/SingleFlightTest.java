@@ -0,0 +1,88 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Coalescing of concurrent reads against the fake server, which answers slowly so the reads
+ * overlap.
+ */
+public class SingleFlightTest extends TestCase {
+  private FakeBunnyServer server;
+  private BunnyStream bunnyStream;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.server.setLatency(FakeBunnyServer.fixedLatency(200));
+    this.bunnyStream = new BunnyStream("test-key", 1);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+  }
+
+  public void testIdenticalReadsAreCoalesced() throws Exception {
+    String videoId = this.server.addVideo("coalesced");
+    CompletableFuture<Video> first = this.bunnyStream.getVideoAsync(videoId);
+    CompletableFuture<Video> second = this.bunnyStream.getVideoAsync(videoId);
+    assertEquals(videoId, first.get().getGuid());
+    assertEquals(videoId, second.get().getGuid());
+    assertEquals(1, this.server.getRequestCount());
+  }
+
+  public void testQueriesWithSimilarParametersAreNotCoalesced() throws Exception {
+    this.server.setLatency(null);
+    String search = this.bunnyStream.createVideo("a, collection=x", "").getGuid();
+    String collection = this.bunnyStream.createVideo("a", "x").getGuid();
+    this.server.setLatency(FakeBunnyServer.fixedLatency(200));
+
+    CompletableFuture<ListVideoResponse> searched = this.bunnyStream.listVideosAsync(
+        new ListVideoQueryBuilder().search("a, collection=x").build());
+    CompletableFuture<ListVideoResponse> filtered = this.bunnyStream.listVideosAsync(
+        new ListVideoQueryBuilder().search("a").collection("x").build());
+
+    assertEquals(search, searched.get().getList().get(0).getGuid());
+    assertEquals(collection, filtered.get().getList().get(0).getGuid());
+  }
+
+  public void testCancellationEndsTheWaitOfAJoiner() throws Exception {
+    SingleFlight reads = new SingleFlight();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+      try {
+        return reads.execute("/videos/a", () -> {
+          started.countDown();
+          release.await();
+          return "a";
+        });
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    // Joins without a deadline, so only the cancellation can end its wait
+    CallContext context = new CallContext(0);
+    CallContext previous = context.enter();
+    CallContext.schedule(context::cancel, TimeUnit.MILLISECONDS.toNanos(100));
+    long start = System.nanoTime();
+    try {
+      reads.execute("/videos/a", () -> "joiner");
+      fail("Expected the cancellation");
+    } catch (CallCancelledException e) {
+      assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+    } finally {
+      context.exit(previous);
+      release.countDown();
+    }
+    assertEquals("a", leader.get(5, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,112 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+/**
+ * BunnyStream with a VideoCache against the fake server.
+ */
+public class VideoCacheTest extends TestCase {
+  private FakeBunnyServer server;
+  private BunnyStream bunnyStream;
+  private VideoCache cache;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.server = new FakeBunnyServer("test-key", 1);
+    this.bunnyStream = new BunnyStream("test-key", 1);
+    this.bunnyStream.setBaseUrl(this.server.getBaseUrl());
+    this.cache = new VideoCacheBuilder().ttl(60000).build();
+    this.bunnyStream.setCache(this.cache);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.bunnyStream.close();
+    this.server.close();
+  }
+
+  public void testListPagesAreCached() throws Exception {
+    this.server.addVideo("first");
+    ListVideoQueryBuilder.ListVideoQuery query = new ListVideoQueryBuilder().build();
+    assertEquals(1, this.bunnyStream.listVideos(query).getTotalItems());
+    assertEquals(1, this.bunnyStream.listVideos(query).getTotalItems());
+    assertEquals(1, this.server.getRequestCount());
+    assertEquals(1, this.cache.getHitCount());
+  }
+
+  public void testQueriesWithSimilarParametersDoNotShareAnEntry() throws Exception {
+    String search = this.bunnyStream.createVideo("a, collection=x", "").getGuid();
+    String collection = this.bunnyStream.createVideo("a", "x").getGuid();
+
+    ListVideoResponse searched = this.bunnyStream.listVideos(new ListVideoQueryBuilder()
+        .search("a, collection=x").build());
+    ListVideoResponse filtered = this.bunnyStream.listVideos(new ListVideoQueryBuilder()
+        .search("a").collection("x").build());
+
+    assertEquals(1, searched.getTotalItems());
+    assertEquals(search, searched.getList().get(0).getGuid());
+    assertEquals(1, filtered.getTotalItems());
+    assertEquals(collection, filtered.getList().get(0).getGuid());
+  }
+
+  public void testInvalidationOnlyDiscardsLoadsOfTheSameVideo() throws Exception {
+    VideoCache cache = new VideoCacheBuilder().ttl(60000).build();
+    Video loaded = new Video(new JSONObject().put("guid", "b"));
+    // Another video is invalidated while this one is loaded
+    cache.getVideo(1, "b", () -> {
+      cache.invalidate(1, "a");
+      return loaded;
+    }, Runnable::run);
+    assertSame(loaded, cache.getVideo(1, "b", () -> null, Runnable::run));
+    assertEquals(1, cache.getHitCount());
+
+    // The same video is invalidated while it is loaded
+    cache.getVideo(1, "c", () -> {
+      cache.invalidate(1, "c");
+      return loaded;
+    }, Runnable::run);
+    assertEquals(1, cache.size());
+  }
+
+  public void testInvalidationDiscardsListLoads() throws Exception {
+    VideoCache cache = new VideoCacheBuilder().ttl(60000).build();
+    cache.getList(1, "/videos", () -> {
+      cache.invalidate(1, "a");
+      return null;
+    }, Runnable::run);
+    assertEquals(0, cache.size());
+  }
+
+  public void testEntriesAreKeptPerLibrary() throws Exception {
+    VideoCache cache = new VideoCacheBuilder().ttl(60000).build();
+    Video first = new Video(new JSONObject().put("guid", "a"));
+    Video second = new Video(new JSONObject().put("guid", "a"));
+    ListVideoResponse page = new ListVideoResponse(new JSONObject());
+    cache.getVideo(1, "a", () -> first, Runnable::run);
+    cache.getVideo(2, "a", () -> second, Runnable::run);
+    cache.getList(1, "/videos", () -> page, Runnable::run);
+    cache.getList(2, "/videos", () -> page, Runnable::run);
+    assertSame(first, cache.getVideo(1, "a", () -> null, Runnable::run));
+    assertSame(second, cache.getVideo(2, "a", () -> null, Runnable::run));
+
+    // A write in one library leaves the pages of the other one
+    cache.invalidate(1, "a");
+    assertNull(cache.getList(1, "/videos", () -> null, Runnable::run));
+    assertSame(page, cache.getList(2, "/videos", () -> null, Runnable::run));
+    assertSame(second, cache.getVideo(2, "a", () -> null, Runnable::run));
+  }
+
+  public void testSmallCacheKeepsItsMaximum() throws Exception {
+    VideoCache cache = new VideoCacheBuilder().maxVideos(3).maxLists(1).ttl(60000).build();
+    for (int i = 0; i < 100; i++) {
+      Video video = new Video(new JSONObject().put("guid", "v" + i));
+      cache.getVideo(1, "v" + i, () -> video, Runnable::run);
+      ListVideoResponse page = new ListVideoResponse(new JSONObject());
+      cache.getList(1, "/videos?page=" + i, () -> page, Runnable::run);
+      assertTrue(cache.size() <= 4);
+    }
+    assertEquals(4, cache.size());
+  }
+}
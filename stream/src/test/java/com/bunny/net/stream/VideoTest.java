@@ -0,0 +1,72 @@
+package com.bunny.net.stream;
+
+import com.bunny.net.stream.fake.FakeBunnyServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import junit.framework.TestCase;
+
+/**
+ * Decoding of videos, and the raw JSON kept on request.
+ */
+public class VideoTest extends TestCase {
+  public void testDecodesNumbersAndNumericStrings() {
+    Video video = new Video(new JSONObject()
+        .put("guid", "video")
+        .put("views", 12)
+        .put("width", "1920")
+        .put("thumbnailCount", 3)
+        .put("framerate", "29.97"));
+    assertEquals("video", video.getGuid());
+    assertEquals(12, video.getViews());
+    assertEquals(1920, video.getWidth());
+    assertEquals(3, video.getThumbnailCount());
+    assertEquals(29.97, video.getFrameRate(), 0);
+    assertEquals(Video.ABSENT, video.getHeight());
+    assertEquals("", video.getTitle());
+    assertFalse(video.hasRaw());
+  }
+
+  public void testRawIsOnlyKeptOnRequest() {
+    JSONObject json = new JSONObject().put("guid", "video").put("category", "music");
+    try {
+      new Video(json).getRaw("category");
+      fail("Expected the raw JSON to be dropped");
+    } catch (IllegalStateException e) {
+      // Not retained
+    }
+    assertEquals("music", new Video(json, true).getRaw("category"));
+  }
+
+  public void testListIsDecodedUpFront() {
+    JSONObject json = new JSONObject().put("totalItems", 1).put("currentPage", 1)
+        .put("itemsPerPage", 100)
+        .put("items", new JSONArray().put(new JSONObject().put("guid", "video")));
+    ListVideoResponse response = new ListVideoResponse(json);
+    // Later changes to the JSON object do not reach the decoded page
+    json.put("totalItems", 2).put("items", new JSONArray());
+
+    assertEquals(1, response.getTotalItems());
+    assertEquals(1, response.getCurrentPage());
+    assertEquals(100, response.getItemsPerPage());
+    assertEquals("video", response.getList().get(0).getGuid());
+    assertFalse(response.hasRaw());
+    assertEquals(1, new JSONObject(response.toString()).getInt("totalItems"));
+    assertEquals(Video.ABSENT, new ListVideoResponse(new JSONObject()).getTotalItems());
+    assertEquals(2, new ListVideoResponse(json, true).getRaw("totalItems"));
+  }
+
+  public void testClientCanRetainRaw() throws Exception {
+    try (FakeBunnyServer server = new FakeBunnyServer("test-key", 1);
+        BunnyStream bunnyStream = new BunnyStream("test-key", 1)) {
+      bunnyStream.setBaseUrl(server.getBaseUrl());
+      String videoId = server.addVideo("raw");
+      assertFalse(bunnyStream.getVideo(videoId).hasRaw());
+
+      bunnyStream.setRetainRaw(true);
+      assertEquals(videoId, bunnyStream.getVideo(videoId).getRaw("guid"));
+      assertEquals(videoId, bunnyStream.listVideos(new ListVideoQueryBuilder().build()).getList()
+          .get(0).getRaw("guid"));
+      assertTrue(bunnyStream.createVideo("created", "").hasRaw());
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package com.bunny.net.stream;
+
+import java.nio.charset.StandardCharsets;
+import junit.framework.TestCase;
+
+/**
+ * Webhook payloads, including the shapes the in-place scanner has to skip or reject.
+ */
+public class WebhookEventTest extends TestCase {
+  private static final String GUID = "657bb740-a71b-4529-a012-528021c31a92";
+
+  public void testParsesPayload() {
+    WebhookEvent event =
+        parse("{\"VideoLibraryId\":133,\"VideoGuid\":\"" + GUID + "\",\"Status\":3}");
+    assertEquals(133, event.getVideoLibraryId());
+    assertEquals(GUID, event.getVideoGuid());
+    assertEquals(WebhookEvent.FINISHED, event.getStatus());
+    assertTrue(event.isTerminal());
+  }
+
+  public void testSkipsNestedValues() {
+    WebhookEvent event = parse("{ \"Meta\" : {\"a\":[1,{\"b\":\"}]\"}],\"c\":{}} ,"
+        + "\"List\":[[],[\"x\"]], \"Flag\":true, \"Empty\":null,"
+        + "\"VideoGuid\":\"" + GUID + "\",\"Status\":5}");
+    assertEquals(GUID, event.getVideoGuid());
+    assertEquals(WebhookEvent.FAILED, event.getStatus());
+    assertEquals(Video.ABSENT, event.getVideoLibraryId());
+  }
+
+  public void testParsesQuotedNumbers() {
+    WebhookEvent event =
+        parse("{\"VideoLibraryId\":\"133\",\"VideoGuid\":\"" + GUID + "\",\"Status\":\"3\"}");
+    assertEquals(133, event.getVideoLibraryId());
+    assertEquals(3, event.getStatus());
+  }
+
+  public void testMalformedNumbersAreAbsent() {
+    WebhookEvent event =
+        parse("{\"VideoLibraryId\":\"13a\",\"VideoGuid\":\"" + GUID + "\",\"Status\":\"-\"}");
+    assertEquals(Video.ABSENT, event.getVideoLibraryId());
+    assertEquals(Video.ABSENT, event.getStatus());
+  }
+
+  public void testOverflowingNumbersAreAbsent() {
+    WebhookEvent event = parse("{\"VideoLibraryId\":2147483648,\"VideoGuid\":\"" + GUID
+        + "\",\"Status\":99999999999999999999}");
+    assertEquals(Video.ABSENT, event.getVideoLibraryId());
+    assertEquals(Video.ABSENT, event.getStatus());
+
+    event = parse("{\"VideoLibraryId\":2147483647,\"VideoGuid\":\"" + GUID
+        + "\",\"Status\":-2147483648}");
+    assertEquals(Integer.MAX_VALUE, event.getVideoLibraryId());
+    assertEquals(Integer.MIN_VALUE, event.getStatus());
+  }
+
+  public void testSkipsEscapedQuotes() {
+    WebhookEvent event = parse("{\"Title\":\"a \\\"quoted\\\", \\\\ title}\","
+        + "\"VideoGuid\":\"" + GUID + "\",\"Status\":1}");
+    assertEquals(GUID, event.getVideoGuid());
+    assertEquals(WebhookEvent.PROCESSING, event.getStatus());
+  }
+
+  public void testRejectsTruncatedPayloads() {
+    String payload = "{\"Meta\":{\"a\":[1]},\"VideoGuid\":\"" + GUID + "\",\"Status\":3}";
+    for (int len = 0; len < payload.length(); len++) {
+      try {
+        WebhookEvent event = parse(payload.substring(0, len));
+        fail("Parsed truncated payload " + payload.substring(0, len) + " as " + event);
+      } catch (IllegalArgumentException e) {
+        // Expected
+      }
+    }
+  }
+
+  public void testRejectsMissingValues() {
+    assertRejected("{\"Status\":,\"VideoGuid\":\"" + GUID + "\"}");
+    assertRejected("{\"Other\":}");
+    assertRejected("{\"VideoGuid\":\"" + GUID + "\" \"Status\":3}");
+    assertRejected("{\"Status\":3}");
+    assertRejected("[]");
+  }
+
+  private static void assertRejected(String payload) {
+    try {
+      parse(payload);
+      fail("Parsed " + payload);
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  private static WebhookEvent parse(String payload) {
+    byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    // Parsed in place, so trailing bytes of the buffer must be ignored
+    byte[] buf = new byte[bytes.length + 16];
+    System.arraycopy(bytes, 0, buf, 0, bytes.length);
+    buf[bytes.length] = '}';
+    return WebhookEvent.parse(buf, bytes.length);
+  }
+}
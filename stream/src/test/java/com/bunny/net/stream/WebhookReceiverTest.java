@@ -0,0 +1,84 @@
+package com.bunny.net.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+
+/**
+ * Callbacks posted to a WebhookReceiver.
+ */
+public class WebhookReceiverTest extends TestCase {
+  private static final int MAX_PAYLOAD = 64 * 1024;
+
+  private WebhookReceiver receiver;
+
+  @Override
+  protected void setUp() throws Exception {
+    this.receiver = new WebhookReceiverBuilder().port(0).build();
+    this.receiver.start();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    this.receiver.close();
+  }
+
+  public void testDispatchesEvent() throws Exception {
+    CompletableFuture<WebhookEvent> received = new CompletableFuture<WebhookEvent>();
+    this.receiver.addListener("abc", received::complete);
+    assertEquals(200, this.post("{\"VideoLibraryId\":1,\"VideoGuid\":\"abc\",\"Status\":3}"));
+    // Listeners run after the callback is acknowledged
+    assertEquals(3, received.get(5, TimeUnit.SECONDS).getStatus());
+    assertEquals(1, this.receiver.getReceivedCount());
+  }
+
+  public void testAcceptsPayloadAtTheLimit() throws Exception {
+    assertEquals(200, this.post(padded(MAX_PAYLOAD)));
+  }
+
+  public void testRejectsPayloadOverTheLimit() throws Exception {
+    assertEquals(413, this.post(padded(MAX_PAYLOAD + 1)));
+    assertEquals(1, this.receiver.getRejectedCount());
+  }
+
+  public void testRejectsMalformedPayload() throws Exception {
+    assertEquals(400, this.post("{\"VideoGuid\":\"abc\""));
+    assertEquals(1, this.receiver.getRejectedCount());
+  }
+
+  /**
+   * Payload of exactly the given length, padded with an unknown key.
+   */
+  private static String padded(int length) {
+    String prefix = "{\"VideoGuid\":\"abc\",\"Padding\":\"";
+    String suffix = "\"}";
+    char[] padding = new char[length - prefix.length() - suffix.length()];
+    Arrays.fill(padding, 'x');
+    return prefix + new String(padding) + suffix;
+  }
+
+  private int post(String payload) throws IOException {
+    URL url = new URL("http://127.0.0.1:" + this.receiver.getPort() + "/");
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    try {
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+      connection.setFixedLengthStreamingMode(body.length);
+      try (OutputStream out = connection.getOutputStream()) {
+        out.write(body);
+      } catch (IOException e) {
+        // The receiver may reject a large payload before reading all of it
+      }
+      return connection.getResponseCode();
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
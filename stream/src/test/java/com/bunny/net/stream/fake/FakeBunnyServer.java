@@ -0,0 +1,936 @@
+package com.bunny.net.stream.fake;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * In-process fake of the Stream API endpoints used by BunnyStream, for tests and load tests. It
+ * keeps a single library in memory and serves list, get, create, update, delete, upload (PUT),
+ * fetch and captions over plain HTTP/1.1 with keep-alive, as well as resumable uploads over TUS.
+ *
+ * <p>Faults can be injected while it runs: a latency distribution, error responses (e.g. 429 or
+ * 503) at a given rate, connection resets, slow response bodies and TUS chunks cut off partway.
+ * Point a client at it with {@code bunnyStream.setBaseUrl(server.getBaseUrl())} and
+ * {@code bunnyStream.setTusUploadUrl(server.getTusUploadUrl())}.
+ */
+public class FakeBunnyServer implements Closeable {
+  private final String apiKey;
+  private final int libraryId;
+  private final ServerSocket serverSocket;
+  private final ExecutorService executor;
+  private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+  private final ConcurrentHashMap<String, FakeVideo> videos =
+      new ConcurrentHashMap<String, FakeVideo>();
+  private final ConcurrentHashMap<String, Upload> uploads = new ConcurrentHashMap<String, Upload>();
+  private final AtomicInteger chunkDrops = new AtomicInteger();
+  private final AtomicLong sequence = new AtomicLong();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder injectedErrors = new LongAdder();
+  private final LongAdder injectedResets = new LongAdder();
+
+  private volatile LongSupplier latencyMillis = null;
+  private volatile Map<Integer, Double> errorRates = new HashMap<Integer, Double>();
+  private volatile long retryAfterSeconds = -1;
+  private volatile double resetRate = 0;
+  private volatile double slowBodyRate = 0;
+  private volatile int slowBodyBytesPerSecond = 0;
+  private volatile long encodeMillis = 0;
+  private volatile boolean running = true;
+
+  /**
+   * Start a fake server on a free port of the loopback interface.
+   *
+   * @param apiKey API key the fake accepts
+   * @param libraryId Library ID the fake serves
+   * @throws IOException Server socket could not be opened
+   */
+  public FakeBunnyServer(String apiKey, int libraryId) throws IOException {
+    this(apiKey, libraryId, 0);
+  }
+
+  /**
+   * Start a fake server on the given port of the loopback interface.
+   *
+   * @param apiKey API key the fake accepts
+   * @param libraryId Library ID the fake serves
+   * @param port Port (0 for a free port)
+   * @throws IOException Server socket could not be opened
+   */
+  public FakeBunnyServer(String apiKey, int libraryId, int port) throws IOException {
+    this.apiKey = apiKey;
+    this.libraryId = libraryId;
+    this.serverSocket = new ServerSocket();
+    this.serverSocket.setReuseAddress(true);
+    this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    this.executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "fake-bunny-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.executor.execute(this::accept);
+  }
+
+  /**
+   * Get the base URL to pass to BunnyStream.setBaseUrl.
+   *
+   * @return Base URL, ending in "/library/"
+   */
+  public String getBaseUrl() {
+    return "http://127.0.0.1:" + this.serverSocket.getLocalPort() + "/library/";
+  }
+
+  /**
+   * Get the TUS endpoint to pass to BunnyStream.setTusUploadUrl.
+   *
+   * @return TUS upload URL
+   */
+  public String getTusUploadUrl() {
+    return "http://127.0.0.1:" + this.serverSocket.getLocalPort() + "/tusupload";
+  }
+
+  /**
+   * Get the port the fake listens on
+   *
+   * @return Port
+   */
+  public int getPort() {
+    return this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Delay every response by a latency drawn from the given distribution.
+   *
+   * @param latencyMillis Supplies latencies in milliseconds, or null for no added latency
+   */
+  public void setLatency(LongSupplier latencyMillis) {
+    this.latencyMillis = latencyMillis;
+  }
+
+  /**
+   * Answer the given fraction of requests with an error status instead of handling them.
+   *
+   * @param status HTTP status, e.g. 429 or 503
+   * @param rate Fraction of requests between 0 and 1 (0 to stop)
+   */
+  public synchronized void setErrorRate(int status, double rate) {
+    Map<Integer, Double> errorRates = new HashMap<Integer, Double>(this.errorRates);
+    if (rate > 0) {
+      errorRates.put(status, rate);
+    } else {
+      errorRates.remove(status);
+    }
+    this.errorRates = errorRates;
+  }
+
+  /**
+   * Send a Retry-After header with injected 429 and 503 responses.
+   *
+   * @param retryAfterSeconds Delay in seconds (-1 for no header)
+   */
+  public void setRetryAfter(long retryAfterSeconds) {
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  /**
+   * Reset the connection (TCP RST) instead of answering the given fraction of requests.
+   *
+   * @param rate Fraction of requests between 0 and 1
+   */
+  public void setResetRate(double rate) {
+    this.resetRate = rate;
+  }
+
+  /**
+   * Trickle the body of the given fraction of responses at a limited rate.
+   *
+   * @param rate Fraction of responses between 0 and 1
+   * @param bytesPerSecond Rate at which their body is sent
+   */
+  public void setSlowBody(double rate, int bytesPerSecond) {
+    this.slowBodyBytesPerSecond = bytesPerSecond;
+    this.slowBodyRate = bytesPerSecond > 0 ? rate : 0;
+  }
+
+  /**
+   * Cut the connection partway through the body of the next TUS chunks (PATCH requests). The bytes
+   * received before the cut are kept, as a TUS server does, so the client has to ask for the
+   * offset and resume from there.
+   *
+   * @param count Number of chunks to cut off
+   */
+  public void setChunkDrops(int count) {
+    this.chunkDrops.set(count);
+  }
+
+  /**
+   * Set how long encoding takes after a video is uploaded or fetched.
+   *
+   * @param encodeMillis Encoding time in milliseconds (0 to finish right away)
+   */
+  public void setEncodeTime(long encodeMillis) {
+    this.encodeMillis = encodeMillis;
+  }
+
+  /**
+   * Remove all injected latency and faults.
+   */
+  public synchronized void clearFaults() {
+    this.latencyMillis = null;
+    this.errorRates = new HashMap<Integer, Double>();
+    this.retryAfterSeconds = -1;
+    this.resetRate = 0;
+    this.slowBodyRate = 0;
+    this.chunkDrops.set(0);
+  }
+
+  /**
+   * Latency distribution with a fixed value.
+   *
+   * @param millis Latency in milliseconds
+   * @return Latency distribution
+   */
+  public static LongSupplier fixedLatency(long millis) {
+    return () -> millis;
+  }
+
+  /**
+   * Log-normal latency distribution, the usual shape of service latencies: most responses are
+   * close to the median, with a long tail.
+   *
+   * @param medianMillis Median latency in milliseconds
+   * @param p99Millis 99th percentile latency in milliseconds
+   * @return Latency distribution
+   */
+  public static LongSupplier logNormalLatency(double medianMillis, double p99Millis) {
+    double sigma = Math.log(Math.max(p99Millis, medianMillis) / medianMillis) / 2.3263;
+    return () -> Math.round(medianMillis
+        * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+  }
+
+  /**
+   * Add a video to the library, as if it was created and uploaded.
+   *
+   * @param title Title of the video
+   * @return Video ID
+   */
+  public String addVideo(String title) {
+    FakeVideo video = this.create(title, "");
+    video.uploaded(1024 * 1024, 0);
+    return video.guid;
+  }
+
+  /**
+   * Get number of videos in the library
+   *
+   * @return Video count
+   */
+  public int getVideoCount() {
+    return this.videos.size();
+  }
+
+  /**
+   * Get number of TUS uploads created
+   *
+   * @return Upload count
+   */
+  public int getResumableUploadCount() {
+    return this.uploads.size();
+  }
+
+  /**
+   * Get the bytes received so far by the TUS upload of a video.
+   *
+   * @param videoId Video ID
+   * @return Upload offset, or -1 if the video has no upload
+   */
+  public long getResumableUploadOffset(String videoId) {
+    Upload upload = this.upload(videoId);
+    return upload != null ? upload.offset() : -1;
+  }
+
+  /**
+   * Get the CRC-32 of the bytes received by the TUS upload of a video, in upload order, to check
+   * them against the file.
+   *
+   * @param videoId Video ID
+   * @return CRC-32, or -1 if the video has no upload
+   */
+  public long getResumableUploadChecksum(String videoId) {
+    Upload upload = this.upload(videoId);
+    return upload != null ? upload.checksum() : -1;
+  }
+
+  /**
+   * Get number of requests received
+   *
+   * @return Request count
+   */
+  public long getRequestCount() {
+    return this.requests.sum();
+  }
+
+  /**
+   * Get number of injected error responses
+   *
+   * @return Error count
+   */
+  public long getInjectedErrorCount() {
+    return this.injectedErrors.sum();
+  }
+
+  /**
+   * Get number of injected connection resets
+   *
+   * @return Reset count
+   */
+  public long getInjectedResetCount() {
+    return this.injectedResets.sum();
+  }
+
+  /**
+   * Stop the server and close all connections.
+   */
+  @Override
+  public void close() throws IOException {
+    this.running = false;
+    this.serverSocket.close();
+    for (Socket socket : this.connections) {
+      socket.close();
+    }
+    this.executor.shutdownNow();
+  }
+
+  private void accept() {
+    while (this.running) {
+      try {
+        Socket socket = this.serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        this.connections.add(socket);
+        this.executor.execute(() -> this.serve(socket));
+      } catch (IOException e) {
+        // Closed
+      }
+    }
+  }
+
+  private void serve(Socket socket) {
+    try (Socket s = socket) {
+      InputStream in = new BufferedInputStream(s.getInputStream(), 16384);
+      OutputStream out = new BufferedOutputStream(s.getOutputStream(), 16384);
+      while (this.running) {
+        Request request = Request.read(in);
+        if (request == null) {
+          return;
+        }
+        this.requests.increment();
+        if (!this.respond(s, request, out)) {
+          return;
+        }
+      }
+    } catch (IOException e) {
+      // Connection closed by the client or reset
+    } finally {
+      this.connections.remove(socket);
+    }
+  }
+
+  /**
+   * Answer a request, injecting faults as configured.
+   *
+   * @return Whether the connection stays open
+   */
+  private boolean respond(Socket socket, Request request, OutputStream out) throws IOException {
+    LongSupplier latency = this.latencyMillis;
+    if (latency != null) {
+      long millis = latency.getAsLong();
+      if (millis > 0) {
+        try {
+          TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+          return false;
+        }
+      }
+    }
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    if (this.resetRate > 0 && random.nextDouble() < this.resetRate) {
+      this.injectedResets.increment();
+      socket.setSoLinger(true, 0);
+      return false;
+    }
+
+    Response response = null;
+    double roll = random.nextDouble();
+    for (Map.Entry<Integer, Double> errorRate : this.errorRates.entrySet()) {
+      roll -= errorRate.getValue();
+      if (roll < 0) {
+        this.injectedErrors.increment();
+        response = Response.status(errorRate.getKey(), "Injected error");
+        int status = errorRate.getKey();
+        if (this.retryAfterSeconds >= 0 && (status == 429 || status == 503)) {
+          response.retryAfter = this.retryAfterSeconds;
+        }
+        break;
+      }
+    }
+    if (response == null && request.path.startsWith("/tusupload")) {
+      response = this.tus(request);
+      if (response == null) {
+        // Chunk cut off partway
+        this.injectedResets.increment();
+        socket.setSoLinger(true, 0);
+        return false;
+      }
+    }
+    if (response == null) {
+      response = this.handle(request);
+    }
+
+    int bytesPerSecond = this.slowBodyBytesPerSecond;
+    boolean slow = this.slowBodyRate > 0 && random.nextDouble() < this.slowBodyRate;
+    // The body of a TUS chunk is left on the connection unless the TUS handler read it
+    request.skipBody();
+    response.write(out, request.keepAlive, slow ? bytesPerSecond : 0,
+        request.method.equals("HEAD"));
+    return request.keepAlive;
+  }
+
+  /**
+   * Answer a TUS request: POST creates an upload, HEAD reports its offset and PATCH appends a
+   * chunk at that offset.
+   *
+   * @return Response, or null if the connection is to be cut off
+   */
+  private Response tus(Request request) throws IOException {
+    FakeVideo video = this.authorize(request);
+    if (video == null) {
+      return Response.status(401, "Unauthorized");
+    }
+    String path = request.path.substring("/tusupload".length());
+    if (path.isEmpty() || path.equals("/")) {
+      if (!request.method.equals("POST")) {
+        return Response.status(405, "Method not allowed");
+      }
+      long length = parseLong(request.headers.get("upload-length"), -1);
+      if (length < 0) {
+        return Response.status(400, "Upload-Length is required");
+      }
+      String id = UUID.randomUUID().toString();
+      this.uploads.put(id, new Upload(video.guid, length));
+      return Response.empty(201).header("Location", "/tusupload/" + id);
+    }
+
+    Upload upload = this.uploads.get(path.substring(1));
+    if (upload == null || !upload.videoId.equals(video.guid)) {
+      return Response.status(404, "Upload not found");
+    }
+    switch (request.method) {
+      case "HEAD":
+        return Response.empty(200)
+            .header("Upload-Offset", Long.toString(upload.offset()))
+            .header("Upload-Length", Long.toString(upload.length));
+      case "PATCH":
+        Response response = this.patch(request, upload);
+        if (response != null && upload.offset() == upload.length) {
+          video.uploaded(upload.length, this.encodeMillis);
+        }
+        return response;
+      default:
+        return Response.status(405, "Method not allowed");
+    }
+  }
+
+  /**
+   * Append the body of a PATCH request to an upload, reading it from the connection as it arrives
+   * so a chunk can be cut off partway.
+   *
+   * @return Response, or null if the connection is to be cut off
+   */
+  private Response patch(Request request, Upload upload) throws IOException {
+    long length = parseLong(request.headers.get("content-length"), -1);
+    if (length < 0) {
+      return Response.status(411, "Content-Length is required");
+    }
+    // One PATCH per upload at a time, as the offset check and the append belong together
+    synchronized (upload) {
+      long offset = parseLong(request.headers.get("upload-offset"), -1);
+      if (offset != upload.offset) {
+        return Response.status(409, "Upload-Offset does not match");
+      }
+      if (offset + length > upload.length) {
+        return Response.status(400, "Chunk goes beyond Upload-Length");
+      }
+      long cut = -1;
+      if (this.chunkDrops.getAndUpdate(drops -> Math.max(0, drops - 1)) > 0) {
+        cut = length > 1 ? ThreadLocalRandom.current().nextLong(1, length) : 0;
+      }
+      byte[] buffer = new byte[8192];
+      long remaining = cut >= 0 ? cut : length;
+      while (remaining > 0) {
+        int n = request.pending.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (n < 0) {
+          throw new IOException("Connection closed in the request body");
+        }
+        upload.append(buffer, n);
+        remaining -= n;
+      }
+      request.pending = null;
+      if (cut >= 0) {
+        return null;
+      }
+      return Response.empty(204).header("Upload-Offset", Long.toString(upload.offset));
+    }
+  }
+
+  /**
+   * Check the TUS authorization headers: a SHA-256 signature of library ID, API key, expiration
+   * time and video ID.
+   *
+   * @return The video the request is authorized for, or null
+   */
+  private FakeVideo authorize(Request request) {
+    String videoId = request.headers.get("videoid");
+    String expire = request.headers.get("authorizationexpire");
+    String signature = request.headers.get("authorizationsignature");
+    if (videoId == null || expire == null || signature == null
+        || !Integer.toString(this.libraryId).equals(request.headers.get("libraryid"))
+        || parseLong(expire, 0) < System.currentTimeMillis() / 1000) {
+      return null;
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+          (this.libraryId + this.apiKey + expire + videoId).getBytes(StandardCharsets.UTF_8));
+      StringBuilder expected = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        expected.append(String.format("%02x", b));
+      }
+      return expected.toString().equalsIgnoreCase(signature) ? this.videos.get(videoId) : null;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Upload upload(String videoId) {
+    for (Upload upload : this.uploads.values()) {
+      if (upload.videoId.equals(videoId)) {
+        return upload;
+      }
+    }
+    return null;
+  }
+
+  private Response handle(Request request) {
+    if (!this.apiKey.equals(request.headers.get("accesskey"))) {
+      return Response.status(401, "Unauthorized");
+    }
+    String prefix = "/library/" + this.libraryId + "/videos";
+    if (!request.path.startsWith(prefix)) {
+      return Response.status(404, "Library not found");
+    }
+    String[] segments = request.path.substring(prefix.length()).split("/");
+    // "" for the collection, then the video ID and sub-resources
+    String videoId = segments.length > 1 ? segments[1] : null;
+    String resource = segments.length > 2 ? segments[2] : null;
+    String subId = segments.length > 3 ? segments[3] : null;
+
+    if (videoId == null) {
+      switch (request.method) {
+        case "GET":
+          return this.list(request.query);
+        case "POST":
+          JSONObject body = request.json();
+          FakeVideo video = this.create(body.optString("title", ""),
+              body.optString("collectionId", ""));
+          return Response.json(200, video.toJson(this.libraryId));
+        default:
+          return Response.status(405, "Method not allowed");
+      }
+    }
+
+    FakeVideo video = this.videos.get(videoId);
+    if (video == null) {
+      return Response.status(404, "Video not found");
+    }
+    String operation = request.method + (resource != null ? " " + resource : "");
+    switch (operation) {
+      case "GET":
+        return Response.json(200, video.toJson(this.libraryId));
+      case "POST":
+      case "POST thumbnail":
+        video.update(request.json());
+        return Response.success();
+      case "DELETE":
+        this.videos.remove(videoId);
+        return Response.success();
+      case "PUT":
+        video.uploaded(request.bodyLength, this.encodeMillis);
+        return Response.success();
+      case "POST fetch":
+        video.uploaded(0, this.encodeMillis);
+        return Response.success();
+      case "POST captions":
+        JSONObject caption = request.json();
+        String srclang = subId != null ? subId : caption.optString("srclang", "");
+        if (srclang.isEmpty()) {
+          return Response.status(400, "srclang is required");
+        }
+        video.addCaption(srclang, caption.optString("label", null));
+        return Response.success();
+      case "DELETE captions":
+        return subId != null && video.deleteCaption(subId)
+            ? Response.success()
+            : Response.status(404, "Caption not found");
+      default:
+        return Response.status(404, "Not found");
+    }
+  }
+
+  private FakeVideo create(String title, String collectionId) {
+    FakeVideo video = new FakeVideo(UUID.randomUUID().toString(),
+        this.sequence.incrementAndGet(), title, collectionId);
+    this.videos.put(video.guid, video);
+    return video;
+  }
+
+  private Response list(Map<String, String> query) {
+    int page = Math.max(1, parseInt(query.get("page"), 1));
+    int perPage = Math.max(1, Math.min(1000, parseInt(query.get("perPage"), 100)));
+    String search = query.get("search");
+    String collection = query.get("collection");
+    String sortBy = query.getOrDefault("sortBy", "date");
+
+    List<FakeVideo> matches = new ArrayList<FakeVideo>();
+    for (FakeVideo video : this.videos.values()) {
+      if (search != null && !video.getTitle().toLowerCase(Locale.ROOT)
+          .contains(search.toLowerCase(Locale.ROOT))) {
+        continue;
+      }
+      if (collection != null && !collection.equals(video.getCollectionId())) {
+        continue;
+      }
+      matches.add(video);
+    }
+    if (sortBy.equals("title")) {
+      matches.sort(Comparator.comparing(FakeVideo::getTitle));
+    } else {
+      // Newest first
+      matches.sort(Comparator.comparingLong((FakeVideo video) -> video.sequence).reversed());
+    }
+
+    JSONArray items = new JSONArray();
+    for (int i = (page - 1) * perPage; i < Math.min(matches.size(), page * perPage); i++) {
+      items.put(matches.get(i).toJson(this.libraryId));
+    }
+    return Response.json(200, new JSONObject()
+        .put("totalItems", matches.size())
+        .put("currentPage", page)
+        .put("itemsPerPage", perPage)
+        .put("items", items));
+  }
+
+  private static int parseInt(String value, int fallback) {
+    try {
+      return value != null ? Integer.parseInt(value) : fallback;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  private static long parseLong(String value, long fallback) {
+    try {
+      return value != null ? Long.parseLong(value.trim()) : fallback;
+    } catch (NumberFormatException e) {
+      return fallback;
+    }
+  }
+
+  /**
+   * A TUS upload: the bytes received so far are only counted and checksummed.
+   */
+  private static class Upload {
+    final String videoId;
+    final long length;
+    private long offset = 0;
+    private final CRC32 crc = new CRC32();
+
+    Upload(String videoId, long length) {
+      this.videoId = videoId;
+      this.length = length;
+    }
+
+    synchronized void append(byte[] buffer, int length) {
+      this.crc.update(buffer, 0, length);
+      this.offset += length;
+    }
+
+    synchronized long offset() {
+      return this.offset;
+    }
+
+    synchronized long checksum() {
+      return this.crc.getValue();
+    }
+  }
+
+  /**
+   * An HTTP request read from a connection.
+   */
+  private static class Request {
+    String method;
+    String path;
+    Map<String, String> query = new HashMap<String, String>();
+    Map<String, String> headers = new HashMap<String, String>();
+    boolean keepAlive;
+    byte[] body = new byte[0];
+    long bodyLength = 0;
+    /** Connection with the body still to be read, for a TUS chunk */
+    InputStream pending = null;
+
+    /**
+     * Read the next request from a connection.
+     *
+     * @return Request, or null if the client closed the connection
+     */
+    static Request read(InputStream in) throws IOException {
+      String line = readLine(in);
+      while (line != null && line.isEmpty()) {
+        line = readLine(in);
+      }
+      if (line == null) {
+        return null;
+      }
+      String[] requestLine = line.split(" ");
+      if (requestLine.length < 3) {
+        throw new IOException("Malformed request line: " + line);
+      }
+      Request request = new Request();
+      request.method = requestLine[0];
+      String target = requestLine[1];
+      int queryStart = target.indexOf('?');
+      request.path = queryStart < 0 ? target : target.substring(0, queryStart);
+      if (queryStart >= 0) {
+        for (String parameter : target.substring(queryStart + 1).split("&")) {
+          int equals = parameter.indexOf('=');
+          if (equals > 0) {
+            request.query.put(parameter.substring(0, equals),
+                URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+          }
+        }
+      }
+
+      while ((line = readLine(in)) != null && !line.isEmpty()) {
+        int colon = line.indexOf(':');
+        if (colon > 0) {
+          request.headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+              line.substring(colon + 1).trim());
+        }
+      }
+      String connection = request.headers.getOrDefault("connection", "");
+      request.keepAlive = requestLine[2].equals("HTTP/1.1")
+          ? !connection.equalsIgnoreCase("close")
+          : connection.equalsIgnoreCase("keep-alive");
+
+      boolean chunked = "chunked".equalsIgnoreCase(request.headers.get("transfer-encoding"));
+      if (request.method.equals("PATCH") && request.path.startsWith("/tusupload") && !chunked) {
+        request.pending = in;
+        return request;
+      }
+
+      // Uploads are only counted, everything else is kept for parsing
+      boolean keep = !request.method.equals("PUT");
+      ByteArrayOutputStream body = keep ? new ByteArrayOutputStream() : null;
+      if (chunked) {
+        long size;
+        while ((size = Long.parseLong(readChunkSize(in), 16)) > 0) {
+          request.bodyLength += copy(in, size, body);
+          readLine(in);
+        }
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+          // Trailers
+        }
+      } else if (request.headers.containsKey("content-length")) {
+        request.bodyLength = copy(in, Long.parseLong(request.headers.get("content-length")), body);
+      }
+      if (body != null) {
+        request.body = body.toByteArray();
+      }
+      return request;
+    }
+
+    /**
+     * Read a body left on the connection, so the next request can be read.
+     */
+    void skipBody() throws IOException {
+      if (this.pending != null) {
+        long length = parseLong(this.headers.get("content-length"), 0);
+        this.bodyLength = copy(this.pending, length, null);
+        this.pending = null;
+      }
+    }
+
+    private static String readChunkSize(InputStream in) throws IOException {
+      String line = readLine(in);
+      if (line == null) {
+        throw new IOException("Connection closed in the request body");
+      }
+      return line.split(";")[0].trim();
+    }
+
+    private static long copy(InputStream in, long length, ByteArrayOutputStream body)
+        throws IOException {
+      byte[] buffer = new byte[8192];
+      long remaining = length;
+      while (remaining > 0) {
+        int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+        if (n < 0) {
+          throw new IOException("Connection closed in the request body");
+        }
+        if (body != null) {
+          body.write(buffer, 0, n);
+        }
+        remaining -= n;
+      }
+      return length;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+      StringBuilder line = new StringBuilder();
+      int c;
+      while ((c = in.read()) >= 0) {
+        if (c == '\n') {
+          int length = line.length();
+          return length > 0 && line.charAt(length - 1) == '\r'
+              ? line.substring(0, length - 1)
+              : line.toString();
+        }
+        line.append((char) c);
+      }
+      return line.length() > 0 ? line.toString() : null;
+    }
+
+    JSONObject json() {
+      String text = new String(this.body, StandardCharsets.UTF_8).trim();
+      return text.isEmpty() ? new JSONObject() : new JSONObject(text);
+    }
+  }
+
+  /**
+   * An HTTP response to write to a connection.
+   */
+  private static class Response {
+    final int status;
+    final byte[] body;
+    final Map<String, String> headers = new LinkedHashMap<String, String>();
+    long retryAfter = -1;
+
+    Response(int status, byte[] body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    static Response json(int status, JSONObject body) {
+      return new Response(status, body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Response empty(int status) {
+      return new Response(status, new byte[0]).header("Tus-Resumable", "1.0.0");
+    }
+
+    Response header(String name, String value) {
+      this.headers.put(name, value);
+      return this;
+    }
+
+    static Response success() {
+      return status(200, "OK");
+    }
+
+    static Response status(int status, String message) {
+      return json(status, new JSONObject()
+          .put("success", status < 300)
+          .put("message", message)
+          .put("statusCode", status));
+    }
+
+    void write(OutputStream out, boolean keepAlive, int bytesPerSecond, boolean headOnly)
+        throws IOException {
+      StringBuilder head = new StringBuilder("HTTP/1.1 ").append(this.status).append(' ')
+          .append(this.status < 300 ? "OK" : "Error").append("\r\n");
+      if (this.body.length > 0) {
+        head.append("Content-Type: application/json; charset=utf-8\r\n");
+      }
+      if (this.status != 204) {
+        head.append("Content-Length: ").append(this.body.length).append("\r\n");
+      }
+      if (this.retryAfter >= 0) {
+        head.append("Retry-After: ").append(this.retryAfter).append("\r\n");
+      }
+      for (Map.Entry<String, String> header : this.headers.entrySet()) {
+        head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+      }
+      if (!keepAlive) {
+        head.append("Connection: close\r\n");
+      }
+      head.append("\r\n");
+      out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+      if (headOnly) {
+        out.flush();
+        return;
+      }
+      if (bytesPerSecond <= 0) {
+        out.write(this.body);
+        out.flush();
+        return;
+      }
+
+      // Slow body: small chunks spaced out to the given rate
+      int chunk = Math.max(1, Math.min(this.body.length, bytesPerSecond / 10));
+      out.flush();
+      for (int offset = 0; offset < this.body.length; offset += chunk) {
+        int length = Math.min(chunk, this.body.length - offset);
+        out.write(this.body, offset, length);
+        out.flush();
+        try {
+          TimeUnit.MICROSECONDS.sleep(1000000L * length / bytesPerSecond);
+        } catch (InterruptedException e) {
+          throw new SocketException("Server stopped");
+        }
+      }
+    }
+  }
+}
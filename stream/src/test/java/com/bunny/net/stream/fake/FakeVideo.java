@@ -0,0 +1,121 @@
+package com.bunny.net.stream.fake;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * A video kept in memory by the FakeBunnyServer.
+ */
+class FakeVideo {
+  private static final int CREATED = 0;
+  private static final int QUEUED = 1;
+  private static final int TRANSCODING = 3;
+  private static final int FINISHED = 4;
+
+  final String guid;
+  final long sequence;
+  private final String dateUploaded;
+  private String title;
+  private String collectionId;
+  private String thumbnailFileName = "thumbnail.jpg";
+  private long storageSize = 0;
+  private int status = CREATED;
+  private long encodeStart = 0;
+  private long encodeNanos = 0;
+  private final Map<String, String> captions = new LinkedHashMap<String, String>();
+
+  FakeVideo(String guid, long sequence, String title, String collectionId) {
+    this.guid = guid;
+    this.sequence = sequence;
+    this.title = title;
+    this.collectionId = collectionId;
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    this.dateUploaded = format.format(new Date());
+  }
+
+  synchronized String getTitle() {
+    return this.title;
+  }
+
+  synchronized String getCollectionId() {
+    return this.collectionId;
+  }
+
+  synchronized void update(JSONObject body) {
+    if (body.has("title")) {
+      this.title = body.getString("title");
+    }
+    if (body.has("collectionId")) {
+      this.collectionId = body.getString("collectionId");
+    }
+    if (body.has("thumbnailUrl")) {
+      String url = body.getString("thumbnailUrl");
+      this.thumbnailFileName = url.substring(url.lastIndexOf('/') + 1);
+    }
+  }
+
+  /**
+   * The video file was uploaded (or fetched): encoding starts and takes the given time.
+   */
+  synchronized void uploaded(long size, long encodeMillis) {
+    this.storageSize = size;
+    this.status = QUEUED;
+    this.encodeStart = System.nanoTime();
+    this.encodeNanos = TimeUnit.MILLISECONDS.toNanos(encodeMillis);
+  }
+
+  synchronized void addCaption(String srclang, String label) {
+    this.captions.put(srclang, label != null ? label : srclang);
+  }
+
+  synchronized boolean deleteCaption(String srclang) {
+    return this.captions.remove(srclang) != null;
+  }
+
+  synchronized JSONObject toJson(int libraryId) {
+    int progress = 0;
+    if (this.status != CREATED) {
+      long elapsed = System.nanoTime() - this.encodeStart;
+      if (elapsed >= this.encodeNanos) {
+        this.status = FINISHED;
+        progress = 100;
+      } else {
+        this.status = TRANSCODING;
+        progress = (int) (100 * elapsed / this.encodeNanos);
+      }
+    }
+    JSONArray captions = new JSONArray();
+    for (Map.Entry<String, String> caption : this.captions.entrySet()) {
+      captions.put(new JSONObject().put("srclang", caption.getKey())
+          .put("label", caption.getValue()));
+    }
+    boolean finished = this.status == FINISHED;
+    return new JSONObject()
+        .put("videoLibraryId", libraryId)
+        .put("guid", this.guid)
+        .put("title", this.title)
+        .put("dateUploaded", this.dateUploaded)
+        .put("views", 0)
+        .put("isPublic", false)
+        .put("length", finished ? 60 : 0)
+        .put("status", this.status)
+        .put("framerate", finished ? 30 : 0)
+        .put("width", finished ? 1920 : 0)
+        .put("height", finished ? 1080 : 0)
+        .put("availableResolutions", finished ? "240p,360p,480p,720p,1080p" : "")
+        .put("thumbnailCount", finished ? 30 : 0)
+        .put("encodeProgress", progress)
+        .put("storageSize", this.storageSize)
+        .put("captions", captions)
+        .put("hasMP4Fallback", finished)
+        .put("collectionId", this.collectionId)
+        .put("thumbnailFileName", this.thumbnailFileName);
+  }
+}